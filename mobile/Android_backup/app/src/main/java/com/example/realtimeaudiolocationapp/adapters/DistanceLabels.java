@@ -0,0 +1,41 @@
+package com.example.realtimeaudiolocationapp.adapters;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Formatted distance labels, "12.3 m", cached by distance rounded to a tenth
+ * of a metre. The cache is direct-mapped: a label replaces whatever label
+ * shared its slot, so it stays bounded while members hovering around a
+ * distance hit the same few entries. Formatting follows the default locale,
+ * and the cache empties when that changes. Main thread only.
+ */
+public class DistanceLabels {
+    static final int CACHE_SIZE = 256;
+
+    private final long[] tenths = new long[CACHE_SIZE];
+    private final String[] labels = new String[CACHE_SIZE];
+    private Locale locale;
+
+    public String label(float distance) {
+        Locale current = Locale.getDefault();
+        if (!current.equals(locale)) {
+            locale = current;
+            Arrays.fill(labels, null);
+        }
+        long rounded = tenths(distance);
+        int slot = (int) (rounded & (CACHE_SIZE - 1));
+        if (labels[slot] == null || tenths[slot] != rounded) {
+            tenths[slot] = rounded;
+            labels[slot] = String.format(current, "%.1f m", rounded / 10.0);
+        }
+        return labels[slot];
+    }
+
+    /**
+     * Distance in the resolution of the label
+     */
+    public static long tenths(float distance) {
+        return Math.round(distance * 10.0);
+    }
+}
@@ -7,23 +7,76 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.realtimeaudiolocationapp.R;
 import com.example.realtimeaudiolocationapp.models.GroupMember;
 import com.example.realtimeaudiolocationapp.services.LocationService.ProximityLevel;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Adapter for displaying group members in the location tracking view
+ * Adapter for displaying group members in the location tracking view.
+ * Submitted members are copied into {@link MemberRow}s and diffed against the
+ * shown rows on a background thread, so only changed items rebind; an item
+ * whose distance is all that changed only has its distance text updated.
  */
 public class GroupMemberAdapter extends RecyclerView.Adapter<GroupMemberAdapter.GroupMemberViewHolder> {
 
-    private List<GroupMember> groupMembers;
+    private static final ProximityLevel[] LEVELS = ProximityLevel.values();
 
-    public GroupMemberAdapter(List<GroupMember> groupMembers) {
-        this.groupMembers = groupMembers;
+    private static final DiffUtil.ItemCallback<MemberRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<MemberRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MemberRow oldRow, @NonNull MemberRow newRow) {
+            return newRow.isSameMember(oldRow);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MemberRow oldRow, @NonNull MemberRow newRow) {
+            return newRow.hasSameContents(oldRow);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull MemberRow oldRow, @NonNull MemberRow newRow) {
+            return newRow.changePayload(oldRow);
+        }
+    };
+
+    private final AsyncListDiffer<MemberRow> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final DistanceLabels distanceLabels = new DistanceLabels();
+    // Stable item ids, handed out in order of first appearance of a member id
+    private final Map<String, Long> itemIds = new HashMap<>();
+
+    public GroupMemberAdapter() {
+        setHasStableIds(true);
+    }
+
+    /**
+     * Show the given members; the list is copied, so later changes to it or to
+     * the members need another submit
+     */
+    public void submit(List<GroupMember> members) {
+        List<MemberRow> rows = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            GroupMember member = members.get(i);
+            rows.add(new MemberRow(itemId(member.getId()), member.getName(),
+                    member.getPosition().hasFix(), member.getProximityLevel().ordinal(), member.getDistance()));
+        }
+        differ.submitList(rows);
+    }
+
+    private long itemId(String memberId) {
+        Long id = itemIds.get(memberId);
+        if (id == null) {
+            id = (long) itemIds.size();
+            itemIds.put(memberId, id);
+        }
+        return id;
     }
 
     @NonNull
@@ -31,18 +84,40 @@ public class GroupMemberAdapter extends RecyclerView.Adapter<GroupMemberAdapter.
     public GroupMemberViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_group_member, parent, false);
-        return new GroupMemberViewHolder(view);
+        return new GroupMemberViewHolder(view, distanceLabels);
     }
 
     @Override
     public void onBindViewHolder(@NonNull GroupMemberViewHolder holder, int position) {
-        GroupMember member = groupMembers.get(position);
-        holder.bind(member);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull GroupMemberViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !allDistance(payloads)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        holder.bindDistance(differ.getCurrentList().get(position));
+    }
+
+    private static boolean allDistance(List<Object> payloads) {
+        for (int i = 0; i < payloads.size(); i++) {
+            if (payloads.get(i) != MemberRow.PAYLOAD_DISTANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).itemId;
     }
 
     @Override
     public int getItemCount() {
-        return groupMembers.size();
+        return differ.getCurrentList().size();
     }
 
     /**
@@ -52,24 +127,26 @@ public class GroupMemberAdapter extends RecyclerView.Adapter<GroupMemberAdapter.
         private TextView textName;
         private TextView textDistance;
         private View proximityIndicator;
+        private final DistanceLabels distanceLabels;
 
-        public GroupMemberViewHolder(@NonNull View itemView) {
+        public GroupMemberViewHolder(@NonNull View itemView, DistanceLabels distanceLabels) {
             super(itemView);
             textName = itemView.findViewById(R.id.text_member_name);
             textDistance = itemView.findViewById(R.id.text_member_distance);
             proximityIndicator = itemView.findViewById(R.id.view_proximity_indicator);
+            this.distanceLabels = distanceLabels;
         }
 
-        public void bind(GroupMember member) {
-            textName.setText(member.getName());
-            
-            if (member.getLocation() != null) {
+        public void bind(MemberRow row) {
+            textName.setText(row.name);
+
+            if (row.hasFix) {
                 textDistance.setVisibility(View.VISIBLE);
-                textDistance.setText(String.format("%.1f m", member.getDistance()));
-                
+                bindDistance(row);
+
                 // Set proximity indicator color based on proximity level
                 int colorResId;
-                switch (member.getProximityLevel()) {
+                switch (LEVELS[row.level]) {
                     case NEAR:
                         colorResId = R.color.proximity_near;
                         break;
@@ -89,5 +166,12 @@ public class GroupMemberAdapter extends RecyclerView.Adapter<GroupMemberAdapter.
                 proximityIndicator.setBackgroundColor(ContextCompat.getColor(itemView.getContext(), R.color.secondary_text));
             }
         }
+
+        /**
+         * Update only the distance text
+         */
+        public void bindDistance(MemberRow row) {
+            textDistance.setText(distanceLabels.label(row.distance));
+        }
     }
 }
@@ -0,0 +1,53 @@
+package com.example.realtimeaudiolocationapp.adapters;
+
+import java.util.Objects;
+
+/**
+ * What one item of the member strip shows, copied from a group member when a
+ * list is submitted. Group members change in place, so the list differ
+ * compares these immutable copies instead.
+ */
+public final class MemberRow {
+    /** Change payload of a row whose distance label is all that changed */
+    public static final Object PAYLOAD_DISTANCE = new Object();
+
+    public final long itemId;
+    public final String name;
+    public final boolean hasFix;
+    /** Proximity level ordinal */
+    public final int level;
+    public final float distance;
+    private final long distanceTenths;
+
+    public MemberRow(long itemId, String name, boolean hasFix, int level, float distance) {
+        this.itemId = itemId;
+        this.name = name;
+        this.hasFix = hasFix;
+        this.level = level;
+        this.distance = distance;
+        this.distanceTenths = DistanceLabels.tenths(distance);
+    }
+
+    public boolean isSameMember(MemberRow other) {
+        return itemId == other.itemId;
+    }
+
+    /**
+     * @return True if both rows would be drawn the same
+     */
+    public boolean hasSameContents(MemberRow other) {
+        return sameExceptDistance(other) && (!hasFix || distanceTenths == other.distanceTenths);
+    }
+
+    /**
+     * @return {@link #PAYLOAD_DISTANCE} if only the distance label differs from the old row, otherwise null
+     *         for a full rebind
+     */
+    public Object changePayload(MemberRow old) {
+        return sameExceptDistance(old) && hasFix ? PAYLOAD_DISTANCE : null;
+    }
+
+    private boolean sameExceptDistance(MemberRow other) {
+        return hasFix == other.hasFix && level == other.level && Objects.equals(name, other.name);
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Capture loop that moves audio through capture, resampling, framing,
+ * encoding, encryption and send. Reads of any size are cut into fixed
+ * frames by an {@link AudioPacketizer}, so packet size and latency do not
+ * depend on the device's capture buffer. Each packet carries an {@link AudioFrameHeader} with the
+ * sender id, sequence number and sample timestamp so receivers can order frames
+ * per sender. With a {@link VoiceActivityDetector} set, silent frames are not
+ * sent at all; a short comfort-noise packet describing the background level
+ * goes out at the start of each silence and periodically after that.
+ * With redundancy enabled, each packet also carries a low-bitrate copy of the
+ * previous frame so receivers can recover isolated losses.
+ * Sample arrays are owned by the loop and the encoded payload and
+ * packet come from the frame pool and go back every iteration, so the loop
+ * allocates nothing once the pool is warm.
+ */
+public class AudioCaptureLoop {
+    /** Silent frames between comfort-noise updates, counting the first */
+    public static final int COMFORT_NOISE_INTERVAL = 25;
+
+    /**
+     * Source of raw PCM, normally {@code AudioRecord.read(short[], int, int)}
+     */
+    public interface Source {
+        /**
+         * @return Number of samples read, or a negative error code
+         */
+        int read(short[] samples, int offset, int count);
+    }
+
+    /**
+     * Destination for encrypted frames. The frame is released as soon as
+     * {@link #send(ByteBuffer)} returns, so implementations must not keep it.
+     */
+    public interface Sink {
+        boolean isOpen();
+        void send(ByteBuffer frame);
+    }
+
+    private final Source source;
+    private final Sink sink;
+    private final AudioFramePool pool;
+    private final SecurityManager securityManager;
+    private final Resampler resampler;
+    private final AudioPacketizer packetizer;
+    private final VoiceCodec codec;
+    private final int ssrc;
+
+    private final short[] captureSamples;
+    private final short[] codecSamples;
+    private final short[] frameSamples;
+    private VoiceActivityDetector voiceActivityDetector;
+    private RedundancyCodec redundancyCodec;
+    private final short[] previousFrame;
+    private boolean previousFrameSent;
+
+    private int sequence;
+    private long timestamp;
+    private boolean streamInterrupted = true;
+    private int silentFrames;
+    private long framesSent;
+    private long framesSuppressed;
+    private long bytesSent;
+
+    /**
+     * @param source PCM source at the resampler's input rate
+     * @param sink Frame sink
+     * @param pool Pool whose frames hold an encoded frame plus header and encryption overhead
+     * @param securityManager Encryption provider
+     * @param resampler Converter from the capture rate to the codec rate
+     * @param packetizer Framer at the codec rate sized for the resampler output
+     * @param codec Voice codec
+     * @param readSamples Samples to request from the source per iteration
+     * @param ssrc Sender id written into every packet header
+     */
+    public AudioCaptureLoop(Source source, Sink sink, AudioFramePool pool, SecurityManager securityManager,
+                            Resampler resampler, AudioPacketizer packetizer, VoiceCodec codec,
+                            int readSamples, int ssrc) {
+        if (resampler.getOutputRate() != codec.getSampleRate() || packetizer.getSampleRate() != codec.getSampleRate()) {
+            throw new IllegalArgumentException("Resampler and packetizer must run at codec rate " + codec.getSampleRate());
+        }
+        if (getMaxPacketSize(codec, packetizer.getFrameSamples()) > pool.getFrameCapacity()) {
+            throw new IllegalArgumentException("Pool frames too small for " + packetizer.getFrameSamples() + " samples");
+        }
+        this.source = source;
+        this.sink = sink;
+        this.pool = pool;
+        this.securityManager = securityManager;
+        this.resampler = resampler;
+        this.packetizer = packetizer;
+        this.codec = codec;
+        this.ssrc = ssrc;
+        this.captureSamples = new short[readSamples];
+        this.codecSamples = new short[resampler.getMaxOutputSamples(readSamples)];
+        this.frameSamples = new short[packetizer.getFrameSamples()];
+        this.previousFrame = new short[packetizer.getFrameSamples()];
+    }
+
+    /**
+     * Size of the largest packet produced for a frame of the given length
+     * @param codec Voice codec
+     * @param codecSamples Samples per frame at the codec rate
+     */
+    public static int getMaxPacketSize(VoiceCodec codec, int codecSamples) {
+        return AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD + codec.getMaxEncodedSize(codecSamples);
+    }
+
+    /**
+     * Enable discontinuous transmission
+     * @param voiceActivityDetector Detector for the packetizer's frame duration, or null to send every frame
+     */
+    public void setVoiceActivityDetector(VoiceActivityDetector voiceActivityDetector) {
+        this.voiceActivityDetector = voiceActivityDetector;
+        silentFrames = 0;
+    }
+
+    /**
+     * Piggyback a low-bitrate copy of the previous frame on every packet
+     * @param enabled True to send redundancy
+     * @throws IllegalArgumentException If the pool frames cannot hold the larger packets
+     */
+    public void setRedundancyEnabled(boolean enabled) {
+        if (!enabled) {
+            redundancyCodec = null;
+            return;
+        }
+        RedundancyCodec redundancy = new RedundancyCodec(codec.getSampleRate(), frameSamples.length);
+        int packetSize = getMaxPacketSize(codec, frameSamples.length) + 2
+                + redundancy.getMaxEncodedSize(frameSamples.length);
+        if (packetSize > pool.getFrameCapacity()) {
+            throw new IllegalArgumentException("Pool frames too small for redundant packets of " + packetSize + " bytes");
+        }
+        redundancyCodec = redundancy;
+        previousFrameSent = false;
+    }
+
+    /**
+     * Capture one buffer and send every complete frame unless muted
+     * @param muted True to read and discard the captured audio
+     * @return False if the source reported an error
+     */
+    public boolean processFrame(boolean muted) {
+        int samplesRead = source.read(captureSamples, 0, captureSamples.length);
+        if (samplesRead < 0) {
+            return false;
+        }
+
+        // Resample and frame even when muted so filter state and timestamps stay continuous
+        int count = resampler.process(captureSamples, 0, samplesRead, codecSamples, 0);
+        packetizer.write(codecSamples, 0, count);
+        while (packetizer.readFrame(frameSamples, 0)) {
+            // Timestamp of the first sample in this frame; advances even when nothing is sent
+            long frameTimestamp = timestamp;
+            timestamp += frameSamples.length;
+            if (muted || !sink.isOpen()) {
+                streamInterrupted = true;
+                previousFrameSent = false;
+            } else if (voiceActivityDetector == null
+                    || voiceActivityDetector.isSpeech(frameSamples, 0, frameSamples.length)) {
+                silentFrames = 0;
+                sendFrame(frameTimestamp);
+            } else {
+                if (silentFrames % COMFORT_NOISE_INTERVAL == 0) {
+                    sendComfortNoise(frameTimestamp);
+                }
+                silentFrames++;
+                framesSuppressed++;
+                streamInterrupted = true;
+                previousFrameSent = false;
+            }
+        }
+        return true;
+    }
+
+    private void sendFrame(long frameTimestamp) {
+        ByteBuffer payload = pool.acquire();
+        ByteBuffer packet = pool.acquire();
+        try {
+            int flags = streamInterrupted ? AudioFrameHeader.FLAG_MARKER : 0;
+            if (redundancyCodec != null && previousFrameSent) {
+                // Primary length, primary frame, then the copy of the previous frame
+                payload.position(2);
+                int primaryLength = codec.encode(frameSamples, 0, frameSamples.length, payload);
+                payload.put(0, (byte) (primaryLength >>> 8));
+                payload.put(1, (byte) primaryLength);
+                redundancyCodec.encode(previousFrame, 0, previousFrame.length, payload);
+                flags |= AudioFrameHeader.FLAG_REDUNDANT;
+            } else {
+                codec.encode(frameSamples, 0, frameSamples.length, payload);
+            }
+            payload.flip();
+
+            if (encryptAndSend(payload, packet, frameTimestamp, flags)) {
+                sequence = (sequence + 1) & 0xFFFF;
+                streamInterrupted = false;
+                framesSent++;
+                System.arraycopy(frameSamples, 0, previousFrame, 0, frameSamples.length);
+                previousFrameSent = true;
+            } else {
+                previousFrameSent = false;
+            }
+        } finally {
+            pool.release(packet);
+            pool.release(payload);
+        }
+    }
+
+    private void sendComfortNoise(long frameTimestamp) {
+        ByteBuffer payload = pool.acquire();
+        ByteBuffer packet = pool.acquire();
+        try {
+            payload.put((byte) ComfortNoiseGenerator.toLevel(voiceActivityDetector.getNoiseRms()));
+            payload.flip();
+            encryptAndSend(payload, packet, frameTimestamp, AudioFrameHeader.FLAG_COMFORT_NOISE);
+        } finally {
+            pool.release(packet);
+            pool.release(payload);
+        }
+    }
+
+    private boolean encryptAndSend(ByteBuffer payload, ByteBuffer packet, long frameTimestamp, int flags) {
+        int headerOffset = packet.position();
+        AudioFrameHeader.write(packet, ssrc, sequence, frameTimestamp, codec.getCodecId(), flags);
+        // The clear-text header is authenticated with the payload
+        if (securityManager.encryptAudioData(ssrc, packet, headerOffset, AudioFrameHeader.SIZE, payload, packet) <= 0) {
+            return false;
+        }
+        packet.flip();
+        bytesSent += packet.remaining();
+        sink.send(packet);
+        return true;
+    }
+
+    /**
+     * Number of frames handed to the sink
+     */
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * Number of silent frames not sent because of discontinuous transmission
+     */
+    public long getFramesSuppressed() {
+        return framesSuppressed;
+    }
+
+    /**
+     * Number of bytes handed to the sink, headers included
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+}
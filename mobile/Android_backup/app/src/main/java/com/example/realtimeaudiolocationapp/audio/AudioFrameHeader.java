@@ -0,0 +1,144 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout clear-text header in front of every encrypted audio frame.
+ * It is authenticated as additional data of the frame's encryption, so a
+ * header altered on the way makes the frame fail to decrypt. Fields are
+ * written and read with absolute big-endian access at the buffer's position,
+ * so a received message is parsed in place without copying.
+ *
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |                          sender SSRC                          |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |        sequence number        |     timestamp (high half)     |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |      timestamp (low half)     |   codec id    |     flags     |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * </pre>
+ *
+ * The timestamp counts samples at the codec's sample rate and advances while
+ * the sender is muted, so receivers can measure both jitter and gap length.
+ */
+public final class AudioFrameHeader {
+    public static final int SIZE = 12;
+
+    // Codec ids
+    public static final int CODEC_PCM16 = 0;
+    public static final int CODEC_IMA_ADPCM = 1;
+
+    // Flags
+    /** First frame of a talkspurt, sent after the stream was interrupted */
+    public static final int FLAG_MARKER = 0x01;
+    /**
+     * Payload is a comfort-noise level instead of audio. Sent periodically while
+     * the sender suppresses silence, carrying the sequence number of the next
+     * audio frame, so it never takes a slot in the receiver's jitter buffer.
+     */
+    public static final int FLAG_COMFORT_NOISE = 0x02;
+    /**
+     * Payload also carries a low-bitrate copy of the previous frame: primary
+     * length (uint16, big-endian), primary frame, then the {@link RedundancyCodec}
+     * copy up to the end of the payload
+     */
+    public static final int FLAG_REDUNDANT = 0x04;
+
+    private static final int OFFSET_SSRC = 0;
+    private static final int OFFSET_SEQUENCE = 4;
+    private static final int OFFSET_TIMESTAMP = 6;
+    private static final int OFFSET_CODEC = 10;
+    private static final int OFFSET_FLAGS = 11;
+
+    private AudioFrameHeader() {
+    }
+
+    /**
+     * Write a header at the buffer's position and advance past it
+     * @param buffer Destination with at least {@link #SIZE} bytes remaining
+     * @param ssrc Sender id
+     * @param sequence Sequence number, truncated to 16 bits
+     * @param timestamp Sample timestamp, truncated to 32 bits
+     * @param codec Codec id of the payload
+     * @param flags Bitwise combination of the FLAG_ constants
+     */
+    public static void write(ByteBuffer buffer, int ssrc, int sequence, long timestamp, int codec, int flags) {
+        int base = buffer.position();
+        putInt(buffer, base + OFFSET_SSRC, ssrc);
+        putShort(buffer, base + OFFSET_SEQUENCE, sequence);
+        putInt(buffer, base + OFFSET_TIMESTAMP, (int) timestamp);
+        buffer.put(base + OFFSET_CODEC, (byte) codec);
+        buffer.put(base + OFFSET_FLAGS, (byte) flags);
+        buffer.position(base + SIZE);
+    }
+
+    /**
+     * Read the sender SSRC of the header at the buffer's position
+     */
+    public static int readSsrc(ByteBuffer buffer) {
+        return getInt(buffer, buffer.position() + OFFSET_SSRC);
+    }
+
+    /**
+     * Read the 16-bit sequence number of the header at the buffer's position
+     */
+    public static int readSequence(ByteBuffer buffer) {
+        return getShort(buffer, buffer.position() + OFFSET_SEQUENCE);
+    }
+
+    /**
+     * Read the unsigned 32-bit sample timestamp of the header at the buffer's position
+     */
+    public static long readTimestamp(ByteBuffer buffer) {
+        return getInt(buffer, buffer.position() + OFFSET_TIMESTAMP) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Read the codec id of the header at the buffer's position
+     */
+    public static int readCodec(ByteBuffer buffer) {
+        return buffer.get(buffer.position() + OFFSET_CODEC) & 0xFF;
+    }
+
+    /**
+     * Read the flags of the header at the buffer's position
+     */
+    public static int readFlags(ByteBuffer buffer) {
+        return buffer.get(buffer.position() + OFFSET_FLAGS) & 0xFF;
+    }
+
+    /**
+     * Advance the buffer past the header to the payload
+     */
+    public static void skip(ByteBuffer buffer) {
+        buffer.position(buffer.position() + SIZE);
+    }
+
+    // Explicit byte access keeps the wire format big-endian regardless of buffer order
+
+    private static void putInt(ByteBuffer buffer, int index, int value) {
+        buffer.put(index, (byte) (value >>> 24));
+        buffer.put(index + 1, (byte) (value >>> 16));
+        buffer.put(index + 2, (byte) (value >>> 8));
+        buffer.put(index + 3, (byte) value);
+    }
+
+    private static void putShort(ByteBuffer buffer, int index, int value) {
+        buffer.put(index, (byte) (value >>> 8));
+        buffer.put(index + 1, (byte) value);
+    }
+
+    private static int getInt(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) << 24
+                | (buffer.get(index + 1) & 0xFF) << 16
+                | (buffer.get(index + 2) & 0xFF) << 8
+                | (buffer.get(index + 3) & 0xFF);
+    }
+
+    private static int getShort(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) << 8 | (buffer.get(index + 1) & 0xFF);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed-size pool of direct frame buffers shared by the audio capture and playback paths.
+ * Frames are allocated up front; a frame is only allocated later if the pool runs dry,
+ * which the allocation counter makes visible.
+ */
+public class AudioFramePool {
+    private final int frameCapacity;
+    private final ByteBuffer[] freeFrames;
+    private int freeCount;
+    private long allocationCount;
+
+    /**
+     * @param frameCount Number of frames to preallocate
+     * @param frameCapacity Capacity of each frame in bytes
+     */
+    public AudioFramePool(int frameCount, int frameCapacity) {
+        if (frameCount <= 0 || frameCapacity <= 0) {
+            throw new IllegalArgumentException("Frame count and capacity must be positive");
+        }
+        this.frameCapacity = frameCapacity;
+        this.freeFrames = new ByteBuffer[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            freeFrames[i] = allocateFrame();
+        }
+        this.freeCount = frameCount;
+    }
+
+    /**
+     * Take a cleared frame from the pool, allocating only if every frame is in use
+     * @return Frame with position 0 and limit equal to its capacity
+     */
+    public synchronized ByteBuffer acquire() {
+        if (freeCount == 0) {
+            return allocateFrame();
+        }
+        ByteBuffer frame = freeFrames[--freeCount];
+        freeFrames[freeCount] = null;
+        frame.clear();
+        return frame;
+    }
+
+    /**
+     * Return a frame to the pool. Frames beyond the pool size are dropped for the GC.
+     * @param frame Frame previously obtained from {@link #acquire()}
+     */
+    public synchronized void release(ByteBuffer frame) {
+        if (frame == null || frame.capacity() != frameCapacity) {
+            return;
+        }
+        if (freeCount < freeFrames.length) {
+            freeFrames[freeCount++] = frame;
+        }
+    }
+
+    /**
+     * Total number of frames allocated, including the preallocated ones.
+     * Stays constant once the pipeline has reached steady state.
+     */
+    public synchronized long getAllocationCount() {
+        return allocationCount;
+    }
+
+    /**
+     * Number of frames currently available without allocating
+     */
+    public synchronized int getFreeCount() {
+        return freeCount;
+    }
+
+    public int getFrameCapacity() {
+        return frameCapacity;
+    }
+
+    private ByteBuffer allocateFrame() {
+        allocationCount++;
+        return ByteBuffer.allocateDirect(frameCapacity).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Sums the frames of all active speakers into one output frame per playout
+ * tick, so several people talking at once share a single AudioTrack write
+ * instead of being queued one after another. Inputs are accumulated in an
+ * int buffer with an optional fixed-point gain per speaker and saturated
+ * to 16 bits on output. Nothing is allocated after construction.
+ *
+ * <p>Usage per tick: {@link #clear()}, one {@code add} per speaker, then
+ * {@link #mix(short[], int)}.</p>
+ */
+public class AudioMixer {
+    public static final float UNITY_GAIN = 1f;
+    public static final float MAX_GAIN = 4f;
+
+    // Gains are applied as Q12 fixed point
+    private static final int GAIN_SHIFT = 12;
+    private static final int GAIN_ONE = 1 << GAIN_SHIFT;
+
+    private final int[] accumulator;
+    private final int[] gainSsrcs;
+    private final int[] gains;
+    private int gainCount;
+    private int mixedSamples;
+    private int inputCount;
+
+    /**
+     * @param maxSpeakers Maximum number of speakers with a non-unity gain
+     * @param maxFrameSamples Largest frame passed to {@code add}
+     */
+    public AudioMixer(int maxSpeakers, int maxFrameSamples) {
+        this.accumulator = new int[maxFrameSamples];
+        this.gainSsrcs = new int[maxSpeakers];
+        this.gains = new int[maxSpeakers];
+    }
+
+    /**
+     * Set a speaker's gain; unity gain removes the entry
+     * @param ssrc Sender id
+     * @param gain Linear gain from 0 to {@link #MAX_GAIN}
+     * @return False if the gain table is full
+     */
+    public synchronized boolean setGain(int ssrc, float gain) {
+        int fixed = Math.round(Math.max(0f, Math.min(MAX_GAIN, gain)) * GAIN_ONE);
+        int index = indexOf(ssrc);
+        if (fixed == GAIN_ONE) {
+            if (index >= 0) {
+                gainCount--;
+                gainSsrcs[index] = gainSsrcs[gainCount];
+                gains[index] = gains[gainCount];
+            }
+            return true;
+        }
+        if (index < 0) {
+            if (gainCount == gains.length) {
+                return false;
+            }
+            index = gainCount++;
+            gainSsrcs[index] = ssrc;
+        }
+        gains[index] = fixed;
+        return true;
+    }
+
+    /**
+     * Current gain of a speaker
+     */
+    public synchronized float getGain(int ssrc) {
+        int index = indexOf(ssrc);
+        return index >= 0 ? (float) gains[index] / GAIN_ONE : UNITY_GAIN;
+    }
+
+    /**
+     * Start a new output frame
+     */
+    public void clear() {
+        for (int i = 0; i < mixedSamples; i++) {
+            accumulator[i] = 0;
+        }
+        mixedSamples = 0;
+        inputCount = 0;
+    }
+
+    /**
+     * Add a speaker's frame to the current output frame
+     * @param ssrc Sender id, used to look up the gain
+     * @param samples Frame samples
+     * @param offset Index of the first sample
+     * @param count Number of samples, at most the configured maximum
+     */
+    public void add(int ssrc, short[] samples, int offset, int count) {
+        int gain = gainOf(ssrc);
+        int[] sum = accumulator;
+        if (gain == GAIN_ONE) {
+            for (int i = 0; i < count; i++) {
+                sum[i] += samples[offset + i];
+            }
+        } else if (gain != 0) {
+            for (int i = 0; i < count; i++) {
+                sum[i] += (samples[offset + i] * gain) >> GAIN_SHIFT;
+            }
+        }
+        added(count);
+    }
+
+    /**
+     * Number of frames added since {@link #clear()}
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Write the mixed frame, saturating samples that exceed 16 bits
+     * @param output Destination with room for the longest added frame
+     * @param offset Index of the first destination sample
+     * @return Number of samples written, 0 if nothing was added
+     */
+    public int mix(short[] output, int offset) {
+        int[] sum = accumulator;
+        for (int i = 0; i < mixedSamples; i++) {
+            int value = sum[i];
+            if (value > Short.MAX_VALUE) {
+                value = Short.MAX_VALUE;
+            } else if (value < Short.MIN_VALUE) {
+                value = Short.MIN_VALUE;
+            }
+            output[offset + i] = (short) value;
+        }
+        return mixedSamples;
+    }
+
+    private void added(int count) {
+        if (count > mixedSamples) {
+            mixedSamples = count;
+        }
+        inputCount++;
+    }
+
+    private synchronized int gainOf(int ssrc) {
+        int index = indexOf(ssrc);
+        return index >= 0 ? gains[index] : GAIN_ONE;
+    }
+
+    private int indexOf(int ssrc) {
+        for (int i = 0; i < gainCount; i++) {
+            if (gainSsrcs[i] == ssrc) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Cuts a stream of variable-sized reads into frames of exactly one
+ * frame duration. Samples that do not fill a whole frame are carried
+ * over to the next write, so every frame on the wire has the same length
+ * regardless of how the device delivers capture buffers.
+ */
+public class AudioPacketizer {
+    /**
+     * Frame durations a deployment can choose between: shorter frames cut
+     * latency, longer frames cut per-packet header and encryption overhead
+     */
+    public static final int[] SUPPORTED_FRAME_DURATIONS_MS = {10, 20, 40};
+
+    private final int sampleRate;
+    private final int frameDurationMs;
+    private final int frameSamples;
+    private final short[] buffer;
+
+    private int readIndex;
+    private int writeIndex;
+
+    /**
+     * @param sampleRate Sample rate of the written audio
+     * @param frameDurationMs Frame length, one of {@link #SUPPORTED_FRAME_DURATIONS_MS}
+     * @param maxWriteSamples Largest block passed to {@link #write}
+     */
+    public AudioPacketizer(int sampleRate, int frameDurationMs, int maxWriteSamples) {
+        if (!isSupportedFrameDuration(frameDurationMs)) {
+            throw new IllegalArgumentException("Unsupported frame duration " + frameDurationMs + " ms");
+        }
+        if (sampleRate * frameDurationMs % 1000 != 0) {
+            throw new IllegalArgumentException(frameDurationMs + " ms is not a whole number of samples at "
+                    + sampleRate + " Hz");
+        }
+        this.sampleRate = sampleRate;
+        this.frameDurationMs = frameDurationMs;
+        this.frameSamples = sampleRate * frameDurationMs / 1000;
+        // Less than one frame is ever carried over
+        this.buffer = new short[frameSamples - 1 + maxWriteSamples];
+    }
+
+    public static boolean isSupportedFrameDuration(int frameDurationMs) {
+        for (int supported : SUPPORTED_FRAME_DURATIONS_MS) {
+            if (supported == frameDurationMs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getFrameDurationMs() {
+        return frameDurationMs;
+    }
+
+    public int getFrameSamples() {
+        return frameSamples;
+    }
+
+    /**
+     * Number of samples waiting, including any complete frames not yet read
+     */
+    public int getBufferedSamples() {
+        return writeIndex - readIndex;
+    }
+
+    /**
+     * Append samples. All complete frames should be read with
+     * {@link #readFrame} before the next write.
+     * @param samples Source samples
+     * @param offset Index of the first sample
+     * @param count Number of samples, at most the configured maximum
+     */
+    public void write(short[] samples, int offset, int count) {
+        // Move the carried-over remainder to the front
+        int buffered = writeIndex - readIndex;
+        if (readIndex > 0) {
+            System.arraycopy(buffer, readIndex, buffer, 0, buffered);
+            readIndex = 0;
+            writeIndex = buffered;
+        }
+        if (buffered + count > buffer.length) {
+            throw new IllegalStateException("Packetizer overflow: " + buffered + " buffered, " + count + " written");
+        }
+        System.arraycopy(samples, offset, buffer, writeIndex, count);
+        writeIndex += count;
+    }
+
+    /**
+     * Copy the next complete frame out of the packetizer
+     * @param frame Destination with room for {@link #getFrameSamples()} samples
+     * @param offset Index of the first destination sample
+     * @return False if less than a frame is buffered
+     */
+    public boolean readFrame(short[] frame, int offset) {
+        if (writeIndex - readIndex < frameSamples) {
+            return false;
+        }
+        System.arraycopy(buffer, readIndex, frame, offset, frameSamples);
+        readIndex += frameSamples;
+        return true;
+    }
+
+    /**
+     * Drop any buffered samples
+     */
+    public void reset() {
+        readIndex = 0;
+        writeIndex = 0;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receive side of the audio pipeline, the counterpart of {@link AudioCaptureLoop}.
+ * {@link #receive} runs on the network thread: it parses the header in place,
+ * decrypts and decodes the payload into a pooled frame for the jitter buffer,
+ * and recovers the previous frame from a redundant copy if that frame is
+ * still missing. {@link #playoutTick} runs on the playout thread once per
+ * frame interval and mixes every speaker into one output frame, filling gaps
+ * with concealment after a loss or comfort noise during silence.
+ * Nothing is allocated per packet or per tick.
+ */
+public class AudioReceiver {
+    private static final int PRIMARY_LENGTH_SIZE = 2;
+
+    private final SecurityManager securityManager;
+    private final AudioFramePool pool;
+    private final JitterBuffer jitterBuffer;
+    private final AudioMixer mixer;
+    private final ComfortNoiseGenerator comfortNoise;
+    private final PacketLossConcealer concealer;
+    private final RedundancyCodec redundancyCodec;
+    private final VoiceCodec[] decoders;
+    private final int frameSamples;
+    private final int localSsrc;
+
+    // Network thread scratch
+    private final ByteBuffer payload;
+    private final short[] receiveSamples;
+
+    // Playout thread scratch
+    private final int[] ssrcs;
+    private final ByteBuffer[] frames;
+    private final boolean[] lost;
+    private final short[] playoutSamples;
+
+    private long recoveredFrames;
+    private long concealedFrames;
+
+    /**
+     * @param securityManager Decryption provider
+     * @param pool Pool for decoded frames, each holding the largest expected frame
+     * @param jitterBuffer Jitter buffer drawing its frames from the same pool
+     * @param mixer Mixer sized for the largest expected frame
+     * @param comfortNoise Noise for speakers in a silence period
+     * @param concealer Loss concealment, or null to play silence for lost frames
+     * @param sampleRate Sample rate of the decoded audio
+     * @param frameSamples Samples per frame
+     * @param localSsrc Own sender id; packets echoed back by the server are ignored
+     */
+    public AudioReceiver(SecurityManager securityManager, AudioFramePool pool, JitterBuffer jitterBuffer,
+                         AudioMixer mixer, ComfortNoiseGenerator comfortNoise, PacketLossConcealer concealer,
+                         int sampleRate, int frameSamples, int localSsrc) {
+        this.securityManager = securityManager;
+        this.pool = pool;
+        this.jitterBuffer = jitterBuffer;
+        this.mixer = mixer;
+        this.comfortNoise = comfortNoise;
+        this.concealer = concealer;
+        if (concealer != null) {
+            // Free a departed speaker's concealment state with their stream
+            jitterBuffer.setStreamListener(concealer::remove);
+        }
+        this.frameSamples = frameSamples;
+        this.localSsrc = localSsrc;
+        this.decoders = new VoiceCodec[]{
+                VoiceCodecs.create(AudioFrameHeader.CODEC_PCM16, sampleRate),
+                VoiceCodecs.create(AudioFrameHeader.CODEC_IMA_ADPCM, sampleRate)
+        };
+
+        int maxSamples = pool.getFrameCapacity() / 2;
+        this.redundancyCodec = new RedundancyCodec(sampleRate, maxSamples);
+        this.payload = ByteBuffer.allocateDirect(pool.getFrameCapacity() + PRIMARY_LENGTH_SIZE
+                + redundancyCodec.getMaxEncodedSize(maxSamples));
+        this.receiveSamples = new short[maxSamples];
+
+        int maxStreams = jitterBuffer.getMaxStreams();
+        this.ssrcs = new int[maxStreams];
+        this.frames = new ByteBuffer[maxStreams];
+        this.lost = new boolean[maxStreams];
+        this.playoutSamples = new short[maxSamples];
+    }
+
+    /**
+     * Handle one packet from the network
+     * @param packet Header and encrypted payload, from position to limit
+     * @param nowMs Arrival time on a monotonic clock
+     * @return False if the packet was ignored or could not be decrypted
+     */
+    public boolean receive(ByteBuffer packet, long nowMs) {
+        if (packet.remaining() <= AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD) {
+            return false;
+        }
+
+        // Header fields are read in place; only the payload is decrypted
+        int ssrc = AudioFrameHeader.readSsrc(packet);
+        int codecId = AudioFrameHeader.readCodec(packet);
+        if (ssrc == localSsrc || codecId >= decoders.length) {
+            return false;
+        }
+        int sequence = AudioFrameHeader.readSequence(packet);
+        int flags = AudioFrameHeader.readFlags(packet);
+        int headerOffset = packet.position();
+        AudioFrameHeader.skip(packet);
+
+        // Fails if the header was altered, so its fields can be trusted from here on
+        payload.clear();
+        if (securityManager.decryptAudioData(packet, headerOffset, AudioFrameHeader.SIZE, packet, payload) <= 0) {
+            return false;
+        }
+        payload.flip();
+
+        if ((flags & AudioFrameHeader.FLAG_COMFORT_NOISE) != 0) {
+            comfortNoise.update(ssrc, payload.get(0) & 0xFF, nowMs);
+            jitterBuffer.touch(ssrc, nowMs);
+            return true;
+        }
+
+        boolean redundant = (flags & AudioFrameHeader.FLAG_REDUNDANT) != 0;
+        int end = payload.limit();
+        int redundantStart = end;
+        if (redundant) {
+            int primaryLength = (payload.get(0) & 0xFF) << 8 | (payload.get(1) & 0xFF);
+            redundantStart = PRIMARY_LENGTH_SIZE + primaryLength;
+            if (redundantStart > end) {
+                return false;
+            }
+            payload.position(PRIMARY_LENGTH_SIZE);
+            payload.limit(redundantStart);
+        }
+
+        int samples = decoders[codecId].decode(payload, receiveSamples, 0);
+        if (samples == 0) {
+            return false;
+        }
+        boolean talkspurtStart = (flags & AudioFrameHeader.FLAG_MARKER) != 0;
+        jitterBuffer.offer(ssrc, sequence, talkspurtStart, nowMs, toFrame(receiveSamples, samples));
+
+        // Decode the copy of the previous frame only if that frame is still needed
+        int previous = (sequence - 1) & 0xFFFF;
+        if (redundant && jitterBuffer.isMissing(ssrc, previous)) {
+            payload.limit(end);
+            payload.position(redundantStart);
+            if (redundancyCodec.decode(payload, receiveSamples, 0, samples) == samples
+                    && jitterBuffer.offer(ssrc, previous, false, nowMs, toFrame(receiveSamples, samples))) {
+                recoveredFrames++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Produce one frame of mixed output for all speakers
+     * @param nowMs Current time on the arrival clock
+     * @param output Destination with room for the largest frame
+     * @param offset Index of the first destination sample
+     * @return Number of samples written, 0 if nobody is audible
+     */
+    public int playoutTick(long nowMs, short[] output, int offset) {
+        int count = jitterBuffer.drain(nowMs, ssrcs, frames, lost);
+        mixer.clear();
+        for (int i = 0; i < count; i++) {
+            int ssrc = ssrcs[i];
+            ByteBuffer frame = frames[i];
+            if (frame != null) {
+                int samples = frame.remaining() / 2;
+                for (int s = 0; s < samples; s++) {
+                    playoutSamples[s] = frame.getShort(frame.position() + 2 * s);
+                }
+                pool.release(frame);
+                frames[i] = null;
+                if (concealer != null) {
+                    concealer.update(ssrc, playoutSamples, 0, samples);
+                }
+                comfortNoise.stop(ssrc);
+                mixer.add(ssrc, playoutSamples, 0, samples);
+            } else if (comfortNoise.fill(ssrc, nowMs, playoutSamples, 0, frameSamples)) {
+                // Sender is in a silence period
+                mixer.add(ssrc, playoutSamples, 0, frameSamples);
+            } else if (concealer != null && (lost[i] || concealer.isConcealing(ssrc))
+                    && concealer.conceal(ssrc, playoutSamples, 0, frameSamples)) {
+                // Lost frame, or rebuffering right after one
+                concealedFrames++;
+                mixer.add(ssrc, playoutSamples, 0, frameSamples);
+            }
+        }
+        return mixer.mix(output, offset);
+    }
+
+    /**
+     * Frames recovered from redundant copies
+     */
+    public long getRecoveredFrameCount() {
+        return recoveredFrames;
+    }
+
+    /**
+     * Frame slots filled by loss concealment
+     */
+    public long getConcealedFrameCount() {
+        return concealedFrames;
+    }
+
+    private ByteBuffer toFrame(short[] samples, int count) {
+        ByteBuffer frame = pool.acquire();
+        for (int i = 0; i < count; i++) {
+            frame.putShort(samples[i]);
+        }
+        frame.flip();
+        return frame;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Receiver-side background noise for senders that stopped transmitting
+ * during silence. Senders describe their noise floor in a one-byte
+ * comfort-noise payload (level in -dBov as in RFC 3389); this class keeps
+ * the last level per sender and synthesises gently low-passed noise at that
+ * level, so gaps between talkspurts sound like an open line instead of a
+ * dropped call. Levels are kept in preallocated arrays and nothing is
+ * allocated after construction.
+ */
+public class ComfortNoiseGenerator {
+    /** Payload size of a comfort-noise packet */
+    public static final int PAYLOAD_SIZE = 1;
+    /** Quietest representable level, -127 dBov */
+    public static final int MAX_LEVEL = 127;
+
+    private static final double FULL_SCALE = 32768;
+    // One-pole smoothing of the white noise source
+    private static final double SMOOTHING = 0.5;
+    // Gain that restores the RMS lost to the smoothing filter
+    private static final double SMOOTHING_GAIN = Math.sqrt((1 + SMOOTHING) / (1 - SMOOTHING));
+
+    private final int[] ssrcs;
+    private final int[] levels;
+    private final long[] updatedMs;
+    private final long timeoutMs;
+    private int count;
+
+    private int seed = 0x2545F491;
+    private double lowPass;
+
+    /**
+     * @param maxSenders Maximum number of senders tracked at once
+     * @param timeoutMs Time after the last comfort-noise packet at which noise stops
+     */
+    public ComfortNoiseGenerator(int maxSenders, long timeoutMs) {
+        this.ssrcs = new int[maxSenders];
+        this.levels = new int[maxSenders];
+        this.updatedMs = new long[maxSenders];
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Convert an RMS sample value to a comfort-noise level in -dBov
+     */
+    public static int toLevel(double rms) {
+        if (rms < 1) {
+            return MAX_LEVEL;
+        }
+        long level = Math.round(-20 * Math.log10(rms / FULL_SCALE));
+        return (int) Math.max(0, Math.min(MAX_LEVEL, level));
+    }
+
+    /**
+     * Convert a comfort-noise level in -dBov to an RMS sample value
+     */
+    public static double toRms(int level) {
+        return FULL_SCALE * Math.pow(10, -level / 20.0);
+    }
+
+    /**
+     * Record the noise level announced by a sender
+     * @param ssrc Sender id
+     * @param level Level in -dBov
+     * @param nowMs Current time on a monotonic clock
+     */
+    public synchronized void update(int ssrc, int level, long nowMs) {
+        int index = indexOf(ssrc);
+        if (index < 0) {
+            if (count == ssrcs.length) {
+                index = oldestIndex();
+            } else {
+                index = count++;
+            }
+            ssrcs[index] = ssrc;
+        }
+        levels[index] = level;
+        updatedMs[index] = nowMs;
+    }
+
+    /**
+     * Stop generating noise for a sender, e.g. once its speech plays again
+     */
+    public synchronized void stop(int ssrc) {
+        int index = indexOf(ssrc);
+        if (index >= 0) {
+            count--;
+            ssrcs[index] = ssrcs[count];
+            levels[index] = levels[count];
+            updatedMs[index] = updatedMs[count];
+        }
+    }
+
+    /**
+     * Whether a sender is currently in a comfort-noise period
+     */
+    public synchronized boolean isActive(int ssrc, long nowMs) {
+        int index = indexOf(ssrc);
+        return index >= 0 && nowMs - updatedMs[index] <= timeoutMs;
+    }
+
+    /**
+     * Write one frame of noise for a sender
+     * @param ssrc Sender id
+     * @param nowMs Current time on a monotonic clock
+     * @param samples Destination
+     * @param offset Index of the first destination sample
+     * @param count Number of samples to write
+     * @return False, with nothing written, if the sender has no current level
+     */
+    public synchronized boolean fill(int ssrc, long nowMs, short[] samples, int offset, int count) {
+        int index = indexOf(ssrc);
+        if (index < 0 || nowMs - updatedMs[index] > timeoutMs) {
+            return false;
+        }
+        double amplitude = toRms(levels[index]) * SMOOTHING_GAIN * Math.sqrt(3);
+        for (int i = 0; i < count; i++) {
+            // xorshift32, scaled to a uniform value in [-1, 1)
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            double white = seed / 2147483648.0;
+            lowPass = SMOOTHING * lowPass + (1 - SMOOTHING) * white;
+            long value = Math.round(lowPass * amplitude);
+            samples[offset + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return true;
+    }
+
+    private int indexOf(int ssrc) {
+        for (int i = 0; i < count; i++) {
+            if (ssrcs[i] == ssrc) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int oldestIndex() {
+        int oldest = 0;
+        for (int i = 1; i < count; i++) {
+            if (updatedMs[i] < updatedMs[oldest]) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * IMA-ADPCM voice codec: 4 bits per sample, a quarter of 16-bit PCM.
+ * Every frame starts with the predictor state, so frames decode
+ * independently and a lost frame does not corrupt the ones after it.
+ *
+ * Frame layout: predictor (int16, big-endian), step index (1 byte),
+ * flags (1 byte), then two samples per byte, low nibble first.
+ */
+public class ImaAdpcmCodec implements VoiceCodec {
+    private static final int FRAME_HEADER_SIZE = 4;
+    // Set when the last byte carries a single sample
+    private static final int FLAG_ODD_COUNT = 0x01;
+
+    private static final int[] INDEX_TABLE = {
+            -1, -1, -1, -1, 2, 4, 6, 8,
+            -1, -1, -1, -1, 2, 4, 6, 8
+    };
+
+    private static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17,
+            19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118,
+            130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796,
+            876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+            2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358,
+            5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+            15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    private final int sampleRate;
+
+    // Encoder state carried across frames
+    private int encoderPredictor;
+    private int encoderIndex;
+
+    public ImaAdpcmCodec(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public int getCodecId() {
+        return AudioFrameHeader.CODEC_IMA_ADPCM;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getMaxEncodedSize(int samples) {
+        return FRAME_HEADER_SIZE + (samples + 1) / 2;
+    }
+
+    @Override
+    public int encode(short[] pcm, int offset, int count, ByteBuffer destination) {
+        int start = destination.position();
+        int index = start;
+        destination.put(index++, (byte) (encoderPredictor >> 8));
+        destination.put(index++, (byte) encoderPredictor);
+        destination.put(index++, (byte) encoderIndex);
+        destination.put(index++, (byte) ((count & 1) != 0 ? FLAG_ODD_COUNT : 0));
+
+        int predictor = encoderPredictor;
+        int stepIndex = encoderIndex;
+        for (int i = 0; i < count; i += 2) {
+            int packed = 0;
+            for (int half = 0; half < 2 && i + half < count; half++) {
+                int step = STEP_TABLE[stepIndex];
+                int diff = pcm[offset + i + half] - predictor;
+                int nibble = 0;
+                if (diff < 0) {
+                    nibble = 8;
+                    diff = -diff;
+                }
+                int delta = step >> 3;
+                if (diff >= step) {
+                    nibble |= 4;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 2;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 1;
+                    delta += step;
+                }
+                predictor = clampSample((nibble & 8) != 0 ? predictor - delta : predictor + delta);
+                stepIndex = clampIndex(stepIndex + INDEX_TABLE[nibble]);
+                packed |= nibble << (half * 4);
+            }
+            destination.put(index++, (byte) packed);
+        }
+
+        encoderPredictor = predictor;
+        encoderIndex = stepIndex;
+        destination.position(index);
+        return index - start;
+    }
+
+    @Override
+    public int decode(ByteBuffer source, short[] pcm, int offset) {
+        if (source.remaining() < FRAME_HEADER_SIZE) {
+            source.position(source.limit());
+            return 0;
+        }
+        int index = source.position();
+        int predictor = (short) (((source.get(index) & 0xFF) << 8) | (source.get(index + 1) & 0xFF));
+        int stepIndex = clampIndex(source.get(index + 2) & 0xFF);
+        int flags = source.get(index + 3) & 0xFF;
+        index += FRAME_HEADER_SIZE;
+
+        int available = (source.limit() - index) * 2 - ((flags & FLAG_ODD_COUNT) != 0 ? 1 : 0);
+        int count = Math.max(0, Math.min(available, pcm.length - offset));
+        for (int i = 0; i < count; i++) {
+            int packed = source.get(index + (i >> 1));
+            int nibble = (packed >> ((i & 1) * 4)) & 0x0F;
+            int step = STEP_TABLE[stepIndex];
+            int delta = step >> 3;
+            if ((nibble & 4) != 0) {
+                delta += step;
+            }
+            if ((nibble & 2) != 0) {
+                delta += step >> 1;
+            }
+            if ((nibble & 1) != 0) {
+                delta += step >> 2;
+            }
+            predictor = clampSample((nibble & 8) != 0 ? predictor - delta : predictor + delta);
+            stepIndex = clampIndex(stepIndex + INDEX_TABLE[nibble]);
+            pcm[offset + i] = (short) predictor;
+        }
+
+        source.position(source.limit());
+        return count;
+    }
+
+    private static int clampSample(int value) {
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    private static int clampIndex(int value) {
+        return Math.max(0, Math.min(STEP_TABLE.length - 1, value));
+    }
+}
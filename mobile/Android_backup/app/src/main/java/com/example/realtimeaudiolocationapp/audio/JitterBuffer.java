@@ -0,0 +1,435 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Per-sender jitter buffer that reorders decoded frames by sequence number.
+ * Frames are offered from the network thread and drained once per frame interval
+ * by the playout thread. Each stream tracks an inter-arrival jitter estimate
+ * (as in RFC 3550) and derives its target depth from it. Frames arriving after
+ * their playout slot are dropped, and streams buffered well beyond their target
+ * skip frames to bring latency back down.
+ */
+public class JitterBuffer {
+    /**
+     * Told when a sender's stream is removed for being idle, so per-sender
+     * state elsewhere can be freed. Called from {@code drain}, on the playout thread.
+     */
+    public interface StreamListener {
+        void onStreamRemoved(int ssrc);
+    }
+
+    // Ring size per stream; must be a power of two larger than the maximum depth
+    private static final int SLOT_COUNT = 64;
+    private static final int SEQUENCE_MASK = 0xFFFF;
+    // Frames above the target depth tolerated before frames are skipped
+    private static final int DEPTH_SLACK = 2;
+    // Target depth covers this many multiples of the jitter estimate
+    private static final int JITTER_MULTIPLIER = 3;
+
+    private final AudioFramePool pool;
+    private final int frameDurationMs;
+    private final int minDepth;
+    private final int maxDepth;
+    private final long idleTimeoutMs;
+    private final Stream[] streams;
+    private int streamCount;
+    private StreamListener streamListener;
+
+    private long lateFrames;
+    private long lostFrames;
+    private long discardedFrames;
+
+    /**
+     * @param pool Pool that owns the buffered frames; dropped frames are returned to it
+     * @param frameDurationMs Duration of one frame
+     * @param minDepth Minimum number of frames buffered before playout starts
+     * @param maxDepth Maximum target depth
+     * @param maxStreams Maximum number of concurrent senders
+     * @param idleTimeoutMs Time without arrivals after which an empty stream is removed
+     */
+    public JitterBuffer(AudioFramePool pool, int frameDurationMs, int minDepth, int maxDepth,
+                        int maxStreams, long idleTimeoutMs) {
+        if (minDepth < 1 || maxDepth < minDepth || maxDepth + DEPTH_SLACK >= SLOT_COUNT) {
+            throw new IllegalArgumentException("Invalid depth range " + minDepth + ".." + maxDepth);
+        }
+        this.pool = pool;
+        this.frameDurationMs = frameDurationMs;
+        this.minDepth = minDepth;
+        this.maxDepth = maxDepth;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.streams = new Stream[maxStreams];
+        for (int i = 0; i < maxStreams; i++) {
+            streams[i] = new Stream();
+        }
+    }
+
+    /**
+     * @param listener Told about streams removed as idle, or null
+     */
+    public synchronized void setStreamListener(StreamListener listener) {
+        this.streamListener = listener;
+    }
+
+    /**
+     * Add a frame. The buffer takes ownership of the frame either way.
+     * @param ssrc Sender id
+     * @param sequence 16-bit sequence number
+     * @param arrivalMs Arrival time in milliseconds on a monotonic clock
+     * @param frame Decoded frame from the pool
+     * @return False if the frame was dropped
+     */
+    public boolean offer(int ssrc, int sequence, long arrivalMs, ByteBuffer frame) {
+        return offer(ssrc, sequence, false, arrivalMs, frame);
+    }
+
+    /**
+     * Add a frame. The buffer takes ownership of the frame either way.
+     * @param ssrc Sender id
+     * @param sequence 16-bit sequence number
+     * @param talkspurtStart True if the sender paused before this frame, so the
+     *                       gap since the previous frame is not counted as jitter
+     * @param arrivalMs Arrival time in milliseconds on a monotonic clock
+     * @param frame Decoded frame from the pool
+     * @return False if the frame was dropped
+     */
+    public synchronized boolean offer(int ssrc, int sequence, boolean talkspurtStart, long arrivalMs,
+                                      ByteBuffer frame) {
+        Stream stream = findStream(ssrc);
+        if (stream == null) {
+            if (streamCount == streams.length) {
+                pool.release(frame);
+                return false;
+            }
+            stream = streams[streamCount++];
+            stream.reset(ssrc);
+        }
+        return stream.offer(sequence & SEQUENCE_MASK, talkspurtStart, arrivalMs, frame);
+    }
+
+    /**
+     * Record that a sender is still present although it sent no audio, e.g. a
+     * comfort-noise update during silence, so its stream is not removed as idle
+     * @param ssrc Sender id
+     * @param arrivalMs Arrival time in milliseconds on a monotonic clock
+     */
+    public synchronized void touch(int ssrc, long arrivalMs) {
+        Stream stream = findStream(ssrc);
+        if (stream != null) {
+            stream.lastArrivalMs = arrivalMs;
+        }
+    }
+
+    /**
+     * Take the next frame of every stream for one playout tick. Entries are null
+     * while a stream is buffering or when its frame was lost. Returned frames
+     * belong to the caller, who releases them to the pool.
+     * @param nowMs Current time on the arrival clock
+     * @param ssrcs Receives the sender id of each stream
+     * @param frames Receives the frame of each stream
+     * @return Number of streams written
+     */
+    public int drain(long nowMs, int[] ssrcs, ByteBuffer[] frames) {
+        return drain(nowMs, ssrcs, frames, null);
+    }
+
+    /**
+     * Take the next frame of every stream for one playout tick, flagging
+     * slots whose frame is missing while the stream is playing, so the
+     * caller can conceal them
+     * @param nowMs Current time on the arrival clock
+     * @param ssrcs Receives the sender id of each stream
+     * @param frames Receives the frame of each stream
+     * @param lost Receives true where a playing stream had no frame, or null
+     * @return Number of streams written
+     */
+    public synchronized int drain(long nowMs, int[] ssrcs, ByteBuffer[] frames, boolean[] lost) {
+        removeIdleStreams(nowMs);
+        int count = Math.min(streamCount, Math.min(ssrcs.length, frames.length));
+        for (int i = 0; i < count; i++) {
+            Stream stream = streams[i];
+            ssrcs[i] = stream.ssrc;
+            frames[i] = stream.poll();
+            if (lost != null) {
+                lost[i] = stream.lastPollLost;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether a frame would still be played if it arrived now, i.e. its slot
+     * is empty and has not been played yet. Used to decide if a redundant
+     * copy is worth decoding.
+     * @param ssrc Sender id
+     * @param sequence 16-bit sequence number
+     */
+    public synchronized boolean isMissing(int ssrc, int sequence) {
+        Stream stream = findStream(ssrc);
+        if (stream == null || !stream.started) {
+            return false;
+        }
+        sequence &= SEQUENCE_MASK;
+        int offset = delta(sequence, stream.nextSequence);
+        if (offset < 0 || offset >= SLOT_COUNT) {
+            return false;
+        }
+        int slot = sequence & (SLOT_COUNT - 1);
+        return stream.slots[slot] == null || stream.slotSequences[slot] != sequence;
+    }
+
+    /**
+     * Largest number of streams returned by a drain
+     */
+    public int getMaxStreams() {
+        return streams.length;
+    }
+
+    /**
+     * Drop all streams and return their frames to the pool
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < streamCount; i++) {
+            streams[i].releaseAll();
+        }
+        streamCount = 0;
+    }
+
+    /**
+     * Current target depth of a sender, or 0 if unknown
+     */
+    public synchronized int getTargetDepth(int ssrc) {
+        Stream stream = findStream(ssrc);
+        return stream != null ? stream.targetDepth : 0;
+    }
+
+    /**
+     * Number of frames currently buffered for a sender
+     */
+    public synchronized int getBufferedFrames(int ssrc) {
+        Stream stream = findStream(ssrc);
+        return stream != null ? stream.count : 0;
+    }
+
+    public synchronized int getStreamCount() {
+        return streamCount;
+    }
+
+    /**
+     * Frames that arrived after their playout slot had passed
+     */
+    public synchronized long getLateFrameCount() {
+        return lateFrames;
+    }
+
+    /**
+     * Playout slots for which no frame had arrived
+     */
+    public synchronized long getLostFrameCount() {
+        return lostFrames;
+    }
+
+    /**
+     * Frames dropped as duplicates, on overflow or to reduce latency
+     */
+    public synchronized long getDiscardedFrameCount() {
+        return discardedFrames;
+    }
+
+    private Stream findStream(int ssrc) {
+        for (int i = 0; i < streamCount; i++) {
+            if (streams[i].ssrc == ssrc) {
+                return streams[i];
+            }
+        }
+        return null;
+    }
+
+    private void removeIdleStreams(long nowMs) {
+        for (int i = streamCount - 1; i >= 0; i--) {
+            Stream stream = streams[i];
+            if (stream.count == 0 && nowMs - stream.lastArrivalMs > idleTimeoutMs) {
+                // Swap the idle stream to the end so its state can be reused
+                streams[i] = streams[streamCount - 1];
+                streams[streamCount - 1] = stream;
+                streamCount--;
+                if (streamListener != null) {
+                    streamListener.onStreamRemoved(stream.ssrc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Signed distance from b to a in 16-bit sequence space
+     */
+    private static int delta(int a, int b) {
+        return (short) (a - b);
+    }
+
+    private final class Stream {
+        final ByteBuffer[] slots = new ByteBuffer[SLOT_COUNT];
+        final int[] slotSequences = new int[SLOT_COUNT];
+        int ssrc;
+        int count;
+        int targetDepth;
+        int nextSequence;
+        int highestSequence;
+        boolean started;
+        boolean playing;
+        boolean playedAny;
+        boolean lastPollLost;
+
+        long lastArrivalMs;
+        long referenceArrivalMs;
+        int referenceSequence;
+        double jitterMs;
+
+        void reset(int newSsrc) {
+            releaseAll();
+            ssrc = newSsrc;
+            targetDepth = minDepth;
+            started = false;
+            playing = false;
+            playedAny = false;
+            jitterMs = 0;
+        }
+
+        boolean offer(int sequence, boolean talkspurtStart, long arrivalMs, ByteBuffer frame) {
+            if (!started) {
+                started = true;
+                resync(sequence, arrivalMs);
+            } else {
+                int offset = delta(sequence, nextSequence);
+                if (offset >= SLOT_COUNT || offset <= -SLOT_COUNT) {
+                    // Sender restarted or jumped too far either way: resynchronise on this frame
+                    releaseAll();
+                    resync(sequence, arrivalMs);
+                } else if (talkspurtStart && delta(sequence, referenceSequence) > 0) {
+                    // Measure jitter from this frame on rather than across the silence
+                    referenceSequence = sequence;
+                    referenceArrivalMs = arrivalMs;
+                } else {
+                    updateJitter(sequence, arrivalMs);
+                }
+            }
+
+            int offset = delta(sequence, nextSequence);
+            if (offset < 0) {
+                if (playedAny || delta(highestSequence, sequence) >= SLOT_COUNT) {
+                    lateFrames++;
+                    pool.release(frame);
+                    return false;
+                }
+                // Reordered before playout started: extend the window backwards
+                nextSequence = sequence;
+            }
+
+            int slot = sequence & (SLOT_COUNT - 1);
+            if (slots[slot] != null) {
+                discardedFrames++;
+                pool.release(frame);
+                return false;
+            }
+            slots[slot] = frame;
+            slotSequences[slot] = sequence;
+            count++;
+            if (delta(sequence, highestSequence) > 0) {
+                highestSequence = sequence;
+            }
+            // Only kept frames keep the stream alive, so a sender whose frames are all dropped idles out
+            lastArrivalMs = arrivalMs;
+            return true;
+        }
+
+        private void resync(int sequence, long arrivalMs) {
+            nextSequence = sequence;
+            highestSequence = sequence;
+            referenceSequence = sequence;
+            referenceArrivalMs = arrivalMs;
+            playing = false;
+            playedAny = false;
+        }
+
+        ByteBuffer poll() {
+            lastPollLost = false;
+            if (!playing) {
+                if (count == 0 || count < targetDepth) {
+                    return null;
+                }
+                playing = true;
+                skipToFirstBuffered();
+            }
+            if (count == 0) {
+                // Underrun: rebuild the cushion before playing again
+                playing = false;
+                lostFrames++;
+                lastPollLost = true;
+                return null;
+            }
+            while (count > targetDepth + DEPTH_SLACK) {
+                ByteBuffer skipped = take(nextSequence);
+                if (skipped != null) {
+                    pool.release(skipped);
+                    discardedFrames++;
+                }
+                nextSequence = (nextSequence + 1) & SEQUENCE_MASK;
+            }
+            ByteBuffer frame = take(nextSequence);
+            nextSequence = (nextSequence + 1) & SEQUENCE_MASK;
+            playedAny = true;
+            if (frame == null) {
+                lostFrames++;
+                lastPollLost = true;
+            }
+            return frame;
+        }
+
+        void releaseAll() {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                if (slots[i] != null) {
+                    pool.release(slots[i]);
+                    slots[i] = null;
+                }
+            }
+            count = 0;
+        }
+
+        private ByteBuffer take(int sequence) {
+            int slot = sequence & (SLOT_COUNT - 1);
+            ByteBuffer frame = slots[slot];
+            if (frame == null || slotSequences[slot] != sequence) {
+                return null;
+            }
+            slots[slot] = null;
+            count--;
+            return frame;
+        }
+
+        private void skipToFirstBuffered() {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                int sequence = (nextSequence + i) & SEQUENCE_MASK;
+                int slot = sequence & (SLOT_COUNT - 1);
+                if (slots[slot] != null && slotSequences[slot] == sequence) {
+                    nextSequence = sequence;
+                    return;
+                }
+            }
+        }
+
+        private void updateJitter(int sequence, long arrivalMs) {
+            int sequenceDelta = delta(sequence, referenceSequence);
+            if (sequenceDelta <= 0) {
+                return;
+            }
+            // Difference in relative transit time between this frame and the previous newest one
+            long transitDelta = (arrivalMs - referenceArrivalMs) - (long) sequenceDelta * frameDurationMs;
+            jitterMs += (Math.abs(transitDelta) - jitterMs) / 16.0;
+            referenceSequence = sequence;
+            referenceArrivalMs = arrivalMs;
+
+            int depth = (int) Math.ceil(JITTER_MULTIPLIER * jitterMs / frameDurationMs) + 1;
+            targetDepth = Math.max(minDepth, Math.min(maxDepth, depth));
+        }
+    }
+}
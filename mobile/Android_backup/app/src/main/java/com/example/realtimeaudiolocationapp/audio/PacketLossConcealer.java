@@ -0,0 +1,234 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Replacement audio for frames that never arrived. Each speaker's last few
+ * pitch periods are kept; when a frame is missing the pitch period is
+ * estimated by normalised autocorrelation and the last period is repeated,
+ * held at full level for 10 ms and then faded out so that a long gap ends in
+ * silence rather than a buzz. When real audio resumes it is cross-faded in
+ * from the synthetic signal to avoid a click. Speaker state is preallocated
+ * and nothing is allocated after construction.
+ */
+public class PacketLossConcealer {
+    // Pitch search range
+    private static final int MIN_PITCH_HZ = 70;
+    private static final int MAX_PITCH_HZ = 400;
+    // Concealment at full level, then the fade to silence, in milliseconds
+    private static final int HOLD_MS = 10;
+    private static final int CONCEAL_MS = 60;
+    // Cross-fade from synthetic to real audio
+    private static final int OVERLAP_MS = 4;
+
+    private final int minPeriod;
+    private final int maxPeriod;
+    private final int holdSamples;
+    private final int concealSamples;
+    private final int overlapSamples;
+    private final Speaker[] speakers;
+    private final short[] overlap;
+    private int speakerCount;
+    private long updateCounter;
+
+    /**
+     * @param sampleRate Sample rate of the decoded audio
+     * @param maxSpeakers Maximum number of speakers tracked at once
+     */
+    public PacketLossConcealer(int sampleRate, int maxSpeakers) {
+        this.minPeriod = sampleRate / MAX_PITCH_HZ;
+        this.maxPeriod = sampleRate / MIN_PITCH_HZ;
+        this.holdSamples = sampleRate * HOLD_MS / 1000;
+        this.concealSamples = sampleRate * CONCEAL_MS / 1000;
+        this.overlapSamples = sampleRate * OVERLAP_MS / 1000;
+        this.overlap = new short[overlapSamples];
+        this.speakers = new Speaker[maxSpeakers];
+        for (int i = 0; i < maxSpeakers; i++) {
+            speakers[i] = new Speaker(3 * maxPeriod);
+        }
+    }
+
+    /**
+     * Record a received frame before it is played. If the previous frame was
+     * concealed, the start of this frame is cross-faded in place.
+     * @param ssrc Sender id
+     * @param samples Decoded frame
+     * @param offset Index of the first sample
+     * @param count Number of samples
+     */
+    public void update(int ssrc, short[] samples, int offset, int count) {
+        Speaker speaker = findSpeaker(ssrc);
+        if (speaker == null) {
+            speaker = allocateSpeaker(ssrc);
+        }
+        speaker.lastUpdate = ++updateCounter;
+
+        if (speaker.concealed > 0) {
+            int length = Math.min(overlapSamples, count);
+            if (synthesize(speaker, overlap, 0, length)) {
+                for (int i = 0; i < length; i++) {
+                    double weight = (i + 1.0) / (length + 1);
+                    samples[offset + i] = (short) Math.round(overlap[i] * (1 - weight) + samples[offset + i] * weight);
+                }
+            }
+            speaker.concealed = 0;
+        }
+        speaker.append(samples, offset, count);
+    }
+
+    /**
+     * Synthesise a replacement for a missing frame
+     * @param ssrc Sender id
+     * @param output Destination
+     * @param offset Index of the first destination sample
+     * @param count Number of samples to write
+     * @return False, with nothing written, if there is too little history or
+     *         the gap has outlasted the concealment and should be silent
+     */
+    public boolean conceal(int ssrc, short[] output, int offset, int count) {
+        Speaker speaker = findSpeaker(ssrc);
+        if (speaker == null || speaker.filled < speaker.history.length) {
+            return false;
+        }
+        if (speaker.concealed == 0) {
+            speaker.period = estimatePeriod(speaker.history);
+            speaker.phase = 0;
+        }
+        return synthesize(speaker, output, offset, count);
+    }
+
+    /**
+     * Whether a speaker is inside a gap that is still being concealed
+     */
+    public boolean isConcealing(int ssrc) {
+        Speaker speaker = findSpeaker(ssrc);
+        return speaker != null && speaker.concealed > 0 && speaker.concealed < concealSamples;
+    }
+
+    /**
+     * Forget a speaker, e.g. when their stream goes idle
+     */
+    public void remove(int ssrc) {
+        for (int i = 0; i < speakerCount; i++) {
+            if (speakers[i].ssrc == ssrc) {
+                Speaker removed = speakers[i];
+                speakers[i] = speakers[--speakerCount];
+                speakers[speakerCount] = removed;
+                return;
+            }
+        }
+    }
+
+    private boolean synthesize(Speaker speaker, short[] output, int offset, int count) {
+        if (speaker.concealed >= concealSamples) {
+            return false;
+        }
+        short[] history = speaker.history;
+        int start = history.length - speaker.period;
+        for (int i = 0; i < count; i++) {
+            int position = speaker.concealed + i;
+            double gain;
+            if (position < holdSamples) {
+                gain = 1;
+            } else if (position < concealSamples) {
+                gain = 1 - (double) (position - holdSamples) / (concealSamples - holdSamples);
+            } else {
+                gain = 0;
+            }
+            output[offset + i] = (short) Math.round(history[start + speaker.phase] * gain);
+            speaker.phase = (speaker.phase + 1) % speaker.period;
+        }
+        speaker.concealed += count;
+        return true;
+    }
+
+    /**
+     * Lag with the highest normalised autocorrelation over the last pitch period
+     */
+    private int estimatePeriod(short[] history) {
+        int end = history.length;
+        int window = maxPeriod;
+        int bestLag = maxPeriod;
+        double bestScore = -1;
+        double energy = 0;
+        for (int i = end - window; i < end; i++) {
+            energy += (double) history[i] * history[i];
+        }
+        for (int lag = minPeriod; lag <= maxPeriod; lag++) {
+            double correlation = 0;
+            double lagEnergy = 0;
+            for (int i = end - window; i < end; i++) {
+                int lagged = history[i - lag];
+                correlation += (double) history[i] * lagged;
+                lagEnergy += (double) lagged * lagged;
+            }
+            if (lagEnergy == 0 || energy == 0) {
+                continue;
+            }
+            double score = correlation / Math.sqrt(energy * lagEnergy);
+            if (score > bestScore) {
+                bestScore = score;
+                bestLag = lag;
+            }
+        }
+        return bestLag;
+    }
+
+    private Speaker findSpeaker(int ssrc) {
+        for (int i = 0; i < speakerCount; i++) {
+            if (speakers[i].ssrc == ssrc) {
+                return speakers[i];
+            }
+        }
+        return null;
+    }
+
+    private Speaker allocateSpeaker(int ssrc) {
+        Speaker speaker;
+        if (speakerCount < speakers.length) {
+            speaker = speakers[speakerCount++];
+        } else {
+            // Reuse the speaker that has gone longest without audio
+            speaker = speakers[0];
+            for (int i = 1; i < speakerCount; i++) {
+                if (speakers[i].lastUpdate < speaker.lastUpdate) {
+                    speaker = speakers[i];
+                }
+            }
+        }
+        speaker.reset(ssrc);
+        return speaker;
+    }
+
+    private static final class Speaker {
+        final short[] history;
+        int ssrc;
+        int filled;
+        int period;
+        int phase;
+        int concealed;
+        long lastUpdate;
+
+        Speaker(int historyLength) {
+            history = new short[historyLength];
+        }
+
+        void reset(int newSsrc) {
+            ssrc = newSsrc;
+            filled = 0;
+            concealed = 0;
+        }
+
+        /**
+         * Shift the history left and append the newest samples at the end
+         */
+        void append(short[] samples, int offset, int count) {
+            int length = history.length;
+            if (count >= length) {
+                System.arraycopy(samples, offset + count - length, history, 0, length);
+            } else {
+                System.arraycopy(history, count, history, 0, length - count);
+                System.arraycopy(samples, offset, history, length - count, count);
+            }
+            filled = Math.min(length, filled + count);
+        }
+    }
+}
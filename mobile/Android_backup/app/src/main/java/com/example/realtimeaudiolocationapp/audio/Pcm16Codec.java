@@ -0,0 +1,54 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Uncompressed 16-bit PCM, little-endian on the wire.
+ * Kept as the reference codec and for links with spare bandwidth.
+ */
+public class Pcm16Codec implements VoiceCodec {
+    private final int sampleRate;
+
+    public Pcm16Codec(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public int getCodecId() {
+        return AudioFrameHeader.CODEC_PCM16;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getMaxEncodedSize(int samples) {
+        return samples * 2;
+    }
+
+    @Override
+    public int encode(short[] pcm, int offset, int count, ByteBuffer destination) {
+        int index = destination.position();
+        for (int i = 0; i < count; i++) {
+            short sample = pcm[offset + i];
+            destination.put(index++, (byte) sample);
+            destination.put(index++, (byte) (sample >> 8));
+        }
+        destination.position(index);
+        return count * 2;
+    }
+
+    @Override
+    public int decode(ByteBuffer source, short[] pcm, int offset) {
+        int count = Math.min(source.remaining() / 2, pcm.length - offset);
+        int index = source.position();
+        for (int i = 0; i < count; i++) {
+            pcm[offset + i] = (short) ((source.get(index) & 0xFF) | (source.get(index + 1) << 8));
+            index += 2;
+        }
+        source.position(source.limit());
+        return count;
+    }
+}
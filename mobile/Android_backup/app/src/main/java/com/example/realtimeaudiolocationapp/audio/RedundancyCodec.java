@@ -0,0 +1,79 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Low-bitrate copy of a frame carried as redundancy in the next packet.
+ * The frame is halved in sample rate with a short smoothing filter and
+ * IMA-ADPCM encoded, about an eighth of 16-bit PCM. On decode it is
+ * interpolated back to the original length. The copy only stands in for a
+ * frame that was lost, so narrower bandwidth is an acceptable trade.
+ */
+public class RedundancyCodec {
+    private final ImaAdpcmCodec adpcm;
+    private final short[] halfRate;
+
+    /**
+     * @param sampleRate Sample rate of the frames
+     * @param maxFrameSamples Largest frame passed to {@link #encode}
+     */
+    public RedundancyCodec(int sampleRate, int maxFrameSamples) {
+        this.adpcm = new ImaAdpcmCodec(sampleRate / 2);
+        this.halfRate = new short[(maxFrameSamples + 1) / 2];
+    }
+
+    /**
+     * Largest encoded size of a frame
+     */
+    public int getMaxEncodedSize(int samples) {
+        return adpcm.getMaxEncodedSize((samples + 1) / 2);
+    }
+
+    /**
+     * Encode a frame at half rate
+     * @param pcm Source samples
+     * @param offset Index of the first sample
+     * @param count Number of samples
+     * @param destination Receives the encoded copy at its position
+     * @return Number of bytes written
+     */
+    public int encode(short[] pcm, int offset, int count, ByteBuffer destination) {
+        int half = (count + 1) / 2;
+        int last = offset + count - 1;
+        for (int k = 0; k < half; k++) {
+            // [1 2 1] / 4 smoothing around every second sample
+            int center = offset + 2 * k;
+            int before = pcm[Math.max(offset, center - 1)];
+            int after = pcm[Math.min(last, center + 1)];
+            halfRate[k] = (short) ((before + 2 * pcm[center] + after) >> 2);
+        }
+        return adpcm.encode(halfRate, 0, half, destination);
+    }
+
+    /**
+     * Decode a copy back to full rate
+     * @param source Encoded copy from its position to its limit
+     * @param pcm Destination
+     * @param offset Index of the first destination sample
+     * @param count Length of the original frame
+     * @return Number of samples written, 0 if the copy is empty or damaged
+     */
+    public int decode(ByteBuffer source, short[] pcm, int offset, int count) {
+        if (source.remaining() == 0 || (count + 1) / 2 > halfRate.length) {
+            return 0;
+        }
+        int half = adpcm.decode(source, halfRate, 0);
+        if (half != (count + 1) / 2) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int k = i >> 1;
+            if ((i & 1) == 0 || k + 1 >= half) {
+                pcm[offset + i] = halfRate[k];
+            } else {
+                pcm[offset + i] = (short) ((halfRate[k] + halfRate[k + 1]) >> 1);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Streaming sample-rate converter for mono 16-bit PCM.
+ * Downsampling runs the input through a 4th-order Butterworth low-pass
+ * (two cascaded biquads) before linear interpolation, which is enough
+ * to keep aliasing out of the voice band. Filter state and the fractional
+ * read position carry over between calls, so arbitrary block sizes join
+ * up seamlessly. No allocation after construction.
+ */
+public class Resampler {
+    // Low-pass cutoff as a fraction of the output Nyquist frequency
+    private static final double CUTOFF_RATIO = 0.9;
+    // Q factors of the two sections of a 4th-order Butterworth filter
+    private static final double[] SECTION_Q = {0.5412, 1.3066};
+
+    private final int inputRate;
+    private final int outputRate;
+    private final double step;
+    private final boolean filtering;
+    private final float[] filtered;
+
+    // Biquad coefficients and state per section
+    private final double[] b0 = new double[2];
+    private final double[] b1 = new double[2];
+    private final double[] b2 = new double[2];
+    private final double[] a1 = new double[2];
+    private final double[] a2 = new double[2];
+    private final double[] z1 = new double[2];
+    private final double[] z2 = new double[2];
+
+    // Last input sample of the previous block and the read position relative to it
+    private float previous;
+    private double position;
+
+    /**
+     * @param inputRate Sample rate of the input
+     * @param outputRate Sample rate of the output
+     * @param maxInputSamples Largest block passed to {@link #process}
+     */
+    public Resampler(int inputRate, int outputRate, int maxInputSamples) {
+        this.inputRate = inputRate;
+        this.outputRate = outputRate;
+        this.step = (double) inputRate / outputRate;
+        this.filtering = outputRate < inputRate;
+        this.filtered = new float[maxInputSamples];
+
+        if (filtering) {
+            double w0 = 2 * Math.PI * (CUTOFF_RATIO * outputRate / 2) / inputRate;
+            for (int s = 0; s < 2; s++) {
+                double alpha = Math.sin(w0) / (2 * SECTION_Q[s]);
+                double cos = Math.cos(w0);
+                double a0 = 1 + alpha;
+                b0[s] = (1 - cos) / 2 / a0;
+                b1[s] = (1 - cos) / a0;
+                b2[s] = (1 - cos) / 2 / a0;
+                a1[s] = -2 * cos / a0;
+                a2[s] = (1 - alpha) / a0;
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Upper bound of the output size for a block of input samples
+     */
+    public int getMaxOutputSamples(int inputSamples) {
+        return (int) Math.ceil(inputSamples / step) + 1;
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    /**
+     * Convert a block of samples
+     * @param input Source samples
+     * @param inputOffset Index of the first source sample
+     * @param inputCount Number of source samples, at most the configured maximum
+     * @param output Destination with room for {@link #getMaxOutputSamples(int)} samples
+     * @param outputOffset Index of the first destination sample
+     * @return Number of samples written
+     */
+    public int process(short[] input, int inputOffset, int inputCount, short[] output, int outputOffset) {
+        if (inputCount <= 0) {
+            return 0;
+        }
+        if (inputRate == outputRate) {
+            System.arraycopy(input, inputOffset, output, outputOffset, inputCount);
+            return inputCount;
+        }
+
+        float[] x = filtered;
+        for (int i = 0; i < inputCount; i++) {
+            double sample = input[inputOffset + i];
+            if (filtering) {
+                for (int s = 0; s < 2; s++) {
+                    // Transposed direct form II
+                    double out = b0[s] * sample + z1[s];
+                    z1[s] = b1[s] * sample - a1[s] * out + z2[s];
+                    z2[s] = b2[s] * sample - a2[s] * out;
+                    sample = out;
+                }
+            }
+            x[i] = (float) sample;
+        }
+
+        // Position -1 refers to the last sample of the previous block
+        int written = 0;
+        double p = position;
+        int last = inputCount - 1;
+        while (p <= last) {
+            int i = (int) Math.floor(p);
+            double fraction = p - i;
+            float a = i < 0 ? previous : x[i];
+            float b = i < last ? x[i + 1] : a;
+            output[outputOffset + written++] = clamp(a + fraction * (b - a));
+            p += step;
+        }
+        position = p - inputCount;
+        previous = x[last];
+        return written;
+    }
+
+    /**
+     * Clear filter state, e.g. when a new stream starts
+     */
+    public void reset() {
+        for (int s = 0; s < 2; s++) {
+            z1[s] = 0;
+            z2[s] = 0;
+        }
+        previous = 0;
+        position = 0;
+    }
+
+    private static short clamp(double value) {
+        long rounded = Math.round(value);
+        if (rounded > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (rounded < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) rounded;
+    }
+}
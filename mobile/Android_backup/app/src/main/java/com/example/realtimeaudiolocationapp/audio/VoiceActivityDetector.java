@@ -0,0 +1,119 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Frame classifier for discontinuous transmission. Each frame's energy is
+ * compared against a background noise floor, taken as the minimum of the
+ * smoothed frame energy over the last second and a half (corrected for the
+ * minimum's bias below the mean), so the floor follows road and engine
+ * noise without being pulled up by speech. Frames well above the
+ * floor are speech; frames moderately above it count as speech only when
+ * their zero-crossing rate is low, which separates voiced sounds from
+ * broadband noise bursts. A hangover keeps the detector in speech for a
+ * few frames after the last speech frame so word endings are not clipped.
+ */
+public class VoiceActivityDetector {
+    // Noise floor window and hangover in milliseconds
+    private static final int NOISE_WINDOW_MS = 1500;
+    private static final int HANGOVER_MS = 200;
+    // Smoothing of frame energies before the minimum is taken
+    private static final double ENERGY_SMOOTHING = 0.3;
+    // Ratio of the mean noise energy to the minimum of the smoothed energy
+    private static final double MINIMUM_BIAS = 2.0;
+    // Energy ratios over the noise floor (about 9.5 dB and 6 dB)
+    private static final double SPEECH_RATIO = 9.0;
+    private static final double VOICED_RATIO = 4.0;
+    // Zero crossings per sample below which a frame looks voiced
+    private static final double VOICED_MAX_ZCR = 0.25;
+    // Frames quieter than this RMS are never speech, whatever the floor
+    private static final double MIN_SPEECH_RMS = 60;
+
+    private final double[] energies;
+    private final int hangoverFrames;
+    private int energyIndex;
+    private int energyCount;
+    private int hangover;
+    private double smoothedEnergy;
+    private double noiseEnergy;
+
+    /**
+     * @param frameDurationMs Duration of the frames passed to {@link #isSpeech}
+     */
+    public VoiceActivityDetector(int frameDurationMs) {
+        this.energies = new double[Math.max(1, NOISE_WINDOW_MS / frameDurationMs)];
+        this.hangoverFrames = HANGOVER_MS / frameDurationMs;
+        reset();
+    }
+
+    /**
+     * Classify one frame and update the noise floor
+     * @param samples Frame samples
+     * @param offset Index of the first sample
+     * @param count Number of samples
+     * @return True if the frame is speech or within the hangover after speech
+     */
+    public boolean isSpeech(short[] samples, int offset, int count) {
+        if (count <= 0) {
+            return false;
+        }
+        double energy = 0;
+        int crossings = 0;
+        int previous = samples[offset];
+        for (int i = offset; i < offset + count; i++) {
+            int sample = samples[i];
+            energy += (double) sample * sample;
+            if ((sample ^ previous) < 0) {
+                crossings++;
+            }
+            previous = sample;
+        }
+        energy /= count;
+        double zcr = (double) crossings / count;
+
+        updateNoiseFloor(energy);
+
+        double floor = Math.max(noiseEnergy, 1);
+        boolean speech = energy >= MIN_SPEECH_RMS * MIN_SPEECH_RMS
+                && (energy > floor * SPEECH_RATIO || (energy > floor * VOICED_RATIO && zcr < VOICED_MAX_ZCR));
+        if (speech) {
+            hangover = hangoverFrames;
+            return true;
+        }
+        if (hangover > 0) {
+            hangover--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Current background noise estimate as an RMS sample value
+     */
+    public double getNoiseRms() {
+        return Math.sqrt(noiseEnergy);
+    }
+
+    /**
+     * Forget the noise floor and hangover, e.g. when capture restarts
+     */
+    public void reset() {
+        energyIndex = 0;
+        energyCount = 0;
+        hangover = 0;
+        smoothedEnergy = 0;
+        noiseEnergy = 0;
+    }
+
+    private void updateNoiseFloor(double energy) {
+        smoothedEnergy = energyCount == 0 ? energy : smoothedEnergy + ENERGY_SMOOTHING * (energy - smoothedEnergy);
+        energies[energyIndex] = smoothedEnergy;
+        energyIndex = (energyIndex + 1) % energies.length;
+        if (energyCount < energies.length) {
+            energyCount++;
+        }
+        double minimum = Double.MAX_VALUE;
+        for (int i = 0; i < energyCount; i++) {
+            minimum = Math.min(minimum, energies[i]);
+        }
+        noiseEnergy = minimum * MINIMUM_BIAS;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec stage between the capture/playback PCM and the encrypted payload.
+ * Instances may keep encoder state across frames and are not thread-safe;
+ * use one instance per capture or receive thread.
+ */
+public interface VoiceCodec {
+    /**
+     * Codec id written into {@link AudioFrameHeader}
+     */
+    int getCodecId();
+
+    /**
+     * Sample rate of the PCM this codec encodes and decodes
+     */
+    int getSampleRate();
+
+    /**
+     * Upper bound of the encoded size of a frame
+     * @param samples Number of samples in the frame
+     */
+    int getMaxEncodedSize(int samples);
+
+    /**
+     * Encode a frame into the destination at its position
+     * @param pcm Source samples
+     * @param offset Index of the first sample
+     * @param count Number of samples
+     * @param destination Buffer with at least {@link #getMaxEncodedSize(int)} bytes remaining
+     * @return Number of bytes written
+     */
+    int encode(short[] pcm, int offset, int count, ByteBuffer destination);
+
+    /**
+     * Decode the frame between the source's position and limit
+     * @param source Encoded frame; consumed by this call
+     * @param pcm Destination samples
+     * @param offset Index of the first destination sample
+     * @return Number of samples written
+     */
+    int decode(ByteBuffer source, short[] pcm, int offset);
+}
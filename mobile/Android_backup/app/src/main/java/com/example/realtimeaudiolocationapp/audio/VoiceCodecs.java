@@ -0,0 +1,26 @@
+package com.example.realtimeaudiolocationapp.audio;
+
+/**
+ * Factory for the codecs known to this build
+ */
+public final class VoiceCodecs {
+    private VoiceCodecs() {
+    }
+
+    /**
+     * Create a codec instance
+     * @param codecId Codec id from {@link AudioFrameHeader}
+     * @param sampleRate Sample rate of the PCM side
+     * @return A new codec, or null if the id is unknown
+     */
+    public static VoiceCodec create(int codecId, int sampleRate) {
+        switch (codecId) {
+            case AudioFrameHeader.CODEC_PCM16:
+                return new Pcm16Codec(sampleRate);
+            case AudioFrameHeader.CODEC_IMA_ADPCM:
+                return new ImaAdpcmCodec(sampleRate);
+            default:
+                return null;
+        }
+    }
+}
@@ -6,7 +6,10 @@ import android.content.Intent;
 import android.content.ServiceConnection;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -22,6 +25,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.realtimeaudiolocationapp.R;
 import com.example.realtimeaudiolocationapp.adapters.GroupMemberAdapter;
+import com.example.realtimeaudiolocationapp.map.ClusterMarkerRenderer;
+import com.example.realtimeaudiolocationapp.map.MemberMarkerRenderer;
+import com.example.realtimeaudiolocationapp.map.Viewport;
 import com.example.realtimeaudiolocationapp.models.GroupMember;
 import com.example.realtimeaudiolocationapp.services.LocationService;
 import com.google.android.gms.maps.CameraUpdateFactory;
@@ -30,20 +36,25 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public class LocationTrackingFragment extends Fragment implements OnMapReadyCallback, LocationService.LocationServiceListener {
 
     private static final String TAG = "LocationTrackingFragment";
     private static final String SERVER_URL = "wss://example.com/location"; // Replace with actual server URL
     private static final float DEFAULT_ZOOM = 15f;
+    // Member markers move along their predicted paths between updates at this rate
+    private static final long MARKER_ANIMATION_INTERVAL_MS = 200;
+    // Groups of at least this many members are drawn as clusters
+    private static final int CLUSTER_MIN_MEMBERS = 100;
 
     // UI Components
     private GoogleMap googleMap;
@@ -61,11 +72,25 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
 
     // Map markers
     private Marker myLocationMarker;
-    private final Map<String, Marker> memberMarkers = new HashMap<>();
+    private MemberMarkerRenderer memberMarkers;
+    private ClusterMarkerRenderer clusterMarkers;
+    // Members outside the camera bounds are not drawn; updated when the camera stops
+    private final Viewport viewport = new Viewport();
+    private final Handler animationHandler = new Handler(Looper.getMainLooper());
+    // Whether a member was extrapolating at the last animation tick
+    private boolean clustersExtrapolated;
+    private final Runnable animateMarkers = new Runnable() {
+        @Override
+        public void run() {
+            moveMemberMarkers();
+            animationHandler.postDelayed(this, MARKER_ANIMATION_INTERVAL_MS);
+        }
+    };
 
     // Adapters
     private GroupMemberAdapter groupMemberAdapter;
     private List<GroupMember> groupMembers = new ArrayList<>();
+    private final Set<GroupMember> shownMembers = new HashSet<>();
 
     // Service connection
     private final ServiceConnection serviceConnection = new ServiceConnection() {
@@ -85,6 +110,8 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
             );
             
             // Load group members
+            groupMembers.clear();
+            shownMembers.clear();
             onGroupMembersChanged(locationService.getGroupMembers());
         }
 
@@ -127,7 +154,7 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
         
         // Set up RecyclerView
         recyclerGroupMembers.setLayoutManager(new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false));
-        groupMemberAdapter = new GroupMemberAdapter(groupMembers);
+        groupMemberAdapter = new GroupMemberAdapter();
         recyclerGroupMembers.setAdapter(groupMemberAdapter);
         
         // Set up click listeners
@@ -176,11 +203,13 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
         // Bind to LocationService
         Intent intent = new Intent(getActivity(), LocationService.class);
         getActivity().bindService(intent, serviceConnection, Context.BIND_AUTO_CREATE);
+        animationHandler.post(animateMarkers);
     }
 
     @Override
     public void onStop() {
         super.onStop();
+        animationHandler.removeCallbacks(animateMarkers);
         // Unbind from LocationService
         if (serviceBound) {
             if (locationService != null) {
@@ -191,9 +220,23 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (clusterMarkers != null) {
+            clusterMarkers.quit();
+            clusterMarkers = null;
+        }
+        viewport.reset();
+        googleMap = null;
+    }
+
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         this.googleMap = googleMap;
+        memberMarkers = new MemberMarkerRenderer(googleMap, viewport);
+        clusterMarkers = new ClusterMarkerRenderer(googleMap, viewport);
+        googleMap.setOnCameraIdleListener(this::onCameraIdle);
         
         // Configure map
         googleMap.setMapType(GoogleMap.MAP_TYPE_NORMAL);
@@ -268,10 +311,8 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
             
             // Clear markers
             if (googleMap != null) {
-                for (Marker marker : memberMarkers.values()) {
-                    marker.remove();
-                }
                 memberMarkers.clear();
+                clusterMarkers.clear();
                 
                 if (myLocationMarker != null) {
                     myLocationMarker.remove();
@@ -311,8 +352,9 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
         } else {
             recyclerGroupMembers.setVisibility(View.VISIBLE);
             textNoGroupMembers.setVisibility(View.GONE);
-            groupMemberAdapter.notifyDataSetChanged();
         }
+        // Diffed in the background; only changed items rebind
+        groupMemberAdapter.submit(groupMembers);
     }
 
     /**
@@ -340,65 +382,61 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
             }
         }
         
-        // Update group member markers
-        for (GroupMember member : groupMembers) {
-            if (member.getLocation() != null) {
-                LatLng memberLatLng = new LatLng(
-                        member.getLocation().getLatitude(),
-                        member.getLocation().getLongitude()
-                );
-                
-                Marker marker = memberMarkers.get(member.getId());
-                if (marker == null) {
-                    // Create new marker
-                    float hue;
-                    switch (member.getProximityLevel()) {
-                        case NEAR:
-                            hue = BitmapDescriptorFactory.HUE_RED;
-                            break;
-                        case MEDIUM:
-                            hue = BitmapDescriptorFactory.HUE_YELLOW;
-                            break;
-                        case FAR:
-                            hue = BitmapDescriptorFactory.HUE_GREEN;
-                            break;
-                        default:
-                            hue = BitmapDescriptorFactory.HUE_ORANGE;
-                            break;
-                    }
-                    
-                    marker = googleMap.addMarker(new MarkerOptions()
-                            .position(memberLatLng)
-                            .title(member.getName())
-                            .snippet(String.format("%.1f meters away", member.getDistance()))
-                            .icon(BitmapDescriptorFactory.defaultMarker(hue)));
-                    
-                    memberMarkers.put(member.getId(), marker);
-                } else {
-                    // Update existing marker
-                    marker.setPosition(memberLatLng);
-                    marker.setSnippet(String.format("%.1f meters away", member.getDistance()));
-                    
-                    // Update color based on proximity
-                    float hue;
-                    switch (member.getProximityLevel()) {
-                        case NEAR:
-                            hue = BitmapDescriptorFactory.HUE_RED;
-                            break;
-                        case MEDIUM:
-                            hue = BitmapDescriptorFactory.HUE_YELLOW;
-                            break;
-                        case FAR:
-                            hue = BitmapDescriptorFactory.HUE_GREEN;
-                            break;
-                        default:
-                            hue = BitmapDescriptorFactory.HUE_ORANGE;
-                            break;
-                    }
-                    marker.setIcon(BitmapDescriptorFactory.defaultMarker(hue));
-                }
+        // Update group member markers; only changed markers are touched
+        renderMemberMarkers();
+    }
+
+    /**
+     * Move member markers to their predicted positions
+     */
+    private void moveMemberMarkers() {
+        if (googleMap == null) {
+            return;
+        }
+        if (groupMembers.size() >= CLUSTER_MIN_MEMBERS) {
+            // Member and camera events recluster on their own; ticks only matter while some
+            // prediction moves, plus one more to settle on where it stopped
+            boolean extrapolating = anyMemberExtrapolating(SystemClock.elapsedRealtime());
+            boolean settle = clustersExtrapolated;
+            clustersExtrapolated = extrapolating;
+            if (!extrapolating && !settle) {
+                return;
+            }
+        }
+        renderMemberMarkers();
+    }
+
+    private boolean anyMemberExtrapolating(long nowMs) {
+        for (int i = 0; i < groupMembers.size(); i++) {
+            if (groupMembers.get(i).getMotion().isExtrapolating(nowMs)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Cull member markers to the new camera bounds; clusters also depend on the zoom level
+     */
+    private void onCameraIdle() {
+        LatLngBounds bounds = googleMap.getProjection().getVisibleRegion().latLngBounds;
+        viewport.set(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude);
+        renderMemberMarkers();
+    }
+
+    /**
+     * Draw members individually, or as clusters computed off the main thread
+     * once the group is large
+     */
+    private void renderMemberMarkers() {
+        if (groupMembers.size() >= CLUSTER_MIN_MEMBERS) {
+            memberMarkers.clear();
+            clusterMarkers.update(groupMembers, googleMap.getCameraPosition().zoom);
+        } else {
+            clusterMarkers.clear();
+            memberMarkers.render(groupMembers, SystemClock.elapsedRealtime());
+        }
     }
 
     // LocationService.LocationServiceListener implementation
@@ -420,19 +458,22 @@ public class LocationTrackingFragment extends Fragment implements OnMapReadyCall
 
     @Override
     public void onGroupMembersChanged(List<GroupMember> members) {
-        groupMembers.clear();
-        groupMembers.addAll(members);
+        // Only added or changed members are passed; changed ones are already in the list
+        for (int i = 0; i < members.size(); i++) {
+            GroupMember member = members.get(i);
+            if (shownMembers.add(member)) {
+                groupMembers.add(member);
+            }
+        }
         updateGroupMembersUI();
         updateMap();
     }
 
     @Override
-    public void onProximityChanged(GroupMember member, float distance, LocationService.ProximityLevel level) {
-        // Update the marker for this member
+    public void onProximityChanged(List<GroupMember> members) {
+        // One render and one list submit for every member that changed level this frame
         updateMap();
-        
-        // Update the adapter
-        groupMemberAdapter.notifyDataSetChanged();
+        groupMemberAdapter.submit(groupMembers);
     }
 
     @Override
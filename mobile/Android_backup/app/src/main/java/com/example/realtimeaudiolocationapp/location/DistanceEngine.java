@@ -0,0 +1,137 @@
+package com.example.realtimeaudiolocationapp.location;
+
+import java.util.Arrays;
+
+/**
+ * Distances from one origin to many member positions, accurate to well under
+ * a metre within proximity range. Positions live in parallel arrays with
+ * cos(latitude) cached per member, and distances use a local flat-earth
+ * (equirectangular) projection scaled by the WGS84 radii of curvature at the
+ * origin, so a batch costs one square root per member instead of the
+ * iterative ellipsoid solution in {@code Location.distanceTo}.
+ * <p>
+ * Against Vincenty's ellipsoid solution the error, as bounded by
+ * DistanceEngineTest on random pairs, stays under 1 cm at 1 km, 5 cm at
+ * 3 km and 0.5 m at 10 km.
+ */
+public class DistanceEngine {
+    // WGS84 semi-major axis and first eccentricity squared
+    private static final double EQUATORIAL_RADIUS = 6378137.0;
+    private static final double ECCENTRICITY_SQUARED = 6.69437999014e-3;
+
+    private double[] latitudes = new double[16];
+    private double[] longitudes = new double[16];
+    private double[] cosLatitudes = new double[16];
+    private int size;
+
+    // Origin of the current batch, in radians, and its radii of curvature
+    private double originLatitude;
+    private double originLongitude;
+    private double originCosLatitude;
+    private double meridianRadius;
+    private double halfPrimeVerticalRadius;
+
+    /**
+     * Store a new position
+     * @return Slot to update the position and ask for distances with
+     */
+    public synchronized int add(double latitude, double longitude) {
+        if (size == latitudes.length) {
+            int capacity = size * 2;
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            cosLatitudes = Arrays.copyOf(cosLatitudes, capacity);
+        }
+        int slot = size++;
+        store(slot, latitude, longitude);
+        return slot;
+    }
+
+    /**
+     * Move the position in a slot
+     */
+    public synchronized void set(int slot, double latitude, double longitude) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + size);
+        }
+        store(slot, latitude, longitude);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Distance in metres from an origin to the position in one slot
+     */
+    public synchronized float distance(double originLatitude, double originLongitude, int slot) {
+        setOrigin(originLatitude, originLongitude);
+        return measure(slot);
+    }
+
+    /**
+     * Distances in metres from an origin to the positions in a set of slots
+     * @param slots Slots to measure
+     * @param count Number of leading entries of slots to use
+     * @param out Receives the distance for slots[i] at index i
+     */
+    public synchronized void distances(double originLatitude, double originLongitude,
+                                       int[] slots, int count, float[] out) {
+        setOrigin(originLatitude, originLongitude);
+        for (int i = 0; i < count; i++) {
+            out[i] = measure(slots[i]);
+        }
+    }
+
+    /**
+     * Distances in metres from an origin to every stored position
+     * @param out Receives the distance for slot i at index i; at least {@link #size()} long
+     */
+    public synchronized void distances(double originLatitude, double originLongitude, float[] out) {
+        setOrigin(originLatitude, originLongitude);
+        for (int slot = 0; slot < size; slot++) {
+            out[slot] = measure(slot);
+        }
+    }
+
+    /**
+     * Precompute the origin terms shared by every distance in a batch
+     */
+    private void setOrigin(double latitude, double longitude) {
+        originLatitude = Math.toRadians(latitude);
+        originLongitude = Math.toRadians(longitude);
+        originCosLatitude = Math.cos(originLatitude);
+        double sinLatitude = Math.sin(originLatitude);
+        double w = 1 - ECCENTRICITY_SQUARED * sinLatitude * sinLatitude;
+        meridianRadius = EQUATORIAL_RADIUS * (1 - ECCENTRICITY_SQUARED) / (w * Math.sqrt(w));
+        halfPrimeVerticalRadius = EQUATORIAL_RADIUS / Math.sqrt(w) / 2;
+    }
+
+    private float measure(int slot) {
+        double north = (latitudes[slot] - originLatitude) * meridianRadius;
+        // The mean of the two cosines stands in for cos of the mean latitude
+        double east = wrap(longitudes[slot] - originLongitude)
+                * halfPrimeVerticalRadius * (originCosLatitude + cosLatitudes[slot]);
+        return (float) Math.sqrt(north * north + east * east);
+    }
+
+    private void store(int slot, double latitude, double longitude) {
+        double radians = Math.toRadians(latitude);
+        latitudes[slot] = radians;
+        longitudes[slot] = Math.toRadians(longitude);
+        cosLatitudes[slot] = Math.cos(radians);
+    }
+
+    /**
+     * Longitude difference folded into -pi..pi, so pairs across the antimeridian stay close
+     */
+    private static double wrap(double radians) {
+        if (radians > Math.PI) {
+            return radians - 2 * Math.PI;
+        }
+        if (radians < -Math.PI) {
+            return radians + 2 * Math.PI;
+        }
+        return radians;
+    }
+}
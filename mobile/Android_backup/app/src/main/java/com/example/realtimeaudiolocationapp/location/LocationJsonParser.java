@@ -0,0 +1,359 @@
+package com.example.realtimeaudiolocationapp.location;
+
+import java.util.Arrays;
+
+/**
+ * Streaming parser for the JSON text location messages of clients that
+ * predate {@link LocationWireFormat}:
+ * <pre>
+ * {"id": "...", "name": "...", "latitude": 52.52, "longitude": 13.405,
+ *  "accuracy": 6.5, "speed": 1.4, "bearing": 212.5, "time": 1767225600123}
+ * </pre>
+ * Fields may come in any order; id, name, latitude and longitude are required
+ * and unknown fields, including nested objects and arrays, are skipped. The
+ * message is read in one pass straight into a reused {@link LocationUpdate}
+ * without building a document. Id and name Strings are cached by content, so
+ * a member that sends again gets the same instances and nothing is allocated.
+ * <p>
+ * Not thread-safe; each receiving thread needs its own parser.
+ */
+public class LocationJsonParser {
+    /** Cached id and name Strings; the cache starts over when it is full */
+    static final int CACHE_SIZE = 512;
+
+    // Exact powers of ten, for the fast path of number parsing
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Significant digits read; integers up to this length are exact in a double
+    private static final int MAX_DIGITS = 15;
+
+    private final String[] cache = new String[CACHE_SIZE * 2];
+    private int cached;
+    private final StringBuilder unescaped = new StringBuilder();
+
+    private CharSequence text;
+    private int position;
+    private String id;
+    private String name;
+
+    /**
+     * Parse a location message
+     * @param text Message text
+     * @param out Receives the location; member index is -1, unknown accuracy, speed and
+     *            bearing are NaN and a missing time is 0
+     * @return False if the message is malformed or misses a required field
+     */
+    public boolean parse(CharSequence text, LocationUpdate out) {
+        this.text = text;
+        position = 0;
+        id = null;
+        name = null;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        out.memberIndex = -1;
+        out.accuracy = Float.NaN;
+        out.speed = Float.NaN;
+        out.bearing = Float.NaN;
+        out.timeMs = 0;
+        try {
+            if (next() != '{' || peek() == '}') {
+                return false;
+            }
+            while (true) {
+                if (next() != '"') {
+                    return false;
+                }
+                int keyStart = position;
+                int keyEnd = skipString();
+                if (keyEnd < 0 || next() != ':') {
+                    return false;
+                }
+                if (is("id", keyStart, keyEnd)) {
+                    id = readString();
+                } else if (is("name", keyStart, keyEnd)) {
+                    name = readString();
+                } else if (is("latitude", keyStart, keyEnd)) {
+                    latitude = readNumber();
+                } else if (is("longitude", keyStart, keyEnd)) {
+                    longitude = readNumber();
+                } else if (is("accuracy", keyStart, keyEnd)) {
+                    out.accuracy = (float) readNumber();
+                } else if (is("speed", keyStart, keyEnd)) {
+                    out.speed = (float) readNumber();
+                } else if (is("bearing", keyStart, keyEnd)) {
+                    out.bearing = (float) readNumber();
+                } else if (is("time", keyStart, keyEnd)) {
+                    out.timeMs = (long) readNumber();
+                } else if (!skipValue()) {
+                    return false;
+                }
+
+                char c = next();
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    return false;
+                }
+            }
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            return false;
+        } finally {
+            this.text = null;
+        }
+        if (id == null || name == null || Double.isNaN(latitude) || Double.isNaN(longitude)
+                || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            return false;
+        }
+        out.latitudeE7 = LocationWireFormat.toE7(latitude);
+        out.longitudeE7 = LocationWireFormat.toE7(longitude);
+        return true;
+    }
+
+    /**
+     * Member id of the last parsed message
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Member name of the last parsed message
+     */
+    public String getName() {
+        return name;
+    }
+
+    private char next() {
+        skipWhitespace();
+        return text.charAt(position++);
+    }
+
+    private char peek() {
+        skipWhitespace();
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean is(String key, int start, int end) {
+        if (end - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (text.charAt(start + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip the rest of a string after its opening quote
+     * @return End of the string contents, or -1 if it has escapes
+     */
+    private int skipString() {
+        boolean escaped = false;
+        while (true) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return escaped ? -1 : position - 1;
+            } else if (c == '\\') {
+                escaped = true;
+                position++;
+            }
+        }
+    }
+
+    private String readString() {
+        if (next() != '"') {
+            throw new NumberFormatException("Expected a string");
+        }
+        int start = position;
+        int end = skipString();
+        if (end >= 0) {
+            return intern(text, start, end);
+        }
+        // Rare: unescape into the reused builder first
+        unescaped.setLength(0);
+        for (int i = start; i < position - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            c = text.charAt(++i);
+            switch (c) {
+                case 'b':
+                    unescaped.append('\b');
+                    break;
+                case 'f':
+                    unescaped.append('\f');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int last = i + 4; i < last; ) {
+                        int digit = Character.digit(text.charAt(++i), 16);
+                        if (digit < 0) {
+                            throw new NumberFormatException("Bad unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    unescaped.append((char) code);
+                    break;
+                default:
+                    unescaped.append(c);
+                    break;
+            }
+        }
+        return intern(unescaped, 0, unescaped.length());
+    }
+
+    /**
+     * Read a JSON number. Plain decimals, which is what coordinates are sent as,
+     * are computed from their first {@link #MAX_DIGITS} significant digits; further
+     * fraction digits are dropped, far below the 1e-7 degree resolution of
+     * {@link LocationUpdate}. Exponents and large integers fall back to
+     * {@link Double#parseDouble}.
+     */
+    private double readNumber() {
+        skipWhitespace();
+        int start = position;
+        boolean negative = false;
+        if (text.charAt(position) == '-') {
+            negative = true;
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+        boolean fraction = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits += mantissa > 0 ? 1 : 0;
+                    scale += fraction ? 1 : 0;
+                } else if (!fraction) {
+                    exact = false;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E' || c == '+' || (c == '-' && position > start)) {
+                exact = false;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (position == start || (negative && position == start + 1)) {
+            throw new NumberFormatException("Expected a number");
+        }
+        if (!exact || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(text.subSequence(start, position).toString());
+        }
+        // Both operands are exact doubles, so the division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skip any value, nesting included
+     * @return False if the value is malformed
+     */
+    private boolean skipValue() {
+        char c = peek();
+        if (c == '"') {
+            position++;
+            skipString();
+            return true;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = text.charAt(position++);
+                if (c == '"') {
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+            return true;
+        }
+        // Number, true, false or null
+        int start = position;
+        while (position < text.length()) {
+            c = text.charAt(position);
+            if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                break;
+            }
+            position++;
+        }
+        return position > start;
+    }
+
+    /**
+     * Cached String with the given characters. Open addressing with linear
+     * probing over id and name Strings; lookups compare characters, so a hit
+     * allocates nothing.
+     */
+    private String intern(CharSequence chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = cache.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (cache[slot] != null) {
+            String candidate = cache[slot];
+            if (candidate.hashCode() == hash && matches(candidate, chars, start, end)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = chars.subSequence(start, end).toString();
+        if (cached == CACHE_SIZE) {
+            // Members come and go rarely; starting over keeps the table at most half full
+            Arrays.fill(cache, null);
+            cached = 0;
+            slot = (hash ^ (hash >>> 16)) & mask;
+        }
+        cache[slot] = value;
+        cached++;
+        return value;
+    }
+
+    private static boolean matches(String candidate, CharSequence chars, int start, int end) {
+        if (candidate.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
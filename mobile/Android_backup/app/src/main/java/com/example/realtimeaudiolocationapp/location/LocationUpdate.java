@@ -0,0 +1,58 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * One member's position as carried by {@link LocationWireFormat}. Instances
+ * are mutable and meant to be reused by the decoder, so receiving a location
+ * allocates nothing.
+ */
+public final class LocationUpdate {
+    /** Member index from the {@link MemberDirectory} */
+    public int memberIndex;
+    /** Latitude in units of 1e-7 degrees */
+    public int latitudeE7;
+    /** Longitude in units of 1e-7 degrees */
+    public int longitudeE7;
+    /** Horizontal accuracy in metres, NaN if unknown */
+    public float accuracy = Float.NaN;
+    /** Ground speed in metres per second, NaN if unknown */
+    public float speed = Float.NaN;
+    /** Bearing in degrees east of true north, NaN if unknown */
+    public float bearing = Float.NaN;
+    /** Fix time in milliseconds since the epoch */
+    public long timeMs;
+
+    public double getLatitude() {
+        return latitudeE7 / LocationWireFormat.E7;
+    }
+
+    public double getLongitude() {
+        return longitudeE7 / LocationWireFormat.E7;
+    }
+
+    public boolean hasAccuracy() {
+        return !Float.isNaN(accuracy);
+    }
+
+    public boolean hasSpeed() {
+        return !Float.isNaN(speed);
+    }
+
+    public boolean hasBearing() {
+        return !Float.isNaN(bearing);
+    }
+
+    /**
+     * Set every field in one call
+     */
+    public LocationUpdate set(int memberIndex, double latitude, double longitude,
+                              float accuracy, float speed, float bearing, long timeMs) {
+        this.memberIndex = memberIndex;
+        this.latitudeE7 = LocationWireFormat.toE7(latitude);
+        this.longitudeE7 = LocationWireFormat.toE7(longitude);
+        this.accuracy = accuracy;
+        this.speed = speed;
+        this.bearing = bearing;
+        this.timeMs = timeMs;
+        return this;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.realtimeaudiolocationapp.location;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of the location channel, replacing JSON text.
+ * Every message starts with a type byte. Location messages identify the
+ * sender by a small member index instead of its id and name, which are sent
+ * once in a member message and looked up in the {@link MemberDirectory}.
+ *
+ * <pre>
+ * location: type=1 | varint member index | int32 latitude E7 | int32 longitude E7
+ *           | presence bits | [uint16 accuracy dm] [uint16 speed cm/s] [uint16 bearing 0.01 deg]
+ *           | varint fix time ms
+ * member:   type=2 | varint member index | varint length | UTF-8 id | varint length | UTF-8 name
+ * </pre>
+ *
+ * A location message is at most {@link #MAX_LOCATION_SIZE} bytes, typically
+ * 23, against well over 100 for the JSON text it replaces. Multi-byte
+ * fields are big-endian. Locations are written and read without intermediate
+ * Strings or objects.
+ */
+public final class LocationWireFormat {
+    public static final int TYPE_LOCATION = 1;
+    public static final int TYPE_MEMBER = 2;
+
+    public static final int MAX_LOCATION_SIZE = 1 + 5 + 4 + 4 + 1 + 3 * 2 + 10;
+    /** Member id and name are each truncated to this many UTF-8 bytes */
+    public static final int MAX_STRING_BYTES = 255;
+    public static final int MAX_MEMBER_SIZE = 1 + 5 + 2 * (2 + MAX_STRING_BYTES);
+
+    static final double E7 = 1e7;
+
+    private static final int HAS_ACCURACY = 0x01;
+    private static final int HAS_SPEED = 0x02;
+    private static final int HAS_BEARING = 0x04;
+
+    private static final int MAX_UINT16 = 0xFFFF;
+
+    private LocationWireFormat() {
+    }
+
+    /**
+     * Write a location message at the buffer's position and advance past it
+     * @param buffer Destination with at least {@link #MAX_LOCATION_SIZE} bytes remaining
+     * @param update Location to write; unknown accuracy, speed or bearing is omitted
+     * @return Number of bytes written
+     */
+    public static int writeLocation(ByteBuffer buffer, LocationUpdate update) {
+        int start = buffer.position();
+        buffer.put((byte) TYPE_LOCATION);
+        putVarint(buffer, update.memberIndex);
+        putInt(buffer, update.latitudeE7);
+        putInt(buffer, update.longitudeE7);
+
+        int presence = (update.hasAccuracy() ? HAS_ACCURACY : 0)
+                | (update.hasSpeed() ? HAS_SPEED : 0)
+                | (update.hasBearing() ? HAS_BEARING : 0);
+        buffer.put((byte) presence);
+        if (update.hasAccuracy()) {
+            putUint16(buffer, Math.round(update.accuracy * 10));
+        }
+        if (update.hasSpeed()) {
+            putUint16(buffer, Math.round(update.speed * 100));
+        }
+        if (update.hasBearing()) {
+            float bearing = update.bearing % 360;
+            putUint16(buffer, Math.round((bearing < 0 ? bearing + 360 : bearing) * 100) % 36000);
+        }
+        putVarint(buffer, update.timeMs);
+        return buffer.position() - start;
+    }
+
+    /**
+     * Write a member message binding an index to a member id and display name
+     * @param buffer Destination with at least {@link #MAX_MEMBER_SIZE} bytes remaining
+     * @return Number of bytes written
+     */
+    public static int writeMember(ByteBuffer buffer, int memberIndex, String id, String name) {
+        int start = buffer.position();
+        buffer.put((byte) TYPE_MEMBER);
+        putVarint(buffer, memberIndex);
+        putString(buffer, id);
+        putString(buffer, name);
+        return buffer.position() - start;
+    }
+
+    /**
+     * Type of the message at the buffer's position, or -1 if the buffer is empty
+     */
+    public static int readType(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? buffer.get(buffer.position()) & 0xFF : -1;
+    }
+
+    /**
+     * Read a location message from the buffer's position into a reusable holder
+     * @param buffer Source positioned at the type byte
+     * @param update Receives the location
+     * @return False if the message is not a location or is truncated
+     */
+    public static boolean readLocation(ByteBuffer buffer, LocationUpdate update) {
+        if (readType(buffer) != TYPE_LOCATION) {
+            return false;
+        }
+        buffer.get();
+        long index = getVarint(buffer);
+        if (index < 0 || index > Integer.MAX_VALUE || buffer.remaining() < 9) {
+            return false;
+        }
+        update.memberIndex = (int) index;
+        update.latitudeE7 = getInt(buffer);
+        update.longitudeE7 = getInt(buffer);
+
+        int presence = buffer.get() & 0xFF;
+        int optionalBytes = 2 * Integer.bitCount(presence & (HAS_ACCURACY | HAS_SPEED | HAS_BEARING));
+        if (buffer.remaining() < optionalBytes) {
+            return false;
+        }
+        update.accuracy = (presence & HAS_ACCURACY) != 0 ? getUint16(buffer) / 10f : Float.NaN;
+        update.speed = (presence & HAS_SPEED) != 0 ? getUint16(buffer) / 100f : Float.NaN;
+        update.bearing = (presence & HAS_BEARING) != 0 ? getUint16(buffer) / 100f : Float.NaN;
+
+        long time = getVarint(buffer);
+        if (time < 0) {
+            return false;
+        }
+        update.timeMs = time;
+        return true;
+    }
+
+    /**
+     * Read the member index of the member message at the buffer's position
+     * and advance to its id
+     * @return Member index, or -1 if the message is not a member message or is truncated
+     */
+    public static int readMemberIndex(ByteBuffer buffer) {
+        if (readType(buffer) != TYPE_MEMBER) {
+            return -1;
+        }
+        buffer.get();
+        long index = getVarint(buffer);
+        return index > Integer.MAX_VALUE ? -1 : (int) index;
+    }
+
+    /**
+     * Read the next length-prefixed string of a member message
+     * @return The string, or null if truncated
+     */
+    public static String readString(ByteBuffer buffer) {
+        long length = getVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), (int) length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + (int) length);
+        } else {
+            byte[] bytes = new byte[(int) length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * Convert degrees to the 1e-7 degree fixed point used on the wire, about 1 cm
+     */
+    public static int toE7(double degrees) {
+        return (int) Math.round(degrees * E7);
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * @return The unsigned value, or -1 if the buffer ends inside it
+     */
+    static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        putVarint(buffer, length);
+        buffer.put(bytes, 0, length);
+    }
+
+    // Explicit byte access keeps the wire format big-endian regardless of buffer order
+
+    private static void putInt(ByteBuffer buffer, int value) {
+        buffer.put((byte) (value >>> 24));
+        buffer.put((byte) (value >>> 16));
+        buffer.put((byte) (value >>> 8));
+        buffer.put((byte) value);
+    }
+
+    private static void putUint16(ByteBuffer buffer, int value) {
+        int clamped = Math.max(0, Math.min(MAX_UINT16, value));
+        buffer.put((byte) (clamped >>> 8));
+        buffer.put((byte) clamped);
+    }
+
+    private static int getInt(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) << 24
+                | (buffer.get() & 0xFF) << 16
+                | (buffer.get() & 0xFF) << 8
+                | (buffer.get() & 0xFF);
+    }
+
+    private static int getUint16(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+    }
+}
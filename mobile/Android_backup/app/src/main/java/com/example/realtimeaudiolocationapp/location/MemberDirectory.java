@@ -0,0 +1,133 @@
+package com.example.realtimeaudiolocationapp.location;
+
+import java.util.Arrays;
+
+/**
+ * Mapping between the small member indices used in location messages and
+ * member ids and names. Every client claims an index derived from a hash of
+ * its id, or the next one it has not seen announced by anyone else, and
+ * announces it in a member message. Starting from the hash keeps a client
+ * that has just connected, and knows nobody yet, from claiming an index that
+ * is already in use. If two clients claim the same index, the one with the
+ * lexicographically smaller id keeps it and the other moves to a free index
+ * and announces again. Members answer the first announcement of an id they
+ * did not know with their own, so a newcomer learns the group at once.
+ */
+public class MemberDirectory {
+    /** Indices above this are rejected; they would need more than two varint bytes anyway */
+    public static final int MAX_INDEX = (1 << 14) - 1;
+    /** Preferred indices are spread over this range, which still fits one varint byte */
+    static final int HASH_INDICES = 128;
+
+    private final String localId;
+    private final String localName;
+    private String[] ids = new String[16];
+    private String[] names = new String[16];
+    private int localIndex = -1;
+
+    /**
+     * @param localId Id of this device's user
+     * @param localName Display name of this device's user
+     */
+    public MemberDirectory(String localId, String localName) {
+        this.localId = localId;
+        this.localName = localName;
+    }
+
+    /**
+     * Index this device sends its locations under, claimed on first use
+     */
+    public synchronized int getLocalIndex() {
+        if (localIndex < 0) {
+            localIndex = freeIndexFrom(preferredIndex(localId));
+        }
+        return localIndex;
+    }
+
+    public String getLocalId() {
+        return localId;
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    /**
+     * Record a member message
+     * @param index Announced index
+     * @param id Member id
+     * @param name Display name
+     * @return True if the local index must be announced again: because it moved,
+     *         because another member claimed it, or because the member is new to us
+     *         and does not know our index yet
+     */
+    public synchronized boolean bind(int index, String id, String name) {
+        if (index < 0 || index > MAX_INDEX || id.equals(localId)) {
+            return false;
+        }
+        // A member that moved to a new index releases its old one
+        boolean known = false;
+        for (int i = 0; i < ids.length; i++) {
+            if (id.equals(ids[i])) {
+                known = true;
+                if (i != index) {
+                    ids[i] = null;
+                    names[i] = null;
+                }
+            }
+        }
+        ensureCapacity(index + 1);
+        ids[index] = id;
+        names[index] = name;
+
+        if (index == localIndex && id.compareTo(localId) < 0) {
+            localIndex = freeIndexFrom(preferredIndex(localId));
+            return true;
+        }
+        // Announcing again tells the other side it has to move, or a newcomer who we are
+        return index == localIndex || !known;
+    }
+
+    /**
+     * Member id bound to an index, or null if none has been announced
+     */
+    public synchronized String getId(int index) {
+        if (index == localIndex) {
+            return localId;
+        }
+        return index >= 0 && index < ids.length ? ids[index] : null;
+    }
+
+    /**
+     * Display name bound to an index, or null if none has been announced
+     */
+    public synchronized String getName(int index) {
+        if (index == localIndex) {
+            return localName;
+        }
+        return index >= 0 && index < names.length ? names[index] : null;
+    }
+
+    /**
+     * Index a member id tries to claim first
+     */
+    public static int preferredIndex(String id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % HASH_INDICES;
+    }
+
+    private int freeIndexFrom(int index) {
+        while (index < ids.length && ids[index] != null) {
+            index++;
+        }
+        ensureCapacity(index + 1);
+        return index;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            names = Arrays.copyOf(names, length);
+        }
+    }
+}
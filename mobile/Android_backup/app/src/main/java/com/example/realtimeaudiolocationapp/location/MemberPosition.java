@@ -0,0 +1,76 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * Last reported position of one member in primitive fields, updated in place
+ * for every location message so receiving one allocates nothing. The
+ * version counts updates, so readers can tell whether anything they derived
+ * from the position is stale.
+ * <p>
+ * Written on the receiving thread and read on others; every method is
+ * synchronized, and code that reads several fields together can hold the
+ * instance's lock to get them from the same update.
+ */
+public class MemberPosition {
+    private double latitude;
+    private double longitude;
+    private float accuracy = Float.NaN;
+    private float speed = Float.NaN;
+    private float bearing = Float.NaN;
+    private long timeMs;
+    private long version;
+
+    /**
+     * Copy a decoded location message
+     */
+    public synchronized void set(LocationUpdate update) {
+        latitude = update.getLatitude();
+        longitude = update.getLongitude();
+        accuracy = update.accuracy;
+        speed = update.speed;
+        bearing = update.bearing;
+        timeMs = update.timeMs;
+        version++;
+    }
+
+    /**
+     * False until the first update
+     */
+    public synchronized boolean hasFix() {
+        return version > 0;
+    }
+
+    /**
+     * Number of updates so far
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized double getLatitude() {
+        return latitude;
+    }
+
+    public synchronized double getLongitude() {
+        return longitude;
+    }
+
+    /** Horizontal accuracy in metres, NaN if unknown */
+    public synchronized float getAccuracy() {
+        return accuracy;
+    }
+
+    /** Ground speed in m/s, NaN if unknown */
+    public synchronized float getSpeed() {
+        return speed;
+    }
+
+    /** Bearing in degrees east of north, NaN if unknown */
+    public synchronized float getBearing() {
+        return bearing;
+    }
+
+    /** Sender's fix time in ms since the epoch */
+    public synchronized long getTimeMs() {
+        return timeMs;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * Dead reckoning of one remote member between location updates. Each update
+ * sets a constant velocity, from the reported speed and bearing or else from
+ * the displacement since the previous update, and the position is
+ * extrapolated along it for up to {@link #MAX_PREDICTION_MS}. When an update
+ * disagrees with the prediction, the difference is blended out over
+ * {@link #CORRECTION_MS} instead of making the member jump.
+ * <p>
+ * Predictions are anchored at the local time an update was received, so
+ * clock differences between phones do not matter. Times are passed in, so
+ * any monotonic clock works and tests can drive the model directly.
+ */
+public class MotionModel {
+    /** Updates older than this are not extrapolated further */
+    public static final long MAX_PREDICTION_MS = 10000;
+    /** Faster reported or derived speeds in m/s are clamped */
+    public static final float MAX_SPEED = 60;
+    /** Furthest a prediction can be from the last update, in metres */
+    public static final double MAX_PREDICTION_DISTANCE = MAX_SPEED * MAX_PREDICTION_MS / 1000.0;
+
+    /** Time over which a correction is blended out */
+    static final long CORRECTION_MS = 1000;
+    /** Larger corrections are applied at once */
+    static final double MAX_CORRECTION = 100;
+
+    private boolean hasUpdate;
+    private double latitude;
+    private double longitude;
+    private long fixTimeMs;
+    private long receivedMs;
+    private double velocityNorth;
+    private double velocityEast;
+    private double correctionNorth;
+    private double correctionEast;
+
+    /**
+     * Record a location update
+     * @param speed Ground speed in m/s, NaN if unknown
+     * @param bearing Bearing in degrees east of north, NaN if unknown
+     * @param fixTimeMs Sender's fix time, only compared with earlier fix times
+     * @param nowMs Local receive time on the clock later passed to {@link #predict}
+     */
+    public synchronized void update(double latitude, double longitude, float speed, float bearing,
+                                    long fixTimeMs, long nowMs) {
+        double north = 0;
+        double east = 0;
+        double newCorrectionNorth = 0;
+        double newCorrectionEast = 0;
+        if (hasUpdate) {
+            // The new position relative to the previous one
+            north = (latitude - this.latitude) * SpatialGrid.METRES_PER_DEGREE;
+            east = wrapLongitude(longitude - this.longitude) * metresPerLongitudeDegree(this.latitude);
+
+            // Where the member is drawn now, relative to the new position
+            long age = Math.max(0, nowMs - receivedMs);
+            newCorrectionNorth = displacement(velocityNorth, age) + correction(correctionNorth, age) - north;
+            newCorrectionEast = displacement(velocityEast, age) + correction(correctionEast, age) - east;
+            if (newCorrectionNorth * newCorrectionNorth + newCorrectionEast * newCorrectionEast
+                    > MAX_CORRECTION * MAX_CORRECTION) {
+                newCorrectionNorth = 0;
+                newCorrectionEast = 0;
+            }
+        }
+
+        if (!Float.isNaN(speed) && !Float.isNaN(bearing)) {
+            double radians = Math.toRadians(bearing);
+            velocityNorth = speed * Math.cos(radians);
+            velocityEast = speed * Math.sin(radians);
+        } else if (hasUpdate && fixTimeMs > this.fixTimeMs) {
+            double seconds = (fixTimeMs - this.fixTimeMs) / 1000.0;
+            velocityNorth = north / seconds;
+            velocityEast = east / seconds;
+        } else {
+            velocityNorth = 0;
+            velocityEast = 0;
+        }
+        double speedSquared = velocityNorth * velocityNorth + velocityEast * velocityEast;
+        if (speedSquared > MAX_SPEED * MAX_SPEED) {
+            double scale = MAX_SPEED / Math.sqrt(speedSquared);
+            velocityNorth *= scale;
+            velocityEast *= scale;
+        }
+
+        hasUpdate = true;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.fixTimeMs = fixTimeMs;
+        this.receivedMs = nowMs;
+        correctionNorth = newCorrectionNorth;
+        correctionEast = newCorrectionEast;
+    }
+
+    public synchronized boolean hasUpdate() {
+        return hasUpdate;
+    }
+
+    /**
+     * Whether predictions still change with time: the member has a velocity
+     * and the last update is within the horizon, or a correction is being
+     * blended out
+     * @param nowMs Time on the clock passed to {@link #update}
+     */
+    public synchronized boolean isExtrapolating(long nowMs) {
+        if (!hasUpdate) {
+            return false;
+        }
+        long age = Math.max(0, nowMs - receivedMs);
+        return age < MAX_PREDICTION_MS && (velocityNorth != 0 || velocityEast != 0)
+                || age < CORRECTION_MS && (correctionNorth != 0 || correctionEast != 0);
+    }
+
+    /**
+     * Predicted position
+     * @param nowMs Time on the clock passed to {@link #update}
+     * @param out Receives latitude at index 0 and longitude at index 1
+     * @return False, leaving out untouched, if there has been no update
+     */
+    public synchronized boolean predict(long nowMs, double[] out) {
+        if (!hasUpdate) {
+            return false;
+        }
+        long age = Math.max(0, nowMs - receivedMs);
+        double north = displacement(velocityNorth, age) + correction(correctionNorth, age);
+        double east = displacement(velocityEast, age) + correction(correctionEast, age);
+        out[0] = latitude + north / SpatialGrid.METRES_PER_DEGREE;
+        out[1] = wrapLongitude(longitude + east / metresPerLongitudeDegree(latitude));
+        return true;
+    }
+
+    private static double displacement(double velocity, long ageMs) {
+        return velocity * Math.min(ageMs, MAX_PREDICTION_MS) / 1000.0;
+    }
+
+    private static double correction(double offset, long ageMs) {
+        return ageMs >= CORRECTION_MS ? 0 : offset * (CORRECTION_MS - ageMs) / CORRECTION_MS;
+    }
+
+    /**
+     * The same longitude, or longitude difference, in [-180, 180), so
+     * movement across the antimeridian stays short
+     */
+    private static double wrapLongitude(double degrees) {
+        double wrapped = (degrees + 180) % 360;
+        if (wrapped < 0) {
+            wrapped += 360;
+        }
+        return wrapped - 180;
+    }
+
+    private static double metresPerLongitudeDegree(double latitude) {
+        return SpatialGrid.METRES_PER_DEGREE * Math.max(1e-6, Math.cos(Math.toRadians(latitude)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * Two-dimensional constant-velocity Kalman filter for this device's own GPS
+ * fixes. Fixes are weighted by their reported accuracy, and a fix too far
+ * from the prediction for its accuracy is rejected as an outlier, such as a
+ * multipath jump in an urban canyon. After {@link #MAX_REJECTED} rejections
+ * in a row, or a gap of {@link #MAX_GAP_MS}, the filter restarts from the
+ * next fix so it cannot lock onto a stale track.
+ * <p>
+ * The state is kept in metres east and north of the first fix. Both axes
+ * share one model and one measurement variance, so they also share one
+ * covariance matrix. Everything is held in primitive fields and nothing is
+ * allocated per fix.
+ */
+public class PositionFilter {
+    /** Consecutive outliers after which the filter restarts */
+    static final int MAX_REJECTED = 3;
+    /** Time without fixes after which the filter restarts */
+    static final long MAX_GAP_MS = 60000;
+
+    // Expected acceleration in m/s^2, the process noise of the velocity
+    private static final double ACCELERATION = 2;
+    // Velocity uncertainty in m/s of a freshly started filter
+    private static final double INITIAL_SPEED_ERROR = 10;
+    // Accuracy assumed for fixes that report none, in metres
+    private static final double DEFAULT_ACCURACY = 25;
+    // 99% point of the chi-square distribution with two degrees of freedom
+    private static final double OUTLIER_GATE = 9.21;
+
+    private boolean started;
+    private double originLatitude;
+    private double originLongitude;
+    private double metresPerLongitude;
+    private long lastTimeMs;
+    private int rejected;
+
+    // Position and velocity east and north, in m and m/s
+    private double east;
+    private double north;
+    private double velocityEast;
+    private double velocityNorth;
+
+    // Covariance of position, position/velocity and velocity, shared by both axes
+    private double positionVariance;
+    private double covariance;
+    private double velocityVariance;
+
+    /**
+     * Add a fix
+     * @param timeMs Fix time on a monotonic clock
+     * @param accuracy Reported horizontal accuracy in metres, NaN if unknown
+     * @return False if the fix was rejected as an outlier; the estimate is then unchanged
+     */
+    public boolean update(long timeMs, double latitude, double longitude, float accuracy) {
+        double measurementVariance = Float.isNaN(accuracy) || accuracy <= 0
+                ? DEFAULT_ACCURACY * DEFAULT_ACCURACY : (double) accuracy * accuracy;
+        if (!started || timeMs - lastTimeMs > MAX_GAP_MS || rejected >= MAX_REJECTED) {
+            start(timeMs, latitude, longitude, measurementVariance);
+            return true;
+        }
+
+        // Predict
+        double dt = Math.max(0, timeMs - lastTimeMs) / 1000.0;
+        double q = ACCELERATION * ACCELERATION;
+        double predictedEast = east + velocityEast * dt;
+        double predictedNorth = north + velocityNorth * dt;
+        double predictedPositionVariance = positionVariance + dt * (2 * covariance + dt * velocityVariance)
+                + q * dt * dt * dt * dt / 4;
+        double predictedCovariance = covariance + dt * velocityVariance + q * dt * dt * dt / 2;
+        double predictedVelocityVariance = velocityVariance + q * dt * dt;
+
+        // Gate on the innovation before accepting the fix
+        double innovationEast = (longitude - originLongitude) * metresPerLongitude - predictedEast;
+        double innovationNorth = (latitude - originLatitude) * SpatialGrid.METRES_PER_DEGREE - predictedNorth;
+        double innovationVariance = predictedPositionVariance + measurementVariance;
+        if ((innovationEast * innovationEast + innovationNorth * innovationNorth) / innovationVariance
+                > OUTLIER_GATE) {
+            rejected++;
+            return false;
+        }
+        rejected = 0;
+
+        // Correct
+        double positionGain = predictedPositionVariance / innovationVariance;
+        double velocityGain = predictedCovariance / innovationVariance;
+        east = predictedEast + positionGain * innovationEast;
+        north = predictedNorth + positionGain * innovationNorth;
+        velocityEast += velocityGain * innovationEast;
+        velocityNorth += velocityGain * innovationNorth;
+        positionVariance = (1 - positionGain) * predictedPositionVariance;
+        covariance = (1 - positionGain) * predictedCovariance;
+        velocityVariance = predictedVelocityVariance - velocityGain * predictedCovariance;
+        lastTimeMs = timeMs;
+        return true;
+    }
+
+    /**
+     * Forget the current track; the next fix starts a new one
+     */
+    public void reset() {
+        started = false;
+    }
+
+    public double getLatitude() {
+        return originLatitude + north / SpatialGrid.METRES_PER_DEGREE;
+    }
+
+    public double getLongitude() {
+        return originLongitude + east / metresPerLongitude;
+    }
+
+    /**
+     * Estimated horizontal accuracy in metres
+     */
+    public float getAccuracy() {
+        return (float) Math.sqrt(positionVariance);
+    }
+
+    /**
+     * Estimated ground speed in m/s
+     */
+    public float getSpeed() {
+        return (float) Math.sqrt(velocityEast * velocityEast + velocityNorth * velocityNorth);
+    }
+
+    private void start(long timeMs, double latitude, double longitude, double measurementVariance) {
+        started = true;
+        originLatitude = latitude;
+        originLongitude = longitude;
+        metresPerLongitude = SpatialGrid.METRES_PER_DEGREE * Math.max(1e-6, Math.cos(Math.toRadians(latitude)));
+        lastTimeMs = timeMs;
+        rejected = 0;
+        east = 0;
+        north = 0;
+        velocityEast = 0;
+        velocityNorth = 0;
+        positionVariance = measurementVariance;
+        covariance = 0;
+        velocityVariance = INITIAL_SPEED_ERROR * INITIAL_SPEED_ERROR;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * Proximity band of one member with hysteresis, so a member hovering around a
+ * band limit does not flap between bands on every fix. Moving to a closer
+ * band needs the distance to be {@link #MARGIN} of the limit inside it, and
+ * moving to a further band needs it that far outside. A band is also kept for
+ * at least {@link #MIN_DWELL_MS} before it can change again.
+ * <p>
+ * Bands are numbered from {@link #NEAR} outwards to {@link #OUT_OF_RANGE}, in
+ * the order of {@code LocationService.ProximityLevel}.
+ */
+public class ProximityBand {
+    public static final int NEAR = 0;
+    public static final int MEDIUM = 1;
+    public static final int FAR = 2;
+    public static final int OUT_OF_RANGE = 3;
+
+    /** Outer limits of the near, medium and far bands in metres */
+    public static final int NEAR_DISTANCE = 100;
+    public static final int MEDIUM_DISTANCE = 300;
+    public static final int FAR_DISTANCE = 1000;
+
+    /** Fraction of a band limit that has to be crossed to change band */
+    static final double MARGIN = 0.1;
+    /** Shortest time a band is kept */
+    static final long MIN_DWELL_MS = 5000;
+
+    private int band = OUT_OF_RANGE;
+    private long changedMs;
+    private boolean changed;
+
+    /**
+     * Update the band from a new distance
+     * @param distance Distance in metres
+     * @param nowMs Time on a monotonic clock
+     * @return True if the band changed
+     */
+    public synchronized boolean update(double distance, long nowMs) {
+        int target = band(distance);
+        if (target == band) {
+            return false;
+        }
+        if (changed && nowMs - changedMs < MIN_DWELL_MS) {
+            return false;
+        }
+        // The limit between the current band and the target is at the current band's
+        // inner edge when moving closer and at its outer edge when moving away
+        if (target < band ? distance > limit(band - 1) * (1 - MARGIN)
+                : distance <= limit(band) * (1 + MARGIN)) {
+            return false;
+        }
+        band = target;
+        changedMs = nowMs;
+        changed = true;
+        return true;
+    }
+
+    public synchronized int get() {
+        return band;
+    }
+
+    /**
+     * Band of a distance without hysteresis
+     */
+    public static int band(double distance) {
+        if (distance <= NEAR_DISTANCE) {
+            return NEAR;
+        } else if (distance <= MEDIUM_DISTANCE) {
+            return MEDIUM;
+        } else if (distance <= FAR_DISTANCE) {
+            return FAR;
+        }
+        return OUT_OF_RANGE;
+    }
+
+    private static double limit(int band) {
+        switch (band) {
+            case NEAR:
+                return NEAR_DISTANCE;
+            case MEDIUM:
+                return MEDIUM_DISTANCE;
+            default:
+                return FAR_DISTANCE;
+        }
+    }
+}
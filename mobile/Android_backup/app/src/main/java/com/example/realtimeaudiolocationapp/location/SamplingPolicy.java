@@ -0,0 +1,195 @@
+package com.example.realtimeaudiolocationapp.location;
+
+/**
+ * Decides how often to ask for GPS fixes and which fixes to send.
+ * <p>
+ * Sampling: the interval is the time needed to drift a tolerated distance
+ * from the last fix at the current speed, so a parked car is sampled rarely
+ * and a car on the freeway often. The tolerance is tight while another
+ * member is within proximity range and loose otherwise, since then we only
+ * need to notice someone getting close. Low battery lengthens the interval,
+ * and the location priority drops from high accuracy to balanced or low
+ * power when precision matters less.
+ * Intervals are rounded down to a few fixed steps so the location request is
+ * only rebuilt when the policy really changes.
+ * <p>
+ * Sending (send-on-delta): a fix is sent only if it moved further than the
+ * send distance, and further than its own accuracy so GPS jitter while
+ * parked is not sent, or if nothing was sent for {@link #HEARTBEAT_MS}.
+ * <p>
+ * Plain Java with explicit times, so recorded traces can be replayed in tests.
+ */
+public class SamplingPolicy {
+    public static final int PRIORITY_HIGH_ACCURACY = 0;
+    public static final int PRIORITY_BALANCED = 1;
+    public static final int PRIORITY_LOW_POWER = 2;
+
+    /** A fix is sent at least this often even when standing still */
+    public static final long HEARTBEAT_MS = 60000;
+
+    /** Movement that triggers a send */
+    static final double SEND_DISTANCE = 50;
+    /** Movement that triggers a send while another member is within proximity range */
+    static final double NEARBY_SEND_DISTANCE = 10;
+    /** Distance travelled between fixes while nobody is within proximity range */
+    static final double TRACKING_TOLERANCE = 250;
+    /** Distance travelled between fixes while another member is within proximity range */
+    static final double NEARBY_TRACKING_TOLERANCE = 25;
+    static final long STATIONARY_INTERVAL_MS = 30000;
+    static final long NEARBY_STATIONARY_INTERVAL_MS = 15000;
+    /** Below this speed in m/s the device counts as standing still */
+    static final float STATIONARY_SPEED = 0.5f;
+    static final float LOW_BATTERY = 0.2f;
+    static final float CRITICAL_BATTERY = 0.1f;
+
+    // Allowed sampling intervals; the policy rounds down to one of these
+    private static final long[] INTERVAL_STEPS_MS = {2000, 3000, 5000, 10000, 15000, 30000, 60000};
+
+    private final double proximityRange;
+
+    private float batteryLevel = 1;
+    private boolean charging;
+    private double nearestMemberDistance = Double.POSITIVE_INFINITY;
+
+    private boolean hasFix;
+    private long lastFixTime;
+    private double lastFixLatitude;
+    private double lastFixLongitude;
+    private boolean hasSent;
+    private long lastSentTime;
+    private double lastSentLatitude;
+    private double lastSentLongitude;
+
+    private long intervalMs = 10000;
+    private int priority = PRIORITY_HIGH_ACCURACY;
+
+    private int fixCount;
+    private int sentCount;
+
+    /**
+     * @param proximityRange Distance in metres within which another member
+     *                       counts as nearby
+     */
+    public SamplingPolicy(double proximityRange) {
+        this.proximityRange = proximityRange;
+    }
+
+    /**
+     * @param level Remaining charge from 0 to 1
+     * @param charging Whether the device is plugged in
+     */
+    public void setBatteryState(float level, boolean charging) {
+        this.batteryLevel = level;
+        this.charging = charging;
+    }
+
+    /**
+     * @param metres Distance to the closest other member, or positive infinity if none is known
+     */
+    public void setNearestMemberDistance(double metres) {
+        this.nearestMemberDistance = metres;
+    }
+
+    /**
+     * Record a new fix and update the sampling interval and priority
+     * @param timeMs Fix time
+     * @param speed Ground speed in m/s, NaN if the fix has none
+     * @param accuracy Horizontal accuracy in metres, NaN if unknown
+     * @return True if the fix should be sent
+     */
+    public boolean onFix(long timeMs, double latitude, double longitude, float speed, float accuracy) {
+        fixCount++;
+        if (Float.isNaN(speed) && hasFix && timeMs > lastFixTime) {
+            // Estimate speed from the last fix
+            speed = (float) (distance(lastFixLatitude, lastFixLongitude, latitude, longitude)
+                    * 1000 / (timeMs - lastFixTime));
+        }
+        hasFix = true;
+        lastFixTime = timeMs;
+        lastFixLatitude = latitude;
+        lastFixLongitude = longitude;
+
+        boolean nearby = nearestMemberDistance <= proximityRange;
+        double sendDistance = nearby ? NEARBY_SEND_DISTANCE : SEND_DISTANCE;
+        updateSampling(Float.isNaN(speed) ? 0 : speed, nearby);
+
+        boolean send = !hasSent
+                || timeMs - lastSentTime >= HEARTBEAT_MS
+                || distance(lastSentLatitude, lastSentLongitude, latitude, longitude)
+                        > Math.max(sendDistance, Float.isNaN(accuracy) ? 0 : accuracy);
+        if (send) {
+            sentCount++;
+            hasSent = true;
+            lastSentTime = timeMs;
+            lastSentLatitude = latitude;
+            lastSentLongitude = longitude;
+        }
+        return send;
+    }
+
+    /**
+     * Interval to request fixes at; the fastest interval is half of it
+     */
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * One of the PRIORITY constants
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getFixCount() {
+        return fixCount;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    private void updateSampling(float speed, boolean nearby) {
+        long stationaryInterval = nearby ? NEARBY_STATIONARY_INTERVAL_MS : STATIONARY_INTERVAL_MS;
+        long interval;
+        int newPriority;
+        if (speed < STATIONARY_SPEED) {
+            interval = stationaryInterval;
+            newPriority = nearby ? PRIORITY_HIGH_ACCURACY : PRIORITY_BALANCED;
+        } else {
+            double tolerance = nearby ? NEARBY_TRACKING_TOLERANCE : TRACKING_TOLERANCE;
+            // Moving is never sampled less often than standing still
+            interval = Math.min(stationaryInterval, (long) (tolerance * 1000 / speed));
+            newPriority = PRIORITY_HIGH_ACCURACY;
+        }
+        if (!charging && batteryLevel <= CRITICAL_BATTERY) {
+            interval *= 4;
+            newPriority = PRIORITY_LOW_POWER;
+        } else if (!charging && batteryLevel <= LOW_BATTERY) {
+            interval *= 2;
+            newPriority = Math.max(newPriority, PRIORITY_BALANCED);
+        }
+        intervalMs = roundToStep(interval);
+        priority = newPriority;
+    }
+
+    private static long roundToStep(long interval) {
+        long step = INTERVAL_STEPS_MS[0];
+        for (long candidate : INTERVAL_STEPS_MS) {
+            if (candidate <= interval) {
+                step = candidate;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Flat-earth distance in metres, plenty for send thresholds of a few tens of metres
+     */
+    private static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double north = (latitude2 - latitude1) * SpatialGrid.METRES_PER_DEGREE;
+        double east = (longitude2 - longitude1) * SpatialGrid.METRES_PER_DEGREE
+                * Math.cos(Math.toRadians((latitude1 + latitude2) / 2));
+        return Math.sqrt(north * north + east * east);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.realtimeaudiolocationapp.location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform latitude/longitude grid of items, updated incrementally as items
+ * move, so a radius query only visits the cells around a point instead of
+ * every item. Cells are square in degrees; a query widens its longitude
+ * window by 1/cos(latitude) and wraps around the antimeridian.
+ * <p>
+ * Queries return candidates: every item within the radius is included, along
+ * with some outside it, so callers still measure the exact distance.
+ */
+public class SpatialGrid<T> {
+    /** Metres per degree of latitude, and of longitude at the equator */
+    static final double METRES_PER_DEGREE = 111320;
+
+    // Beyond this latitude a query window covers every longitude
+    private static final double POLAR_LATITUDE = 89.9;
+
+    private final double cellDegrees;
+    private final int columns;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final Map<T, Long> itemCells = new HashMap<>();
+
+    /**
+     * @param cellMetres Cell height in metres; the typical query radius is a good choice,
+     *                   so a query visits about 3 x 3 cells
+     */
+    public SpatialGrid(double cellMetres) {
+        if (!(cellMetres > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellMetres);
+        }
+        cellDegrees = Math.min(cellMetres / METRES_PER_DEGREE, 90);
+        columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Add an item or move it to a new position; an item that stays in its
+     * cell allocates nothing
+     */
+    public synchronized void update(T item, double latitude, double longitude) {
+        long key = cellKey(row(latitude), column(longitude));
+        Long oldKey = itemCells.get(item);
+        if (oldKey != null) {
+            if (oldKey == key) {
+                return;
+            }
+            removeFromCell(oldKey, item);
+        }
+        // Boxed once for both maps
+        Long newKey = key;
+        itemCells.put(item, newKey);
+        List<T> cell = cells.get(newKey);
+        if (cell == null) {
+            cell = new ArrayList<>(4);
+            cells.put(newKey, cell);
+        }
+        cell.add(item);
+    }
+
+    /**
+     * Remove an item; does nothing if it is not in the grid
+     */
+    public synchronized void remove(T item) {
+        Long key = itemCells.remove(item);
+        if (key != null) {
+            removeFromCell(key, item);
+        }
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        itemCells.clear();
+    }
+
+    public synchronized int size() {
+        return itemCells.size();
+    }
+
+    /**
+     * Collect the items in every cell that may hold a point within the radius
+     * @param latitude Query latitude in degrees
+     * @param longitude Query longitude in degrees
+     * @param radiusMetres Query radius
+     * @param out Receives the candidates; it is appended to, not cleared
+     * @return The number of candidates added
+     */
+    public synchronized int query(double latitude, double longitude, double radiusMetres, List<T> out) {
+        int start = out.size();
+        double latitudeSpan = radiusMetres / METRES_PER_DEGREE;
+        int firstRow = row(latitude - latitudeSpan);
+        int lastRow = row(latitude + latitudeSpan);
+
+        // The window is widest at its latitude furthest from the equator
+        double widestLatitude = Math.abs(latitude) + latitudeSpan;
+        int columnSpan;
+        if (widestLatitude >= POLAR_LATITUDE) {
+            columnSpan = columns;
+        } else {
+            double longitudeSpan = latitudeSpan / Math.cos(Math.toRadians(widestLatitude));
+            columnSpan = Math.min(columns, (int) Math.ceil(longitudeSpan / cellDegrees) * 2 + 1);
+        }
+        int firstColumn = columnSpan == columns ? 0 : column(longitude) - columnSpan / 2;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int i = 0; i < columnSpan; i++) {
+                List<T> cell = cells.get(cellKey(row, Math.floorMod(firstColumn + i, columns)));
+                if (cell != null) {
+                    out.addAll(cell);
+                }
+            }
+        }
+        return out.size() - start;
+    }
+
+    private void removeFromCell(Long key, T item) {
+        List<T> cell = cells.get(key);
+        if (cell != null && cell.remove(item) && cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private int row(double latitude) {
+        double clamped = Math.max(-90, Math.min(90, latitude));
+        return (int) Math.floor((clamped + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private static long cellKey(int row, int column) {
+        return (long) row << 32 | column;
+    }
+}
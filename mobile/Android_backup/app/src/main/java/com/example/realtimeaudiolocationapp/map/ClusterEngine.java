@@ -0,0 +1,138 @@
+package com.example.realtimeaudiolocationapp.map;
+
+import java.util.Arrays;
+
+/**
+ * Grid clustering of map points. Points are projected to Web Mercator, as
+ * the map draws them, and binned into square cells of {@link #CELL_PIXELS}
+ * screen pixels at the integer zoom level. Each occupied cell becomes one
+ * bucket in the {@link Clusters} result. A run is a single pass over the
+ * points with a primitive open-addressing table of cells, so it is linear
+ * in the number of points and allocates only the result.
+ * <p>
+ * Plain Java and meant to run off the main thread; one instance must not be
+ * used by several threads at once. Mean positions do not handle clusters
+ * straddling the antimeridian.
+ */
+public class ClusterEngine {
+    /** Width and height of a cluster cell on screen */
+    public static final int CELL_PIXELS = 80;
+    /** Zoom levels beyond this are clustered as this one */
+    public static final int MAX_ZOOM = 21;
+
+    private static final int TILE_PIXELS = 256;
+    private static final double MAX_LATITUDE = 85.05112878;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    // Open-addressing table from cell key to bucket index + 1; 0 marks a free slot
+    private long[] slotKeys = new long[0];
+    private int[] slotBuckets = new int[0];
+    private int slotShift;
+
+    // Buckets of the current run
+    private int size;
+    private long[] keys = new long[0];
+    private int[] counts = new int[0];
+    private double[] latitudeSums = new double[0];
+    private double[] longitudeSums = new double[0];
+    private int[] bands = new int[0];
+    private int[] points = new int[0];
+
+    /**
+     * Cluster points
+     * @param latitudes Latitude of each point
+     * @param longitudes Longitude of each point
+     * @param pointBands Proximity band of each point, lower is nearer
+     * @param count Number of points, read from the start of the arrays
+     * @param zoom Camera zoom; the fraction is ignored so the grid only changes at whole levels
+     */
+    public Clusters cluster(double[] latitudes, double[] longitudes, int[] pointBands, int count, float zoom) {
+        int level = Math.max(0, Math.min(MAX_ZOOM, (int) Math.floor(zoom)));
+        double cellsPerSide = (double) ((long) TILE_PIXELS << level) / CELL_PIXELS;
+        reset(count);
+
+        for (int i = 0; i < count; i++) {
+            double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitudes[i]));
+            double x = (longitudes[i] + 180) / 360;
+            double sin = Math.sin(Math.toRadians(latitude));
+            double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+            long cellX = (long) Math.floor(x * cellsPerSide);
+            long cellY = (long) Math.floor(y * cellsPerSide);
+            long key = (cellX << 32) | (cellY & 0xFFFFFFFFL);
+
+            int bucket = bucket(key);
+            counts[bucket]++;
+            latitudeSums[bucket] += latitudes[i];
+            longitudeSums[bucket] += longitudes[i];
+            bands[bucket] = Math.min(bands[bucket], pointBands[i]);
+            points[bucket] = counts[bucket] == 1 ? i : -1;
+        }
+
+        double[] meanLatitudes = new double[size];
+        double[] meanLongitudes = new double[size];
+        for (int b = 0; b < size; b++) {
+            meanLatitudes[b] = latitudeSums[b] / counts[b];
+            meanLongitudes[b] = longitudeSums[b] / counts[b];
+        }
+        return new Clusters(level, size, Arrays.copyOf(keys, size), Arrays.copyOf(counts, size),
+                meanLatitudes, meanLongitudes, Arrays.copyOf(bands, size), Arrays.copyOf(points, size));
+    }
+
+    private void reset(int count) {
+        // At most one bucket per point; keep the table at most half full
+        if (keys.length < count) {
+            int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, count - 1)) << 1);
+            keys = new long[capacity];
+            counts = new int[capacity];
+            latitudeSums = new double[capacity];
+            longitudeSums = new double[capacity];
+            bands = new int[capacity];
+            points = new int[capacity];
+            slotKeys = new long[capacity * 2];
+            slotBuckets = new int[capacity * 2];
+            slotShift = 64 - Integer.numberOfTrailingZeros(capacity * 2);
+        } else {
+            // Only the slots used by the previous run are set
+            for (int b = 0; b < size; b++) {
+                slotBuckets[slot(keys[b])] = 0;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Bucket of a cell, added if new
+     */
+    private int bucket(long key) {
+        int mask = slotBuckets.length - 1;
+        int slot = (int) ((key * HASH_MULTIPLIER) >>> slotShift);
+        while (slotBuckets[slot] != 0) {
+            if (slotKeys[slot] == key) {
+                return slotBuckets[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int bucket = size++;
+        slotKeys[slot] = key;
+        slotBuckets[slot] = bucket + 1;
+        keys[bucket] = key;
+        counts[bucket] = 0;
+        latitudeSums[bucket] = 0;
+        longitudeSums[bucket] = 0;
+        bands[bucket] = Integer.MAX_VALUE;
+        points[bucket] = -1;
+        return bucket;
+    }
+
+    /**
+     * Slot holding a cell of the current table
+     */
+    private int slot(long key) {
+        int mask = slotBuckets.length - 1;
+        int slot = (int) ((key * HASH_MULTIPLIER) >>> slotShift);
+        while (slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
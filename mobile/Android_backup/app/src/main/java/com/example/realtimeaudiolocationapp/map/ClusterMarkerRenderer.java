@@ -0,0 +1,255 @@
+package com.example.realtimeaudiolocationapp.map;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.example.realtimeaudiolocationapp.models.GroupMember;
+import com.example.realtimeaudiolocationapp.services.LocationService.ProximityLevel;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws large groups as one marker per {@link ClusterEngine} bucket. Member
+ * positions are predicted and clustered on a background thread; the main
+ * thread only copies the member list and applies the difference between the
+ * previous and the new buckets to the map, keyed by grid cell. At most one
+ * clustering run is in flight and runs start at most every
+ * {@link #MIN_INTERVAL_MS}; updates arriving meanwhile are folded into the
+ * next run. Buckets outside the {@link Viewport} get no marker. Call
+ * {@link #quit()} when the map goes away.
+ */
+public class ClusterMarkerRenderer {
+    /** Clustering runs do not start more often than this */
+    static final long MIN_INTERVAL_MS = 250;
+
+    private static class Entry {
+        final Marker marker;
+        final MarkerState state = new MarkerState();
+        GroupMember member;
+        int count;
+
+        Entry(Marker marker, GroupMember member, int count) {
+            this.marker = marker;
+            this.member = member;
+            this.count = count;
+        }
+    }
+
+    private final GoogleMap map;
+    private final Viewport viewport;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread clusterThread;
+    private final Handler clusterHandler;
+
+    // Main thread state
+    private final BitmapDescriptor[] icons = new BitmapDescriptor[ProximityLevel.values().length];
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private List<GroupMember> members;
+    private float zoom;
+    private boolean dirty;
+    private boolean scheduled;
+    private long lastStartMs = Long.MIN_VALUE / 2;
+    // Results of runs started before the last clear are dropped
+    private int generation;
+
+    // Clustering thread state
+    private final ClusterEngine engine = new ClusterEngine();
+    private final double[] predicted = new double[2];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+    private int[] bands = new int[0];
+
+    public ClusterMarkerRenderer(GoogleMap map, Viewport viewport) {
+        this.map = map;
+        this.viewport = viewport;
+        clusterThread = new HandlerThread("MapClustering", Process.THREAD_PRIORITY_BACKGROUND);
+        clusterThread.start();
+        clusterHandler = new Handler(clusterThread.getLooper());
+    }
+
+    /**
+     * Request the markers of the given members be brought up to date. The
+     * list is copied on the main thread when the next run starts.
+     * @param zoom Current camera zoom
+     */
+    public void update(List<GroupMember> members, float zoom) {
+        this.members = members;
+        this.zoom = zoom;
+        dirty = true;
+        schedule();
+    }
+
+    /**
+     * Remove all cluster markers and drop any run in flight
+     */
+    public void clear() {
+        if (members == null && entries.isEmpty()) {
+            return;
+        }
+        members = null;
+        dirty = false;
+        generation++;
+        for (Entry entry : entries.values()) {
+            entry.marker.remove();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Remove all cluster markers and stop the clustering thread
+     */
+    public void quit() {
+        clear();
+        mainHandler.removeCallbacks(startRun);
+        clusterThread.quitSafely();
+    }
+
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        long delay = Math.max(0, lastStartMs + MIN_INTERVAL_MS - SystemClock.uptimeMillis());
+        mainHandler.postDelayed(startRun, delay);
+    }
+
+    private final Runnable startRun = new Runnable() {
+        @Override
+        public void run() {
+            if (!dirty) {
+                scheduled = false;
+                return;
+            }
+            dirty = false;
+            lastStartMs = SystemClock.uptimeMillis();
+            final GroupMember[] snapshot = members.toArray(new GroupMember[0]);
+            final float runZoom = zoom;
+            final int runGeneration = generation;
+            clusterHandler.post(() -> {
+                GroupMember[] placed = new GroupMember[snapshot.length];
+                Clusters clusters = cluster(snapshot, placed, runZoom);
+                mainHandler.post(() -> finishRun(clusters, placed, runGeneration));
+            });
+        }
+    };
+
+    private void finishRun(Clusters clusters, GroupMember[] placed, int runGeneration) {
+        scheduled = false;
+        if (runGeneration == generation) {
+            apply(clusters, placed);
+        }
+        if (dirty) {
+            schedule();
+        }
+    }
+
+    /**
+     * Predict and cluster member positions; clustering thread only
+     * @param placed Receives the members with a position, in the order the result's point indices refer to
+     */
+    private Clusters cluster(GroupMember[] snapshot, GroupMember[] placed, float runZoom) {
+        if (latitudes.length < snapshot.length) {
+            latitudes = new double[snapshot.length];
+            longitudes = new double[snapshot.length];
+            bands = new int[snapshot.length];
+        }
+        long nowMs = SystemClock.elapsedRealtime();
+        int count = 0;
+        for (GroupMember member : snapshot) {
+            if (!member.getMotion().predict(nowMs, predicted)) {
+                continue;
+            }
+            latitudes[count] = predicted[0];
+            longitudes[count] = predicted[1];
+            bands[count] = member.getProximityBand().get();
+            placed[count] = member;
+            count++;
+        }
+        return engine.cluster(latitudes, longitudes, bands, count, runZoom);
+    }
+
+    /**
+     * Apply the difference to the drawn markers; main thread only
+     */
+    private void apply(Clusters clusters, GroupMember[] placed) {
+        Map<Long, Entry> previous = new HashMap<>(entries);
+        for (int i = 0; i < clusters.size(); i++) {
+            if (!viewport.contains(clusters.latitude(i), clusters.longitude(i))) {
+                // Left in previous, so a marker drawn for it is removed below
+                continue;
+            }
+            long key = clusters.key(i);
+            int count = clusters.count(i);
+            int band = clusters.band(i);
+            int point = clusters.point(i);
+            GroupMember member = point >= 0 ? placed[point] : null;
+
+            Entry entry = previous.remove(key);
+            if (entry == null) {
+                Marker marker = map.addMarker(new MarkerOptions()
+                        .position(new LatLng(clusters.latitude(i), clusters.longitude(i)))
+                        .title(title(member, count))
+                        .snippet(snippet(member))
+                        .icon(icon(band)));
+                entry = new Entry(marker, member, count);
+                entry.state.updatePosition(clusters.latitude(i), clusters.longitude(i));
+                entry.state.updateBand(band);
+                if (member != null) {
+                    entry.state.updateLabel(member.getDistance());
+                }
+                entries.put(key, entry);
+                continue;
+            }
+
+            if (entry.state.updatePosition(clusters.latitude(i), clusters.longitude(i))) {
+                entry.marker.setPosition(new LatLng(clusters.latitude(i), clusters.longitude(i)));
+            }
+            if (entry.state.updateBand(band)) {
+                entry.marker.setIcon(icon(band));
+            }
+            if (entry.member != member || entry.count != count) {
+                entry.member = member;
+                entry.count = count;
+                entry.marker.setTitle(title(member, count));
+                entry.marker.setSnippet(snippet(member));
+                if (member != null) {
+                    entry.state.updateLabel(member.getDistance());
+                }
+            } else if (member != null && entry.state.updateLabel(member.getDistance())) {
+                entry.marker.setSnippet(snippet(member));
+            }
+        }
+
+        // Cells that emptied or left the viewport
+        for (Map.Entry<Long, Entry> gone : previous.entrySet()) {
+            gone.getValue().marker.remove();
+            entries.remove(gone.getKey());
+        }
+    }
+
+    private BitmapDescriptor icon(int band) {
+        if (icons[band] == null) {
+            icons[band] = BitmapDescriptorFactory.defaultMarker(MemberMarkerRenderer.hue(band));
+        }
+        return icons[band];
+    }
+
+    private static String title(GroupMember member, int count) {
+        return member != null ? member.getName() : count + " members";
+    }
+
+    private static String snippet(GroupMember member) {
+        return member != null ? MemberMarkerRenderer.label(member.getDistance()) : null;
+    }
+}
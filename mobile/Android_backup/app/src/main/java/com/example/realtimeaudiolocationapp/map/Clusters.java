@@ -0,0 +1,66 @@
+package com.example.realtimeaudiolocationapp.map;
+
+/**
+ * Immutable result of one {@link ClusterEngine} run: one bucket per occupied
+ * grid cell, with the number of points in it, their mean position and the
+ * nearest proximity band among them. A bucket's key identifies its cell at
+ * this zoom, so successive results can be diffed by key.
+ */
+public final class Clusters {
+    /** Results from different zoom levels have unrelated keys */
+    public final int zoom;
+
+    private final int size;
+    private final long[] keys;
+    private final int[] counts;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] bands;
+    private final int[] points;
+
+    Clusters(int zoom, int size, long[] keys, int[] counts, double[] latitudes, double[] longitudes,
+             int[] bands, int[] points) {
+        this.zoom = zoom;
+        this.size = size;
+        this.keys = keys;
+        this.counts = counts;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.bands = bands;
+        this.points = points;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Grid cell of bucket i */
+    public long key(int i) {
+        return keys[i];
+    }
+
+    /** Number of points in bucket i */
+    public int count(int i) {
+        return counts[i];
+    }
+
+    /** Mean latitude of the points in bucket i */
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    /** Mean longitude of the points in bucket i */
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    /** Lowest, i.e. nearest, band of the points in bucket i */
+    public int band(int i) {
+        return bands[i];
+    }
+
+    /** Index of the only point in bucket i, or -1 if it holds several */
+    public int point(int i) {
+        return points[i];
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.realtimeaudiolocationapp.map;
+
+/**
+ * What was last drawn for one map marker, so a renderer only touches the
+ * marker when its position, proximity band or distance label would look
+ * different. Each update method records the new value and returns whether
+ * the marker has to be changed.
+ */
+public class MarkerState {
+    /** Smaller moves, about 10 cm, are not drawn */
+    static final double MIN_MOVE_DEGREES = 1e-6;
+
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private int band = -1;
+    private long labelTenths = Long.MIN_VALUE;
+
+    /**
+     * @return True if the marker has to be moved
+     */
+    public boolean updatePosition(double latitude, double longitude) {
+        if (Math.abs(latitude - this.latitude) < MIN_MOVE_DEGREES
+                && Math.abs(longitude - this.longitude) < MIN_MOVE_DEGREES) {
+            return false;
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+        return true;
+    }
+
+    /**
+     * @return True if the marker icon has to change
+     */
+    public boolean updateBand(int band) {
+        if (band == this.band) {
+            return false;
+        }
+        this.band = band;
+        return true;
+    }
+
+    /**
+     * @param distance Distance shown in the label with one decimal, in metres
+     * @return True if the label text has to change
+     */
+    public boolean updateLabel(float distance) {
+        long tenths = Math.round(distance * 10.0);
+        if (tenths == labelTenths) {
+            return false;
+        }
+        labelTenths = tenths;
+        return true;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.realtimeaudiolocationapp.map;
+
+import com.example.realtimeaudiolocationapp.models.GroupMember;
+import com.example.realtimeaudiolocationapp.services.LocationService.ProximityLevel;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Draws group members as map markers at their predicted positions. The last
+ * drawn state of every marker is kept in a {@link MarkerState}, so a render
+ * only calls into the map for markers whose position, proximity level or
+ * distance label changed. Marker icons are created once per proximity level,
+ * and positions are written at most once per display frame however often
+ * render is called. Members outside the {@link Viewport} have no marker and
+ * cost one position prediction per render. Main thread only.
+ */
+public class MemberMarkerRenderer {
+    /** Positions are not written more often than this */
+    static final long FRAME_MS = 16;
+
+    private static final ProximityLevel[] LEVELS = ProximityLevel.values();
+
+    private static class Entry {
+        final Marker marker;
+        final MarkerState state = new MarkerState();
+
+        Entry(Marker marker) {
+            this.marker = marker;
+        }
+    }
+
+    private final GoogleMap map;
+    private final Viewport viewport;
+    private final BitmapDescriptor[] icons = new BitmapDescriptor[LEVELS.length];
+    private final Map<GroupMember, Entry> entries = new HashMap<>();
+    private final double[] predicted = new double[2];
+    private long lastPositionsMs = Long.MIN_VALUE;
+
+    public MemberMarkerRenderer(GoogleMap map, Viewport viewport) {
+        this.map = map;
+        this.viewport = viewport;
+    }
+
+    /**
+     * Bring the markers of the given members up to date
+     * @param nowMs SystemClock.elapsedRealtime(), the clock of the members' motion models
+     */
+    public void render(List<GroupMember> members, long nowMs) {
+        boolean writePositions = nowMs - lastPositionsMs >= FRAME_MS;
+        if (writePositions) {
+            lastPositionsMs = nowMs;
+        }
+        for (int i = 0; i < members.size(); i++) {
+            GroupMember member = members.get(i);
+            if (!member.getMotion().predict(nowMs, predicted)) {
+                continue;
+            }
+            if (!viewport.contains(predicted[0], predicted[1])) {
+                Entry hidden = entries.remove(member);
+                if (hidden != null) {
+                    hidden.marker.remove();
+                }
+                continue;
+            }
+            int level = member.getProximityLevel().ordinal();
+            float distance = member.getDistance();
+
+            Entry entry = entries.get(member);
+            if (entry == null) {
+                Marker marker = map.addMarker(new MarkerOptions()
+                        .position(new LatLng(predicted[0], predicted[1]))
+                        .title(member.getName())
+                        .snippet(label(distance))
+                        .icon(icon(level)));
+                entry = new Entry(marker);
+                entry.state.updatePosition(predicted[0], predicted[1]);
+                entry.state.updateBand(level);
+                entry.state.updateLabel(distance);
+                entries.put(member, entry);
+                continue;
+            }
+
+            if (writePositions && entry.state.updatePosition(predicted[0], predicted[1])) {
+                entry.marker.setPosition(new LatLng(predicted[0], predicted[1]));
+            }
+            if (entry.state.updateBand(level)) {
+                entry.marker.setIcon(icon(level));
+            }
+            if (entry.state.updateLabel(distance)) {
+                entry.marker.setSnippet(label(distance));
+            }
+        }
+    }
+
+    /**
+     * Remove all member markers
+     */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            entry.marker.remove();
+        }
+        entries.clear();
+    }
+
+    private BitmapDescriptor icon(int level) {
+        if (icons[level] == null) {
+            icons[level] = BitmapDescriptorFactory.defaultMarker(hue(level));
+        }
+        return icons[level];
+    }
+
+    /**
+     * Marker colour of a proximity level
+     */
+    static float hue(int level) {
+        switch (LEVELS[level]) {
+            case NEAR:
+                return BitmapDescriptorFactory.HUE_RED;
+            case MEDIUM:
+                return BitmapDescriptorFactory.HUE_YELLOW;
+            case FAR:
+                return BitmapDescriptorFactory.HUE_GREEN;
+            default:
+                return BitmapDescriptorFactory.HUE_ORANGE;
+        }
+    }
+
+    static String label(float distance) {
+        return String.format(Locale.getDefault(), "%.1f meters away", distance);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.realtimeaudiolocationapp.map;
+
+/**
+ * The part of the map worth drawing markers in: the visible camera bounds
+ * grown by {@link #MARGIN} of their size on every side, so markers just off
+ * screen are already there when a pan starts. Bounds crossing the
+ * antimeridian are supported. Until the first {@link #set} everything is
+ * inside. Main thread only.
+ */
+public class Viewport {
+    /** Share of the visible width and height added on each side */
+    static final double MARGIN = 0.25;
+
+    private boolean bounded;
+    private double south;
+    private double north;
+    private double west;
+    private double width;
+
+    /**
+     * Update to the visible bounds of the camera
+     * @param west Longitude of the left edge, greater than east when the bounds cross the antimeridian
+     * @param east Longitude of the right edge
+     */
+    public void set(double south, double west, double north, double east) {
+        double span = east - west;
+        if (span < 0) {
+            span += 360;
+        }
+        double latitudeMargin = (north - south) * MARGIN;
+        double longitudeMargin = span * MARGIN;
+        this.south = south - latitudeMargin;
+        this.north = north + latitudeMargin;
+        this.west = west - longitudeMargin;
+        this.width = span + 2 * longitudeMargin;
+        bounded = true;
+    }
+
+    /**
+     * Back to everything inside
+     */
+    public void reset() {
+        bounded = false;
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (!bounded) {
+            return true;
+        }
+        if (latitude < south || latitude > north) {
+            return false;
+        }
+        if (width >= 360) {
+            return true;
+        }
+        double offset = (longitude - west) % 360;
+        if (offset < 0) {
+            offset += 360;
+        }
+        return offset <= width;
+    }
+}
@@ -2,17 +2,30 @@ package com.example.realtimeaudiolocationapp.models;
 
 import android.location.Location;
 
+import com.example.realtimeaudiolocationapp.location.MemberPosition;
+import com.example.realtimeaudiolocationapp.location.MotionModel;
+import com.example.realtimeaudiolocationapp.location.ProximityBand;
 import com.example.realtimeaudiolocationapp.services.LocationService.ProximityLevel;
 
 /**
- * Model class representing a group member with location information
+ * Model class representing a group member with location information.
+ * Position, motion and proximity band guard their own state; distance,
+ * proximity level and slot are volatile, so readers on other threads see
+ * each one's latest value but not a consistent set of them.
  */
 public class GroupMember {
     private String id;
     private String name;
+    private final MemberPosition position = new MemberPosition();
+    // Built from the position on demand, for callers that need a Location
     private Location location;
-    private float distance;
-    private ProximityLevel proximityLevel;
+    private long locationVersion;
+    // Written on the location thread, read on the main thread
+    private volatile float distance;
+    private volatile ProximityLevel proximityLevel;
+    private volatile int positionSlot = -1;
+    private final MotionModel motion = new MotionModel();
+    private final ProximityBand proximityBand = new ProximityBand();
     
     public GroupMember(String id, String name) {
         this.id = id;
@@ -28,12 +41,49 @@ public class GroupMember {
         return name;
     }
     
+    /**
+     * Last reported position, updated in place by each location message
+     */
+    public MemberPosition getPosition() {
+        return position;
+    }
+    
+    /**
+     * Last reported position as a Location, created only when the position changed
+     * since the previous call; null before the first location. Prefer {@link #getPosition()}.
+     */
     public Location getLocation() {
-        return location;
+        synchronized (position) {
+            if (!position.hasFix()) {
+                return null;
+            }
+            if (location == null || locationVersion != position.getVersion()) {
+                Location built = new Location("server");
+                built.setLatitude(position.getLatitude());
+                built.setLongitude(position.getLongitude());
+                if (!Float.isNaN(position.getAccuracy())) {
+                    built.setAccuracy(position.getAccuracy());
+                }
+                if (!Float.isNaN(position.getSpeed())) {
+                    built.setSpeed(position.getSpeed());
+                }
+                if (!Float.isNaN(position.getBearing())) {
+                    built.setBearing(position.getBearing());
+                }
+                built.setTime(position.getTimeMs());
+                location = built;
+                locationVersion = position.getVersion();
+            }
+            return location;
+        }
     }
     
-    public void setLocation(Location location) {
-        this.location = location;
+    /**
+     * Dead reckoning of this member between location updates; read positions
+     * for display and proximity from here rather than from the last location
+     */
+    public MotionModel getMotion() {
+        return motion;
     }
     
     public float getDistance() {
@@ -51,4 +101,23 @@ public class GroupMember {
     public void setProximityLevel(ProximityLevel proximityLevel) {
         this.proximityLevel = proximityLevel;
     }
+    
+    /**
+     * Proximity band with hysteresis that decides when the proximity level changes
+     */
+    public ProximityBand getProximityBand() {
+        return proximityBand;
+    }
+    
+    /**
+     * Slot holding this member's position in LocationService's distance engine,
+     * or -1 before its first location
+     */
+    public int getPositionSlot() {
+        return positionSlot;
+    }
+    
+    public void setPositionSlot(int positionSlot) {
+        this.positionSlot = positionSlot;
+    }
 }
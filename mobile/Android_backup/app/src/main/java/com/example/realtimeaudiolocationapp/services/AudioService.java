@@ -18,6 +18,8 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -25,6 +27,18 @@ import androidx.core.app.NotificationCompat;
 
 import com.example.realtimeaudiolocationapp.R;
 import com.example.realtimeaudiolocationapp.activities.MainActivity;
+import com.example.realtimeaudiolocationapp.audio.AudioCaptureLoop;
+import com.example.realtimeaudiolocationapp.audio.ComfortNoiseGenerator;
+import com.example.realtimeaudiolocationapp.audio.AudioFrameHeader;
+import com.example.realtimeaudiolocationapp.audio.AudioFramePool;
+import com.example.realtimeaudiolocationapp.audio.AudioMixer;
+import com.example.realtimeaudiolocationapp.audio.AudioPacketizer;
+import com.example.realtimeaudiolocationapp.audio.AudioReceiver;
+import com.example.realtimeaudiolocationapp.audio.JitterBuffer;
+import com.example.realtimeaudiolocationapp.audio.PacketLossConcealer;
+import com.example.realtimeaudiolocationapp.audio.Resampler;
+import com.example.realtimeaudiolocationapp.audio.VoiceActivityDetector;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodecs;
 
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
@@ -32,10 +46,13 @@ import org.java_websocket.handshake.ServerHandshake;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
+import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public class AudioService extends Service {
     private static final String TAG = "AudioService";
@@ -47,9 +64,35 @@ public class AudioService extends Service {
     private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
     private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
     private static final int BUFFER_SIZE = AudioRecord.getMinBufferSize(SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT);
+    private static final int FRAME_POOL_SIZE = 4;
+    
+    // Every packet carries exactly one frame: 10 ms for lower latency, 40 ms for less
+    // overhead. All devices in a deployment must use the same duration.
+    private static final int FRAME_DURATION_MS = 20;
+    // Read one frame's worth per iteration so capture latency does not depend on the device
+    private static final int CAPTURE_SAMPLES = SAMPLE_RATE * FRAME_DURATION_MS / 1000;
+    private static final int RECORD_BUFFER_SIZE = Math.max(BUFFER_SIZE, CAPTURE_SAMPLES * 2 * 4);
+    
+    // Voice is resampled to 16 kHz and compressed before it goes on the wire
+    private static final int VOICE_SAMPLE_RATE = 16000;
+    private static final int VOICE_CODEC = AudioFrameHeader.CODEC_IMA_ADPCM;
+    private static final int FRAME_SAMPLES = VOICE_SAMPLE_RATE * FRAME_DURATION_MS / 1000;
+    private static final int MAX_FRAME_SAMPLES = VOICE_SAMPLE_RATE / 10;
+    // Playout runs at the voice rate, so the track is sized for it rather than for recording
+    private static final int PLAYOUT_BUFFER_SIZE = AudioTrack.getMinBufferSize(
+            VOICE_SAMPLE_RATE, AudioFormat.CHANNEL_OUT_MONO, AUDIO_FORMAT);
+    // Each packet also carries a half-rate copy of the previous frame, about 50% more bandwidth
+    private static final boolean SEND_REDUNDANCY = true;
+    
+    // Playback configuration
+    private static final int MAX_SPEAKERS = 8;
+    private static final int PLAYBACK_POOL_SIZE = 32;
+    private static final int MIN_JITTER_DEPTH = 2;
+    private static final int MAX_JITTER_DEPTH = 15;
+    private static final long SPEAKER_IDLE_TIMEOUT_MS = 2000;
     
     // Service state
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
     private boolean isConnected = false;
     private boolean isMicrophoneMuted = false;
     private boolean isSpeakerMuted = false;
@@ -57,9 +100,28 @@ public class AudioService extends Service {
     
     // Audio components
     private AudioRecord audioRecord;
-    private AudioTrack audioTrack;
+    // Read on the playout thread
+    private volatile AudioTrack audioTrack;
     private ExecutorService audioExecutor;
     private WebSocketClient webSocketClient;
+    private final AudioFramePool framePool = new AudioFramePool(FRAME_POOL_SIZE,
+            FRAME_SAMPLES * 2 + AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD);
+    
+    // Receive path: decoded frames wait in the jitter buffer for the playout thread.
+    // Headroom lets frames up to 100 ms decode without reallocating.
+    private final AudioFramePool playbackPool = new AudioFramePool(PLAYBACK_POOL_SIZE, MAX_FRAME_SAMPLES * 2);
+    private final JitterBuffer jitterBuffer = new JitterBuffer(playbackPool, FRAME_DURATION_MS,
+            MIN_JITTER_DEPTH, MAX_JITTER_DEPTH, MAX_SPEAKERS, SPEAKER_IDLE_TIMEOUT_MS);
+    // Senders suppress silence; their gaps are filled with noise at the announced level
+    private final ComfortNoiseGenerator comfortNoise = new ComfortNoiseGenerator(MAX_SPEAKERS, SPEAKER_IDLE_TIMEOUT_MS);
+    // All speakers are summed into one frame per playout tick
+    private final AudioMixer mixer = new AudioMixer(MAX_SPEAKERS, MAX_FRAME_SAMPLES);
+    private final int localSsrc = new SecureRandom().nextInt();
+    // Lost frames are concealed or recovered from the redundant copy in the next packet
+    private final AudioReceiver audioReceiver = new AudioReceiver(SecurityManager.getInstance(), playbackPool,
+            jitterBuffer, mixer, comfortNoise, new PacketLossConcealer(VOICE_SAMPLE_RATE, MAX_SPEAKERS),
+            VOICE_SAMPLE_RATE, FRAME_SAMPLES, localSsrc);
+    private Thread playoutThread;
     
     // Binder for client communication
     private final IBinder binder = new AudioServiceBinder();
@@ -190,7 +252,7 @@ public class AudioService extends Service {
                 SAMPLE_RATE,
                 CHANNEL_CONFIG,
                 AUDIO_FORMAT,
-                BUFFER_SIZE
+                RECORD_BUFFER_SIZE
         );
         
         // Initialize audio player
@@ -200,16 +262,20 @@ public class AudioService extends Service {
                         .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
                         .build())
                 .setAudioFormat(new AudioFormat.Builder()
-                        .setSampleRate(SAMPLE_RATE)
+                        .setSampleRate(VOICE_SAMPLE_RATE)
                         .setEncoding(AUDIO_FORMAT)
                         .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
                         .build())
-                .setBufferSizeInBytes(BUFFER_SIZE)
+                .setBufferSizeInBytes(PLAYOUT_BUFFER_SIZE)
                 .build();
         
         audioTrack.setVolume(currentVolume);
         audioTrack.play();
         
+        // Start playout thread
+        playoutThread = new Thread(this::playoutAudio, "AudioPlayout");
+        playoutThread.start();
+        
         // Start recording thread
         audioExecutor.execute(this::recordAudio);
     }
@@ -220,6 +286,28 @@ public class AudioService extends Service {
     private void stopAudioStreaming() {
         isRunning = false;
         
+        // Stopping the track returns a blocked write and the interrupt ends the wait for the
+        // next tick; the track is only released once the playout thread has exited, so it
+        // can neither write to a released track nor outlive a restart
+        if (audioTrack != null) {
+            audioTrack.stop();
+        }
+        if (playoutThread != null) {
+            playoutThread.interrupt();
+            boolean interrupted = false;
+            while (playoutThread.isAlive()) {
+                try {
+                    playoutThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            playoutThread = null;
+        }
+        
         if (audioRecord != null) {
             if (audioRecord.getState() == AudioRecord.STATE_INITIALIZED) {
                 audioRecord.stop();
@@ -229,7 +317,6 @@ public class AudioService extends Service {
         }
         
         if (audioTrack != null) {
-            audioTrack.stop();
             audioTrack.release();
             audioTrack = null;
         }
@@ -245,38 +332,91 @@ public class AudioService extends Service {
         }
         
         audioRecord.startRecording();
-        byte[] buffer = new byte[BUFFER_SIZE];
+        
+        // Frames come from the pool and go back after each send, so steady-state
+        // capture allocates no buffers. The WebSocket client copies the payload
+        // into its own frame before send() returns.
+        AudioRecord recorder = audioRecord;
+        Resampler resampler = new Resampler(SAMPLE_RATE, VOICE_SAMPLE_RATE, CAPTURE_SAMPLES);
+        AudioPacketizer packetizer = new AudioPacketizer(VOICE_SAMPLE_RATE, FRAME_DURATION_MS,
+                resampler.getMaxOutputSamples(CAPTURE_SAMPLES));
+        AudioCaptureLoop captureLoop = new AudioCaptureLoop(
+                recorder::read,
+                new AudioCaptureLoop.Sink() {
+                    @Override
+                    public boolean isOpen() {
+                        WebSocketClient client = webSocketClient;
+                        return client != null && client.isOpen();
+                    }
+                    
+                    @Override
+                    public void send(ByteBuffer frame) {
+                        WebSocketClient client = webSocketClient;
+                        if (client != null) {
+                            client.send(frame);
+                        }
+                    }
+                },
+                framePool,
+                SecurityManager.getInstance(),
+                resampler,
+                packetizer,
+                VoiceCodecs.create(VOICE_CODEC, VOICE_SAMPLE_RATE),
+                CAPTURE_SAMPLES,
+                localSsrc
+        );
+        // Silent frames are not sent; receivers play comfort noise instead
+        captureLoop.setVoiceActivityDetector(new VoiceActivityDetector(FRAME_DURATION_MS));
+        captureLoop.setRedundancyEnabled(SEND_REDUNDANCY);
         
         while (isRunning && isConnected) {
-            int bytesRead = audioRecord.read(buffer, 0, buffer.length);
-            
-            if (bytesRead > 0 && !isMicrophoneMuted && webSocketClient != null && webSocketClient.isOpen()) {
-                // Encrypt audio data before sending
-                byte[] encryptedData = SecurityManager.getInstance().encryptAudioData(buffer, bytesRead);
-                if (encryptedData != null) {
-                    webSocketClient.send(ByteBuffer.wrap(encryptedData));
-                }
+            if (!captureLoop.processFrame(isMicrophoneMuted)) {
+                Log.e(TAG, "AudioRecord read failed");
+                break;
             }
         }
     }
     
     /**
-     * Play received audio data
+     * Queue received audio data for playout. Runs on the WebSocket thread,
+     * so it only decrypts and decodes into a pooled frame and never touches the AudioTrack.
      * @param bytes Audio data buffer
      */
     private void playAudio(ByteBuffer bytes) {
-        if (audioTrack == null || !isRunning) {
-            return;
+        if (isRunning) {
+            audioReceiver.receive(bytes, SystemClock.elapsedRealtime());
         }
+    }
+    
+    /**
+     * Mix all speakers once per frame interval and write one frame to the AudioTrack.
+     * Runs on its own high-priority thread so blocking writes cannot stall the network.
+     */
+    private void playoutAudio() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
         
-        // Decrypt audio data before playing
-        byte[] encryptedData = new byte[bytes.remaining()];
-        bytes.get(encryptedData);
-        byte[] decryptedData = SecurityManager.getInstance().decryptAudioData(encryptedData);
+        short[] mixedSamples = new short[MAX_FRAME_SAMPLES];
+        long frameNanos = TimeUnit.MILLISECONDS.toNanos(FRAME_DURATION_MS);
+        long nextTick = System.nanoTime();
         
-        if (decryptedData != null) {
-            audioTrack.write(decryptedData, 0, decryptedData.length);
+        while (isRunning) {
+            int samples = audioReceiver.playoutTick(SystemClock.elapsedRealtime(), mixedSamples, 0);
+            AudioTrack track = audioTrack;
+            if (samples > 0 && track != null) {
+                track.write(mixedSamples, 0, samples, AudioTrack.WRITE_BLOCKING);
+            }
+            
+            nextTick += frameNanos;
+            long delay = nextTick - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            } else if (-delay > frameNanos) {
+                // Fell more than a frame behind: resynchronise instead of bursting
+                nextTick = System.nanoTime();
+            }
         }
+        
+        jitterBuffer.clear();
     }
     
     /**
@@ -311,6 +451,17 @@ public class AudioService extends Service {
         notifyAudioStateChanged();
     }
     
+    /**
+     * Set the playback gain of one remote speaker
+     * @param ssrc Sender id from the audio frame header
+     * @param gain Linear gain (0.0 to 4.0, 1.0 leaves the speaker unchanged)
+     */
+    public void setSpeakerGain(int ssrc, float gain) {
+        if (!mixer.setGain(ssrc, gain)) {
+            Log.w(TAG, "Too many speakers with custom gain");
+        }
+    }
+    
     /**
      * Share music from a local file
      * @param filePath Path to the music file
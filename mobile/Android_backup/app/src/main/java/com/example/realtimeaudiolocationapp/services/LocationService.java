@@ -6,17 +6,24 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.media.AudioAttributes;
 import android.media.SoundPool;
+import android.os.BatteryManager;
 import android.os.Binder;
 import android.os.Build;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -26,7 +33,19 @@ import androidx.core.app.NotificationCompat;
 
 import com.example.realtimeaudiolocationapp.R;
 import com.example.realtimeaudiolocationapp.activities.MainActivity;
+import com.example.realtimeaudiolocationapp.location.DistanceEngine;
+import com.example.realtimeaudiolocationapp.location.LocationJsonParser;
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.location.MemberDirectory;
+import com.example.realtimeaudiolocationapp.location.MotionModel;
+import com.example.realtimeaudiolocationapp.location.PositionFilter;
+import com.example.realtimeaudiolocationapp.location.ProximityBand;
+import com.example.realtimeaudiolocationapp.location.SamplingPolicy;
+import com.example.realtimeaudiolocationapp.location.SpatialGrid;
 import com.example.realtimeaudiolocationapp.models.GroupMember;
+import com.example.realtimeaudiolocationapp.util.EventCoalescer;
+import com.example.realtimeaudiolocationapp.util.SnapshotStore;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -34,13 +53,11 @@ import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -48,43 +65,84 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
+import okio.ByteString;
 
 public class LocationService extends Service {
     private static final String TAG = "LocationService";
     private static final String CHANNEL_ID = "LocationServiceChannel";
     private static final int NOTIFICATION_ID = 2;
     
-    // Location update intervals
-    private static final long UPDATE_INTERVAL_MS = 10000; // 10 seconds
-    private static final long FASTEST_UPDATE_INTERVAL_MS = 5000; // 5 seconds
-    
+    // One display frame at 60 Hz
+    private static final long DISPATCH_INTERVAL_MS = 16;
     // Proximity thresholds (in meters)
-    private static final int PROXIMITY_NEAR = 100;
-    private static final int PROXIMITY_MEDIUM = 300;
-    private static final int PROXIMITY_FAR = 1000;
+    private static final int PROXIMITY_MEDIUM = ProximityBand.MEDIUM_DISTANCE;
+    private static final int PROXIMITY_FAR = ProximityBand.FAR_DISTANCE;
+    // ProximityBand numbers its bands in this order
+    private static final ProximityLevel[] PROXIMITY_LEVELS = ProximityLevel.values();
+    
+    // Our member message is repeated every this many location updates for late joiners
+    private static final int MEMBER_ANNOUNCE_INTERVAL = 12;
     
     // Service state
-    private boolean isRunning = false;
-    private boolean isConnected = false;
-    private boolean isTrackingEnabled = true;
+    private volatile boolean isRunning = false;
+    private volatile boolean isConnected = false;
+    private volatile boolean isTrackingEnabled = true;
     private int proximityThreshold = PROXIMITY_MEDIUM;
-    private boolean notificationsEnabled = true;
+    private volatile boolean notificationsEnabled = true;
     
     // Location components
     private FusedLocationProviderClient fusedLocationClient;
-    private LocationRequest locationRequest;
+    private volatile LocationRequest locationRequest;
     private LocationCallback locationCallback;
-    private Location currentLocation;
+    private volatile Location currentLocation;
+    // Smooths our own fixes and drops multipath outliers before they are used or sent
+    private final PositionFilter positionFilter = new PositionFilter();
+    
+    // Adapts the GPS interval and priority and decides which fixes are sent
+    private final SamplingPolicy samplingPolicy = new SamplingPolicy(PROXIMITY_FAR);
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            int plugged = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0);
+            if (level >= 0 && scale > 0) {
+                samplingPolicy.setBatteryState(level / (float) scale, plugged != 0);
+            }
+        }
+    };
     
     // WebSocket for location data
     private OkHttpClient client;
-    private WebSocket webSocket;
-    
-    // Group members and their locations
-    private final Map<String, GroupMember> groupMembers = new HashMap<>();
+    private volatile WebSocket webSocket;
+    
+    // Group members and their locations, written only on the location thread; other threads read snapshots
+    private final SnapshotStore<String, GroupMember> groupMembers = new SnapshotStore<>();
+    private MemberDirectory memberDirectory;
+    
+    // Members indexed by position, so proximity checks only visit nearby cells
+    private final SpatialGrid<GroupMember> memberGrid = new SpatialGrid<>(PROXIMITY_FAR);
+    private final Set<GroupMember> membersInRange = new HashSet<>();
+    private final List<GroupMember> proximityCandidates = new ArrayList<>();
+    private final double[] predictedPosition = new double[2];
+    
+    // Member positions for batched distance computation
+    private final DistanceEngine distanceEngine = new DistanceEngine();
+    private int[] candidateSlots = new int[64];
+    private float[] candidateDistances = new float[64];
+    
+    // Binary location messages; received on the location thread, sent from it and the WebSocket thread
+    private final ByteBuffer sendMessage = ByteBuffer.allocate(LocationWireFormat.MAX_MEMBER_SIZE);
+    private final ByteBuffer sendFrame = ByteBuffer.allocate(
+            LocationWireFormat.MAX_MEMBER_SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD);
+    private final LocationUpdate sendUpdate = new LocationUpdate();
+    private final ByteBuffer receiveMessage = ByteBuffer.allocate(LocationWireFormat.MAX_MEMBER_SIZE);
+    private final LocationUpdate receiveUpdate = new LocationUpdate();
+    private final LocationJsonParser jsonParser = new LocationJsonParser();
+    private int updatesSinceAnnounce;
     
     // Sound effects for proximity alerts
-    private SoundPool soundPool;
+    private volatile SoundPool soundPool;
     private int soundNear;
     private int soundMedium;
     private int soundFar;
@@ -98,25 +156,51 @@ public class LocationService extends Service {
     // Handler for main thread callbacks
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
+    // Fixes are filtered, checked for proximity, encoded, encrypted and sent on this thread, and
+    // received member locations are applied on it; it owns the sampling policy, location request,
+    // member grid, distance engine and proximity bands, so the main thread only gets listener events
+    private HandlerThread locationThread;
+    private Handler locationHandler;
+    
+    // Frequent events reach listeners at most once per dispatch interval, with only what changed
+    private final EventCoalescer.Scheduler mainScheduler = mainHandler::postDelayed;
+    private final EventCoalescer<Location> locationEvents = new EventCoalescer<>(
+            mainScheduler, DISPATCH_INTERVAL_MS, true, this::dispatchLocationChanged);
+    private final EventCoalescer<GroupMember> memberEvents = new EventCoalescer<>(
+            mainScheduler, DISPATCH_INTERVAL_MS, false, this::dispatchGroupMembersChanged);
+    private final EventCoalescer<GroupMember> proximityEvents = new EventCoalescer<>(
+            mainScheduler, DISPATCH_INTERVAL_MS, false, this::dispatchProximityChanged);
+    
     @Override
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
         
+        locationThread = new HandlerThread("LocationFixes", Process.THREAD_PRIORITY_BACKGROUND);
+        locationThread.start();
+        locationHandler = new Handler(locationThread.getLooper());
+        
         // Initialize location client
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         
         // Create location request
-        locationRequest = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, UPDATE_INTERVAL_MS)
-                .setMinUpdateIntervalMillis(FASTEST_UPDATE_INTERVAL_MS)
-                .build();
+        locationRequest = buildLocationRequest();
+        
+        // Battery state feeds the sampling policy; the sticky broadcast delivers the current state at once
+        registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED), null, locationHandler);
         
         // Initialize location callback
         locationCallback = new LocationCallback() {
             @Override
             public void onLocationResult(@NonNull LocationResult locationResult) {
                 if (locationResult.getLastLocation() != null) {
-                    onNewLocation(locationResult.getLastLocation());
+                    // Shows per fix time and thread in a system trace
+                    Trace.beginSection("LocationService.onNewLocation");
+                    try {
+                        onNewLocation(locationResult.getLastLocation());
+                    } finally {
+                        Trace.endSection();
+                    }
                 }
             }
         };
@@ -158,7 +242,10 @@ public class LocationService extends Service {
     @Override
     public void onDestroy() {
         stopLocationUpdates();
+        unregisterReceiver(batteryReceiver);
         disconnectWebSocket();
+        // Fixes already queued are processed before the thread ends
+        locationThread.quitSafely();
         if (soundPool != null) {
             soundPool.release();
             soundPool = null;
@@ -179,7 +266,7 @@ public class LocationService extends Service {
         
         // Request location updates
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, locationThread.getLooper());
             updateNotification();
             notifyTrackingStateChanged();
         }
@@ -194,6 +281,8 @@ public class LocationService extends Service {
         }
         
         stopLocationUpdates();
+        // The filter belongs to the location thread
+        locationHandler.post(positionFilter::reset);
         isTrackingEnabled = false;
         updateNotification();
         notifyTrackingStateChanged();
@@ -207,6 +296,42 @@ public class LocationService extends Service {
         fusedLocationClient.removeLocationUpdates(locationCallback);
     }
     
+    /**
+     * Location request for the sampling policy's current interval and priority
+     */
+    private LocationRequest buildLocationRequest() {
+        long interval = samplingPolicy.getIntervalMs();
+        return new LocationRequest.Builder(toLocationPriority(samplingPolicy.getPriority()), interval)
+                .setMinUpdateIntervalMillis(interval / 2)
+                .build();
+    }
+    
+    /**
+     * Re-request location updates if the sampling policy changed its interval or priority
+     */
+    private void updateLocationRequest() {
+        if (samplingPolicy.getIntervalMs() == locationRequest.getIntervalMillis()
+                && toLocationPriority(samplingPolicy.getPriority()) == locationRequest.getPriority()) {
+            return;
+        }
+        locationRequest = buildLocationRequest();
+        if (isRunning && ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            // Requesting again with the same callback replaces the previous request
+            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, locationThread.getLooper());
+        }
+    }
+    
+    private static int toLocationPriority(int samplingPriority) {
+        switch (samplingPriority) {
+            case SamplingPolicy.PRIORITY_LOW_POWER:
+                return Priority.PRIORITY_LOW_POWER;
+            case SamplingPolicy.PRIORITY_BALANCED:
+                return Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            default:
+                return Priority.PRIORITY_HIGH_ACCURACY;
+        }
+    }
+    
     /**
      * Connect to location server
      * @param serverUrl WebSocket server URL
@@ -216,6 +341,9 @@ public class LocationService extends Service {
             return;
         }
         
+        AuthenticationManager auth = AuthenticationManager.getInstance();
+        memberDirectory = new MemberDirectory(auth.getUserId(), auth.getUserName());
+        
         // Create WebSocket request
         Request request = new Request.Builder()
                 .url(serverUrl)
@@ -227,25 +355,20 @@ public class LocationService extends Service {
             public void onOpen(@NonNull okhttp3.WebSocket webSocket, @NonNull Response response) {
                 Log.d(TAG, "WebSocket connection opened");
                 isConnected = true;
+                sendMemberAnnouncement();
                 notifyConnectionStateChanged();
                 startTracking();
             }
             
+            @Override
+            public void onMessage(@NonNull okhttp3.WebSocket webSocket, @NonNull ByteString bytes) {
+                // Members are updated on the location thread, which owns the grid and the distances
+                locationHandler.post(() -> onBinaryMessage(bytes.asByteBuffer()));
+            }
+            
             @Override
             public void onMessage(@NonNull okhttp3.WebSocket webSocket, @NonNull String text) {
-                try {
-                    // Parse location data from other group members
-                    JSONObject json = new JSONObject(text);
-                    String memberId = json.getString("id");
-                    String memberName = json.getString("name");
-                    double latitude = json.getDouble("latitude");
-                    double longitude = json.getDouble("longitude");
-                    
-                    // Update group member location
-                    updateGroupMemberLocation(memberId, memberName, latitude, longitude);
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error parsing location data: " + e.getMessage());
-                }
+                locationHandler.post(() -> onTextMessage(text));
             }
             
             @Override
@@ -292,43 +415,134 @@ public class LocationService extends Service {
      * @param location New location
      */
     private void onNewLocation(Location location) {
+        if (!positionFilter.update(location.getElapsedRealtimeNanos() / 1000000, location.getLatitude(),
+                location.getLongitude(), location.hasAccuracy() ? location.getAccuracy() : Float.NaN)) {
+            Log.d(TAG, "Dropped outlying fix, accuracy " + location.getAccuracy());
+            return;
+        }
+        // The Location object is ours, so it is updated in place
+        location.setLatitude(positionFilter.getLatitude());
+        location.setLongitude(positionFilter.getLongitude());
+        location.setAccuracy(positionFilter.getAccuracy());
         currentLocation = location;
         
         // Send location to server if connected
         if (isConnected && webSocket != null && isTrackingEnabled) {
-            try {
-                // Create location JSON
-                JSONObject locationJson = new JSONObject();
-                locationJson.put("id", AuthenticationManager.getInstance().getUserId());
-                locationJson.put("name", AuthenticationManager.getInstance().getUserName());
-                locationJson.put("latitude", location.getLatitude());
-                locationJson.put("longitude", location.getLongitude());
-                
-                // Encrypt location data
-                String encryptedData = SecurityManager.getInstance().encryptMessage(locationJson.toString());
-                
-                // Send to server
-                webSocket.send(encryptedData);
-                
-                // Check proximity to other group members
-                checkProximity();
-                
-                // Notify listeners
-                notifyLocationChanged(location);
-            } catch (JSONException e) {
-                Log.e(TAG, "Error creating location JSON: " + e.getMessage());
+            // Check proximity to other group members; this also tells the sampling policy who is near
+            checkProximity();
+            
+            float accuracy = location.hasAccuracy() ? location.getAccuracy() : Float.NaN;
+            float speed = location.hasSpeed() ? location.getSpeed() : Float.NaN;
+            if (samplingPolicy.onFix(location.getTime(), location.getLatitude(), location.getLongitude(),
+                    speed, accuracy)) {
+                synchronized (sendMessage) {
+                    if (++updatesSinceAnnounce >= MEMBER_ANNOUNCE_INTERVAL) {
+                        sendMemberAnnouncement();
+                    }
+                    sendUpdate.set(memberDirectory.getLocalIndex(), location.getLatitude(), location.getLongitude(),
+                            accuracy, speed, location.hasBearing() ? location.getBearing() : Float.NaN,
+                            location.getTime());
+                    sendMessage.clear();
+                    LocationWireFormat.writeLocation(sendMessage, sendUpdate);
+                    sendEncrypted();
+                }
             }
+            updateLocationRequest();
+            
+            // Notify listeners
+            notifyLocationChanged(location);
+        }
+    }
+    
+    /**
+     * Tell the group which member index our locations are sent under
+     */
+    private void sendMemberAnnouncement() {
+        synchronized (sendMessage) {
+            updatesSinceAnnounce = 0;
+            sendMessage.clear();
+            LocationWireFormat.writeMember(sendMessage, memberDirectory.getLocalIndex(),
+                    memberDirectory.getLocalId(), memberDirectory.getLocalName());
+            sendEncrypted();
+        }
+    }
+    
+    /**
+     * Encrypt the message in the send buffer and send it as one binary frame
+     */
+    private void sendEncrypted() {
+        WebSocket socket = webSocket;
+        if (socket == null) {
+            return;
+        }
+        sendMessage.flip();
+        sendFrame.clear();
+        if (SecurityManager.getInstance().encryptAudioData(sendMessage, sendFrame) > 0) {
+            sendFrame.flip();
+            socket.send(ByteString.of(sendFrame));
         }
     }
     
     /**
-     * Update group member location
+     * Handle a binary message from the location server
+     * @param frame Encrypted message
+     */
+    private void onBinaryMessage(ByteBuffer frame) {
+        receiveMessage.clear();
+        if (SecurityManager.getInstance().decryptAudioData(frame, receiveMessage) <= 0) {
+            return;
+        }
+        receiveMessage.flip();
+        
+        switch (LocationWireFormat.readType(receiveMessage)) {
+            case LocationWireFormat.TYPE_LOCATION:
+                if (LocationWireFormat.readLocation(receiveMessage, receiveUpdate)) {
+                    String memberId = memberDirectory.getId(receiveUpdate.memberIndex);
+                    // Locations from members we have not heard announce yet are skipped
+                    if (memberId != null) {
+                        updateGroupMemberLocation(memberId, memberDirectory.getName(receiveUpdate.memberIndex),
+                                receiveUpdate);
+                    }
+                }
+                break;
+            case LocationWireFormat.TYPE_MEMBER:
+                int index = LocationWireFormat.readMemberIndex(receiveMessage);
+                String id = LocationWireFormat.readString(receiveMessage);
+                String name = LocationWireFormat.readString(receiveMessage);
+                if (index >= 0 && id != null && name != null && memberDirectory.bind(index, id, name)) {
+                    sendMemberAnnouncement();
+                }
+                break;
+            default:
+                Log.w(TAG, "Unknown location message type");
+                break;
+        }
+    }
+    
+    /**
+     * Handle a JSON location message; clients that predate the binary format still send these
+     * @param text Message text
+     */
+    private void onTextMessage(String text) {
+        if (!jsonParser.parse(text, receiveUpdate)) {
+            Log.e(TAG, "Error parsing location data");
+            return;
+        }
+        if (receiveUpdate.timeMs == 0) {
+            receiveUpdate.timeMs = System.currentTimeMillis();
+        }
+        
+        // Update group member location
+        updateGroupMemberLocation(jsonParser.getId(), jsonParser.getName(), receiveUpdate);
+    }
+    
+    /**
+     * Update group member location from a binary or JSON location message
      * @param memberId Member ID
      * @param memberName Member name
-     * @param latitude Latitude
-     * @param longitude Longitude
+     * @param update Decoded location
      */
-    private void updateGroupMemberLocation(String memberId, String memberName, double latitude, double longitude) {
+    private void updateGroupMemberLocation(String memberId, String memberName, LocationUpdate update) {
         // Skip if it's our own location
         if (memberId.equals(AuthenticationManager.getInstance().getUserId())) {
             return;
@@ -338,72 +552,114 @@ public class LocationService extends Service {
         GroupMember member = groupMembers.get(memberId);
         if (member == null) {
             member = new GroupMember(memberId, memberName);
-            groupMembers.put(memberId, member);
+            groupMembers.add(memberId, member);
         }
         
-        // Update location
-        Location location = new Location("server");
-        location.setLatitude(latitude);
-        location.setLongitude(longitude);
-        member.setLocation(location);
+        // Update location in place
+        member.getPosition().set(update);
+        member.getMotion().update(update.getLatitude(), update.getLongitude(), update.speed, update.bearing,
+                update.timeMs, SystemClock.elapsedRealtime());
+        onGroupMemberMoved(member);
         
         // Notify listeners
-        notifyGroupMembersChanged();
+        notifyGroupMemberChanged(member);
+    }
+    
+    /**
+     * Re-index a member whose location changed and refresh its distance
+     * @param member Member with its new position set
+     */
+    private void onGroupMemberMoved(GroupMember member) {
+        double latitude = member.getPosition().getLatitude();
+        double longitude = member.getPosition().getLongitude();
+        if (member.getPositionSlot() < 0) {
+            member.setPositionSlot(distanceEngine.add(latitude, longitude));
+        } else {
+            distanceEngine.set(member.getPositionSlot(), latitude, longitude);
+        }
+        memberGrid.update(member, latitude, longitude);
+        
+        // Members beyond proximity range are skipped by checkProximity, so keep their distance current here
+        Location location = currentLocation;
+        if (location != null) {
+            member.setDistance(distanceEngine.distance(location.getLatitude(), location.getLongitude(),
+                    member.getPositionSlot()));
+        }
     }
     
     /**
-     * Check proximity to other group members
+     * Check proximity to group members near us
      */
     private void checkProximity() {
         if (currentLocation == null || !notificationsEnabled) {
             return;
         }
         
-        for (GroupMember member : groupMembers.values()) {
-            Location memberLocation = member.getLocation();
-            if (memberLocation != null) {
-                float distance = currentLocation.distanceTo(memberLocation);
-                
-                // Update distance in member object
-                member.setDistance(distance);
+        // Only members in grid cells within range can be in range now; members that were in
+        // range at the last check are rechecked too, so their move out of range is noticed.
+        // The grid holds reported positions, so the query also covers how far members can
+        // have moved since.
+        double latitude = currentLocation.getLatitude();
+        double longitude = currentLocation.getLongitude();
+        memberGrid.query(latitude, longitude, PROXIMITY_FAR + MotionModel.MAX_PREDICTION_DISTANCE,
+                proximityCandidates);
+        proximityCandidates.addAll(membersInRange);
+        membersInRange.clear();
+        
+        // Measure all candidates at their predicted positions in one batch
+        int count = proximityCandidates.size();
+        if (candidateSlots.length < count) {
+            candidateSlots = new int[count * 2];
+            candidateDistances = new float[count * 2];
+        }
+        long now = SystemClock.elapsedRealtime();
+        for (int i = 0; i < count; i++) {
+            GroupMember member = proximityCandidates.get(i);
+            if (member.getMotion().predict(now, predictedPosition)) {
+                distanceEngine.set(member.getPositionSlot(), predictedPosition[0], predictedPosition[1]);
+            }
+            candidateSlots[i] = member.getPositionSlot();
+        }
+        distanceEngine.distances(latitude, longitude, candidateSlots, count, candidateDistances);
+        
+        double nearest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            GroupMember member = proximityCandidates.get(i);
+            float distance = candidateDistances[i];
+            nearest = Math.min(nearest, distance);
+            
+            // Update distance in member object
+            member.setDistance(distance);
+            
+            // Check if proximity threshold crossed; the band ignores members hovering at a limit
+            if (member.getProximityBand().update(distance, now)) {
+                ProximityLevel newLevel = PROXIMITY_LEVELS[member.getProximityBand().get()];
                 
-                // Check if proximity threshold crossed
-                ProximityLevel newLevel = getProximityLevel(distance);
-                if (member.getProximityLevel() != newLevel) {
-                    // Play sound based on new proximity level
+                // Play sound based on new proximity level; the pool is released when the service is destroyed
+                SoundPool sounds = soundPool;
+                if (sounds != null) {
                     if (newLevel == ProximityLevel.NEAR) {
-                        soundPool.play(soundNear, 1.0f, 1.0f, 1, 0, 1.0f);
+                        sounds.play(soundNear, 1.0f, 1.0f, 1, 0, 1.0f);
                     } else if (newLevel == ProximityLevel.MEDIUM) {
-                        soundPool.play(soundMedium, 0.7f, 0.7f, 1, 0, 1.0f);
+                        sounds.play(soundMedium, 0.7f, 0.7f, 1, 0, 1.0f);
                     } else if (newLevel == ProximityLevel.FAR) {
-                        soundPool.play(soundFar, 0.5f, 0.5f, 1, 0, 1.0f);
+                        sounds.play(soundFar, 0.5f, 0.5f, 1, 0, 1.0f);
                     }
-                    
-                    // Update proximity level
-                    member.setProximityLevel(newLevel);
-                    
-                    // Notify listeners
-                    notifyProximityChanged(member, distance, newLevel);
                 }
+                
+                // Update proximity level
+                member.setProximityLevel(newLevel);
+                
+                // Notify listeners
+                notifyProximityChanged(member);
+            }
+            
+            if (member.getProximityBand().get() != ProximityBand.OUT_OF_RANGE) {
+                membersInRange.add(member);
             }
         }
-    }
-    
-    /**
-     * Get proximity level based on distance
-     * @param distance Distance in meters
-     * @return Proximity level
-     */
-    private ProximityLevel getProximityLevel(float distance) {
-        if (distance <= PROXIMITY_NEAR) {
-            return ProximityLevel.NEAR;
-        } else if (distance <= PROXIMITY_MEDIUM) {
-            return ProximityLevel.MEDIUM;
-        } else if (distance <= PROXIMITY_FAR) {
-            return ProximityLevel.FAR;
-        } else {
-            return ProximityLevel.OUT_OF_RANGE;
-        }
+        proximityCandidates.clear();
+        samplingPolicy.setNearestMemberDistance(nearest);
     }
     
     /**
@@ -501,36 +757,44 @@ public class LocationService extends Service {
     }
     
     /**
-     * Notify listeners of location changes
+     * Notify listeners of location changes, coalesced to the latest location per dispatch interval
      */
     private void notifyLocationChanged(Location location) {
-        mainHandler.post(() -> {
-            for (LocationServiceListener listener : listeners) {
-                listener.onLocationChanged(location);
-            }
-        });
+        locationEvents.changed(location);
+    }
+    
+    private void dispatchLocationChanged(List<Location> locations) {
+        Location location = locations.get(0);
+        for (LocationServiceListener listener : listeners) {
+            listener.onLocationChanged(location);
+        }
     }
     
     /**
-     * Notify listeners of group members changes
+     * Notify listeners that a member was added or changed, coalesced per dispatch interval
      */
-    private void notifyGroupMembersChanged() {
-        mainHandler.post(() -> {
-            for (LocationServiceListener listener : listeners) {
-                listener.onGroupMembersChanged(new ArrayList<>(groupMembers.values()));
-            }
-        });
+    private void notifyGroupMemberChanged(GroupMember member) {
+        memberEvents.changed(member);
+    }
+    
+    private void dispatchGroupMembersChanged(List<GroupMember> members) {
+        for (LocationServiceListener listener : listeners) {
+            listener.onGroupMembersChanged(members);
+        }
     }
     
     /**
-     * Notify listeners of proximity changes
+     * Notify listeners of proximity changes, coalesced per dispatch interval; listeners read
+     * the members' distance and level at delivery
      */
-    private void notifyProximityChanged(GroupMember member, float distance, ProximityLevel level) {
-        mainHandler.post(() -> {
-            for (LocationServiceListener listener : listeners) {
-                listener.onProximityChanged(member, distance, level);
-            }
-        });
+    private void notifyProximityChanged(GroupMember member) {
+        proximityEvents.changed(member);
+    }
+    
+    private void dispatchProximityChanged(List<GroupMember> members) {
+        for (LocationServiceListener listener : listeners) {
+            listener.onProximityChanged(members);
+        }
     }
     
     /**
@@ -569,9 +833,10 @@ public class LocationService extends Service {
     
     /**
      * Get all group members
+     * @return Immutable snapshot; it does not see members added later
      */
     public List<GroupMember> getGroupMembers() {
-        return new ArrayList<>(groupMembers.values());
+        return groupMembers.snapshot();
     }
     
     /**
@@ -628,8 +893,15 @@ public class LocationService extends Service {
         void onConnectionStateChanged(boolean connected);
         void onTrackingStateChanged(boolean enabled);
         void onLocationChanged(Location location);
+        /**
+         * Members added or changed since the previous call; the list is only valid during the call
+         */
         void onGroupMembersChanged(List<GroupMember> members);
-        void onProximityChanged(GroupMember member, float distance, ProximityLevel level);
+        /**
+         * Members whose proximity level changed since the previous call; the list is only valid
+         * during the call
+         */
+        void onProximityChanged(List<GroupMember> members);
         void onSettingsChanged(int proximityThreshold, boolean notificationsEnabled);
     }
 }
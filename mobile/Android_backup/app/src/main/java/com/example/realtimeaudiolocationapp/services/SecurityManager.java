@@ -4,9 +4,11 @@ import android.content.Context;
 import android.util.Base64;
 import android.util.Log;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
@@ -23,9 +25,25 @@ public class SecurityManager {
     private static final int GCM_IV_LENGTH = 12;
     private static final int GCM_TAG_LENGTH = 16;
     
+    // Bytes added to each audio frame by encryption (IV + authentication tag)
+    public static final int AUDIO_FRAME_OVERHEAD = GCM_IV_LENGTH + GCM_TAG_LENGTH;
+    
     private static SecurityManager instance;
     private SecretKey encryptionKey;
     
+    // Nonce = 4-byte sender id + 8-byte counter. The counter starts at a random
+    // value so a restarted sender reusing its id does not repeat earlier nonces.
+    private final AtomicLong nonceCounter;
+    private final int localNonceId;
+    
+    // Cipher lookup is expensive, so every thread keeps its own initialised instances
+    private final ThreadLocal<CipherCache> cipherCache = new ThreadLocal<CipherCache>() {
+        @Override
+        protected CipherCache initialValue() {
+            return new CipherCache();
+        }
+    };
+    
     private SecurityManager() {
         try {
             // For a real app, this key would be securely exchanged with the server
@@ -36,6 +54,9 @@ public class SecurityManager {
         } catch (Exception e) {
             Log.e(TAG, "Error initializing encryption key: " + e.getMessage());
         }
+        SecureRandom random = new SecureRandom();
+        nonceCounter = new AtomicLong(random.nextLong());
+        localNonceId = random.nextInt();
     }
     
     public static synchronized SecurityManager getInstance() {
@@ -53,23 +74,13 @@ public class SecurityManager {
      */
     public byte[] encryptAudioData(byte[] data, int length) {
         try {
-            // Generate a random IV
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            new SecureRandom().nextBytes(iv);
-            
-            // Initialize cipher for encryption
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, parameterSpec);
-            
-            // Encrypt the data
-            byte[] encryptedData = cipher.doFinal(data, 0, length);
-            
-            // Combine IV and encrypted data
-            byte[] combined = new byte[iv.length + encryptedData.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encryptedData, 0, combined, iv.length, encryptedData.length);
+            CipherCache cache = cipherCache.get();
+            Cipher cipher = cache.initEncrypt(localNonceId);
             
+            // IV followed by the encrypted data
+            byte[] combined = new byte[GCM_IV_LENGTH + cipher.getOutputSize(length)];
+            System.arraycopy(cache.iv, 0, combined, 0, GCM_IV_LENGTH);
+            cipher.doFinal(data, 0, length, combined, GCM_IV_LENGTH);
             return combined;
         } catch (Exception e) {
             Log.e(TAG, "Error encrypting audio data: " + e.getMessage());
@@ -77,6 +88,60 @@ public class SecurityManager {
         }
     }
     
+    /**
+     * Encrypt audio data straight into a caller-provided buffer
+     * @param source Raw audio data between position and limit
+     * @param destination Buffer receiving IV and encrypted data at its position
+     * @return Number of bytes written, or -1 on failure
+     */
+    public int encryptAudioData(ByteBuffer source, ByteBuffer destination) {
+        return encryptAudioData(localNonceId, source, destination);
+    }
+    
+    /**
+     * Encrypt one frame of a sender's stream straight into a caller-provided buffer.
+     * The IV is the sender id followed by a frame counter, so no random bytes are
+     * drawn per frame; ids must be unique among senders sharing the key.
+     * @param senderId Stream id placed in the first four IV bytes
+     * @param source Raw audio data between position and limit
+     * @param destination Buffer receiving IV and encrypted data at its position
+     * @return Number of bytes written, or -1 on failure
+     */
+    public int encryptAudioData(int senderId, ByteBuffer source, ByteBuffer destination) {
+        return encryptAudioData(senderId, null, 0, 0, source, destination);
+    }
+    
+    /**
+     * Encrypt one frame of a sender's stream, authenticating a clear-text
+     * header along with it, so a frame whose header was altered fails to decrypt
+     * @param senderId Stream id placed in the first four IV bytes
+     * @param header Buffer holding the header, which may be the destination itself
+     * @param headerOffset Absolute offset of the header in its buffer
+     * @param headerLength Header length in bytes
+     * @param source Raw audio data between position and limit
+     * @param destination Buffer receiving IV and encrypted data at its position
+     * @return Number of bytes written, or -1 on failure
+     */
+    public int encryptAudioData(int senderId, ByteBuffer header, int headerOffset, int headerLength,
+                                ByteBuffer source, ByteBuffer destination) {
+        try {
+            CipherCache cache = cipherCache.get();
+            Cipher cipher = cache.initEncrypt(senderId);
+            if (header != null) {
+                updateAad(cipher, header, headerOffset, headerLength);
+            }
+            
+            // Write IV followed by the encrypted data
+            int start = destination.position();
+            destination.put(cache.iv);
+            cipher.doFinal(source, destination);
+            return destination.position() - start;
+        } catch (Exception e) {
+            Log.e(TAG, "Error encrypting audio data: " + e.getMessage());
+            return -1;
+        }
+    }
+    
     /**
      * Decrypt audio data
      * @param encryptedData Combined IV and encrypted data
@@ -84,23 +149,69 @@ public class SecurityManager {
      */
     public byte[] decryptAudioData(byte[] encryptedData) {
         try {
-            // Extract IV from the beginning of the data
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            System.arraycopy(encryptedData, 0, iv, 0, iv.length);
-            
-            // Initialize cipher for decryption
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, parameterSpec);
+            // IV is at the beginning of the data
+            Cipher cipher = cipherCache.get().initDecrypt(encryptedData, 0);
             
             // Decrypt the data
-            return cipher.doFinal(encryptedData, iv.length, encryptedData.length - iv.length);
+            return cipher.doFinal(encryptedData, GCM_IV_LENGTH, encryptedData.length - GCM_IV_LENGTH);
         } catch (Exception e) {
             Log.e(TAG, "Error decrypting audio data: " + e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Decrypt audio data straight into a caller-provided buffer
+     * @param source Combined IV and encrypted data between position and limit
+     * @param destination Buffer receiving the decrypted data at its position
+     * @return Number of bytes written, or -1 on failure
+     */
+    public int decryptAudioData(ByteBuffer source, ByteBuffer destination) {
+        return decryptAudioData(null, 0, 0, source, destination);
+    }
+    
+    /**
+     * Decrypt a frame whose clear-text header was authenticated on encryption
+     * @param header Buffer holding the header, which may be the source itself
+     * @param headerOffset Absolute offset of the header in its buffer
+     * @param headerLength Header length in bytes
+     * @param source Combined IV and encrypted data between position and limit
+     * @param destination Buffer receiving the decrypted data at its position
+     * @return Number of bytes written, or -1 on failure, including a header that does not match
+     */
+    public int decryptAudioData(ByteBuffer header, int headerOffset, int headerLength,
+                                ByteBuffer source, ByteBuffer destination) {
+        try {
+            // Extract IV from the beginning of the data
+            CipherCache cache = cipherCache.get();
+            source.get(cache.iv);
+            Cipher cipher = cache.initDecrypt(cache.iv, 0);
+            if (header != null) {
+                updateAad(cipher, header, headerOffset, headerLength);
+            }
+            
+            // Decrypt the data
+            return cipher.doFinal(source, destination);
+        } catch (Exception e) {
+            Log.e(TAG, "Error decrypting audio data: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Feed a range of a buffer to the cipher as additional authenticated data,
+     * leaving the buffer's position and limit as they were
+     */
+    private static void updateAad(Cipher cipher, ByteBuffer buffer, int offset, int length) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        cipher.updateAAD(buffer);
+        buffer.limit(limit);
+        buffer.position(position);
+    }
+    
     /**
      * Generate a secure token for authentication
      * @return Authentication token
@@ -172,4 +283,44 @@ public class SecurityManager {
         // For simplicity, we're just returning null
         return null;
     }
+    
+    /**
+     * Per-thread cipher instances and IV scratch space
+     */
+    private final class CipherCache {
+        final byte[] iv = new byte[GCM_IV_LENGTH];
+        private Cipher encryptCipher;
+        private Cipher decryptCipher;
+        
+        /**
+         * Fill {@link #iv} with the next nonce for a sender and initialise the encrypting cipher
+         */
+        Cipher initEncrypt(int senderId) throws Exception {
+            long counter = nonceCounter.getAndIncrement();
+            iv[0] = (byte) (senderId >>> 24);
+            iv[1] = (byte) (senderId >>> 16);
+            iv[2] = (byte) (senderId >>> 8);
+            iv[3] = (byte) senderId;
+            for (int i = 0; i < 8; i++) {
+                iv[4 + i] = (byte) (counter >>> (56 - 8 * i));
+            }
+            if (encryptCipher == null) {
+                encryptCipher = Cipher.getInstance(ALGORITHM);
+            }
+            encryptCipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+            return encryptCipher;
+        }
+        
+        /**
+         * Initialise the decrypting cipher with the IV at the given offset
+         */
+        Cipher initDecrypt(byte[] source, int offset) throws Exception {
+            if (decryptCipher == null) {
+                decryptCipher = Cipher.getInstance(ALGORITHM);
+            }
+            decryptCipher.init(Cipher.DECRYPT_MODE, encryptionKey,
+                    new GCMParameterSpec(GCM_TAG_LENGTH * 8, source, offset, GCM_IV_LENGTH));
+            return decryptCipher;
+        }
+    }
 }
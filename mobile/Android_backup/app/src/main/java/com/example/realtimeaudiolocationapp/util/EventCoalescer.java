@@ -0,0 +1,105 @@
+package com.example.realtimeaudiolocationapp.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Coalesces change events from any thread into at most one delivery per
+ * interval. The first change after a delivery schedules the next one; later
+ * changes only mark their item, so a burst of updates to the same item is
+ * delivered once. Items are compared by identity and delivered in the order
+ * they first changed.
+ * <p>
+ * Deliveries run on the scheduler, which has to run tasks one at a time, such
+ * as a main thread Handler. The delivered list is reused and only valid during
+ * the callback.
+ */
+public class EventCoalescer<T> {
+
+    /**
+     * Runs the delivery task later, e.g. {@code Handler.postDelayed}
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    /**
+     * Receives the items changed since the previous delivery
+     */
+    public interface Consumer<T> {
+        void onChanged(List<T> changed);
+    }
+
+    private final Scheduler scheduler;
+    private final Consumer<T> consumer;
+    private final boolean latestOnly;
+    private final Set<T> pending = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+    private final List<T> order = new ArrayList<>();
+    private final List<T> batch = new ArrayList<>();
+    private final Runnable deliverTask = this::deliver;
+    private volatile long intervalMs;
+    private boolean scheduled;
+
+    /**
+     * @param intervalMs Longest time a change waits for delivery, e.g. one display frame
+     * @param latestOnly Deliver only the most recent item, for events where each one
+     *                   replaces the previous, like our own location
+     */
+    public EventCoalescer(Scheduler scheduler, long intervalMs, boolean latestOnly, Consumer<T> consumer) {
+        this.scheduler = scheduler;
+        this.intervalMs = intervalMs;
+        this.latestOnly = latestOnly;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Record a changed item
+     */
+    public void changed(T item) {
+        synchronized (this) {
+            if (latestOnly) {
+                pending.clear();
+                order.clear();
+            }
+            if (pending.add(item)) {
+                order.add(item);
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        scheduler.schedule(deliverTask, intervalMs);
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Drop changes not delivered yet; an already scheduled delivery finds nothing to deliver
+     */
+    public synchronized void clear() {
+        pending.clear();
+        order.clear();
+    }
+
+    private void deliver() {
+        synchronized (this) {
+            scheduled = false;
+            batch.addAll(order);
+            pending.clear();
+            order.clear();
+        }
+        try {
+            if (!batch.isEmpty()) {
+                consumer.onChanged(batch);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+}
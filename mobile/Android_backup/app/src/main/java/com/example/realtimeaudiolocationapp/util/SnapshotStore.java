@@ -0,0 +1,96 @@
+package com.example.realtimeaudiolocationapp.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Keyed store with one writer thread that publishes immutable, versioned
+ * snapshots for any number of reader threads. Readers get a consistent view
+ * of the item set without locking or copying; state inside the items is
+ * published by the items themselves.
+ * <p>
+ * Items are only ever appended, so all snapshots share one backing array:
+ * a snapshot only reads the slots below its size, which are never written
+ * again. Adding an item is amortised O(1); only growing the array copies it.
+ * The volatile snapshot reference publishes the slots written before it.
+ */
+public class SnapshotStore<K, V> {
+
+    /**
+     * Immutable view of the items at one version, in the order they were added
+     */
+    public static final class Snapshot<V> extends AbstractList<V> implements RandomAccess {
+        private final Object[] items;
+        private final int size;
+        private final long version;
+
+        Snapshot(Object[] items, int size, long version) {
+            this.items = items;
+            this.size = size;
+            this.version = version;
+        }
+
+        /**
+         * Increases with every item added. It tracks membership only: changes
+         * inside an item, such as a member's position, do not change it
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+            }
+            return (V) items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Owned by the writer thread
+    private final Map<K, V> index = new HashMap<>();
+    private Object[] items = new Object[16];
+    private int size;
+
+    private volatile Snapshot<V> snapshot = new Snapshot<>(items, 0, 0);
+
+    /**
+     * Look up an item; writer thread only
+     */
+    public V get(K key) {
+        return index.get(key);
+    }
+
+    /**
+     * Add an item under a new key and publish a snapshot including it; writer thread only
+     * @throws IllegalArgumentException If the key is already present
+     */
+    public void add(K key, V item) {
+        if (index.containsKey(key)) {
+            throw new IllegalArgumentException("Duplicate key " + key);
+        }
+        index.put(key, item);
+        if (size == items.length) {
+            // Older snapshots keep the old array
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = item;
+        snapshot = new Snapshot<>(items, size, snapshot.version + 1);
+    }
+
+    /**
+     * Current snapshot; any thread
+     */
+    public Snapshot<V> snapshot() {
+        return snapshot;
+    }
+}
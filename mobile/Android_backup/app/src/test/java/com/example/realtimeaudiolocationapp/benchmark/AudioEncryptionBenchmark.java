@@ -0,0 +1,126 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-GCM cost per audio frame: the cached-cipher, counter-nonce path in
+ * {@link SecurityManager} against the previous path, which looked up a new
+ * Cipher and drew a random IV from a new SecureRandom for every frame
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioEncryptionBenchmark {
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+    private static final int SENDER_ID = 0x1234ABCD;
+
+    @Param({"64", "1024", "4096"})
+    public int size;
+
+    private SecurityManager securityManager;
+    private SecretKey legacyKey;
+    private ByteBuffer plain;
+    private ByteBuffer encrypted;
+    private ByteBuffer decrypted;
+    private ByteBuffer legacyEncrypted;
+    private ByteBuffer cachedEncrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        securityManager = SecurityManager.getInstance();
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        legacyKey = keyGenerator.generateKey();
+
+        byte[] data = new byte[size];
+        new Random(1).nextBytes(data);
+        plain = ByteBuffer.allocateDirect(size);
+        plain.put(data).flip();
+        encrypted = ByteBuffer.allocateDirect(size + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        decrypted = ByteBuffer.allocateDirect(size);
+
+        legacyEncrypted = ByteBuffer.allocateDirect(size + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        legacyEncrypt(plain.duplicate(), legacyEncrypted);
+        legacyEncrypted.flip();
+        cachedEncrypted = ByteBuffer.allocateDirect(size + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        securityManager.encryptAudioData(SENDER_ID, plain.duplicate(), cachedEncrypted);
+        cachedEncrypted.flip();
+    }
+
+    @Benchmark
+    public int encryptLegacy() throws Exception {
+        plain.rewind();
+        encrypted.clear();
+        return legacyEncrypt(plain, encrypted);
+    }
+
+    @Benchmark
+    public int encryptCached() {
+        plain.rewind();
+        encrypted.clear();
+        return securityManager.encryptAudioData(SENDER_ID, plain, encrypted);
+    }
+
+    @Benchmark
+    public int decryptLegacy() throws Exception {
+        legacyEncrypted.rewind();
+        decrypted.clear();
+        return legacyDecrypt(legacyEncrypted, decrypted);
+    }
+
+    @Benchmark
+    public int decryptCached() {
+        cachedEncrypted.rewind();
+        decrypted.clear();
+        return securityManager.decryptAudioData(cachedEncrypted, decrypted);
+    }
+
+    /**
+     * The per-frame encryption used before ciphers were cached
+     */
+    private int legacyEncrypt(ByteBuffer source, ByteBuffer destination) throws Exception {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, legacyKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+        int start = destination.position();
+        destination.put(iv);
+        cipher.doFinal(source, destination);
+        return destination.position() - start;
+    }
+
+    private int legacyDecrypt(ByteBuffer source, ByteBuffer destination) throws Exception {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        source.get(iv);
+        Cipher cipher = Cipher.getInstance(ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, legacyKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv));
+        return cipher.doFinal(source, destination);
+    }
+}
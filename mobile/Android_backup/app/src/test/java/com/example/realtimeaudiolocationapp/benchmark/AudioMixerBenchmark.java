@@ -0,0 +1,72 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.audio.AudioMixer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one 20 ms playout tick of the mixer for a growing number of
+ * speakers, with unity gain and with a gain set on every speaker
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioMixerBenchmark {
+    private static final int FRAME_SAMPLES = 320;
+
+    @Param({"2", "8", "32"})
+    public int inputs;
+
+    private AudioMixer unityMixer;
+    private AudioMixer gainMixer;
+    private short[][] frames;
+    private short[] output;
+
+    @Setup
+    public void setUp() {
+        unityMixer = new AudioMixer(inputs, FRAME_SAMPLES);
+        gainMixer = new AudioMixer(inputs, FRAME_SAMPLES);
+        frames = new short[inputs][FRAME_SAMPLES];
+        for (int input = 0; input < inputs; input++) {
+            gainMixer.setGain(input, 0.8f);
+            for (int i = 0; i < FRAME_SAMPLES; i++) {
+                frames[input][i] = (short) (Math.sin(2 * Math.PI * (200 + 50 * input) * i / 16000.0) * 6000);
+            }
+        }
+        output = new short[FRAME_SAMPLES];
+    }
+
+    @Benchmark
+    public short[] mixUnityGain() {
+        return mix(unityMixer);
+    }
+
+    @Benchmark
+    public short[] mixWithGain() {
+        return mix(gainMixer);
+    }
+
+    private short[] mix(AudioMixer mixer) {
+        mixer.clear();
+        for (int input = 0; input < inputs; input++) {
+            mixer.add(input, frames[input], 0, FRAME_SAMPLES);
+        }
+        mixer.mix(output, 0);
+        return output;
+    }
+}
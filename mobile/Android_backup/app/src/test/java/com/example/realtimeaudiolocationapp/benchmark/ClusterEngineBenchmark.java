@@ -0,0 +1,69 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.map.ClusterEngine;
+import com.example.realtimeaudiolocationapp.map.Clusters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link ClusterEngine} run, the work done on the clustering
+ * thread each time the zoom or the member positions change. Members are
+ * spread uniformly over a 30 km square; zoom 11 shows the whole square in a
+ * few dozen clusters, zoom 16 a street-level view where most members stand
+ * alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClusterEngineBenchmark {
+    private static final double CENTER_LATITUDE = 52.52;
+    private static final double CENTER_LONGITUDE = 13.405;
+    private static final double AREA_DEGREES = 0.27;
+
+    @Param({"1000", "10000"})
+    public int members;
+
+    @Param({"11", "16"})
+    public float zoom;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] bands;
+    private ClusterEngine engine;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        latitudes = new double[members];
+        longitudes = new double[members];
+        bands = new int[members];
+        for (int i = 0; i < members; i++) {
+            latitudes[i] = CENTER_LATITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES;
+            longitudes[i] = CENTER_LONGITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES
+                    / Math.cos(Math.toRadians(CENTER_LATITUDE));
+            bands[i] = random.nextInt(4);
+        }
+        engine = new ClusterEngine();
+    }
+
+    @Benchmark
+    public Clusters cluster() {
+        return engine.cluster(latitudes, longitudes, bands, members, zoom);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.DistanceEngine;
+import com.example.realtimeaudiolocationapp.test.VincentyDistance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distances from one origin to every member: the batched flat-earth kernel in
+ * {@link DistanceEngine} against one ellipsoidal {@link VincentyDistance} per
+ * member, the computation behind {@code Location.distanceTo}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceEngineBenchmark {
+    private static final double ORIGIN_LATITUDE = 40.7128;
+    private static final double ORIGIN_LONGITUDE = -74.006;
+    private static final double AREA_DEGREES = 0.05;
+
+    @Param({"10", "1000", "10000"})
+    public int members;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private DistanceEngine engine;
+    private float[] distances;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(9);
+        latitudes = new double[members];
+        longitudes = new double[members];
+        engine = new DistanceEngine();
+        for (int i = 0; i < members; i++) {
+            latitudes[i] = ORIGIN_LATITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES;
+            longitudes[i] = ORIGIN_LONGITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES;
+            engine.add(latitudes[i], longitudes[i]);
+        }
+        distances = new float[members];
+    }
+
+    @Benchmark
+    public float[] vincenty() {
+        for (int i = 0; i < members; i++) {
+            distances[i] = (float) VincentyDistance.distance(ORIGIN_LATITUDE, ORIGIN_LONGITUDE,
+                    latitudes[i], longitudes[i]);
+        }
+        return distances;
+    }
+
+    @Benchmark
+    public float[] engineBatch() {
+        engine.distances(ORIGIN_LATITUDE, ORIGIN_LONGITUDE, distances);
+        return distances;
+    }
+}
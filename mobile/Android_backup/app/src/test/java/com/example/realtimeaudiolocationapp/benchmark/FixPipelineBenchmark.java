@@ -0,0 +1,112 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.DistanceEngine;
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.location.PositionFilter;
+import com.example.realtimeaudiolocationapp.location.ProximityBand;
+import com.example.realtimeaudiolocationapp.location.SamplingPolicy;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+import com.example.realtimeaudiolocationapp.test.GpsTraceSimulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work done for each of our own fixes in {@code LocationService.onNewLocation}:
+ * filtering, the proximity check against the group, the sampling decision and
+ * encoding and encrypting the message. This used to run on the main thread
+ * for every fix and now runs on the location thread, leaving the main thread
+ * only the coalesced listener dispatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FixPipelineBenchmark {
+    private static final double LATITUDE = 52.52;
+    private static final double LONGITUDE = 13.405;
+    private static final double AREA_DEGREES = 0.02;
+
+    @Param({"10", "50"})
+    public int members;
+
+    private GpsTraceSimulator trace;
+    private int fix;
+    private PositionFilter filter;
+    private SamplingPolicy policy;
+    private DistanceEngine engine;
+    private ProximityBand[] bands;
+    private int[] slots;
+    private float[] distances;
+    private LocationUpdate update;
+    private ByteBuffer message;
+    private ByteBuffer frame;
+    private SecurityManager securityManager;
+
+    @Setup
+    public void setUp() {
+        trace = new GpsTraceSimulator(19, LATITUDE, LONGITUDE).stopAndGo(3600, 14);
+        filter = new PositionFilter();
+        policy = new SamplingPolicy(ProximityBand.FAR_DISTANCE);
+        Random random = new Random(19);
+        engine = new DistanceEngine();
+        bands = new ProximityBand[members];
+        slots = new int[members];
+        for (int i = 0; i < members; i++) {
+            slots[i] = engine.add(LATITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES,
+                    LONGITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES);
+            bands[i] = new ProximityBand();
+        }
+        distances = new float[members];
+        update = new LocationUpdate();
+        message = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE);
+        frame = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        securityManager = SecurityManager.getInstance();
+    }
+
+    @Benchmark
+    public int processFix() {
+        int i = fix;
+        fix = (fix + 1) % trace.length();
+        long time = trace.time(i);
+        if (!filter.update(time, trace.latitude(i), trace.longitude(i), trace.accuracy(i))) {
+            return 0;
+        }
+        double latitude = filter.getLatitude();
+        double longitude = filter.getLongitude();
+
+        engine.distances(latitude, longitude, slots, members, distances);
+        int changed = 0;
+        double nearest = Double.POSITIVE_INFINITY;
+        for (int m = 0; m < members; m++) {
+            nearest = Math.min(nearest, distances[m]);
+            changed += bands[m].update(distances[m], time) ? 1 : 0;
+        }
+        policy.setNearestMemberDistance(nearest);
+
+        // Encode and encrypt every fix, as if the policy decided to send each one
+        policy.onFix(time, latitude, longitude, trace.speed(i), filter.getAccuracy());
+        update.set(4, latitude, longitude, filter.getAccuracy(), trace.speed(i), 90, time);
+        message.clear();
+        LocationWireFormat.writeLocation(message, update);
+        message.flip();
+        frame.clear();
+        return changed + securityManager.encryptAudioData(message, frame);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of sending and receiving one location update: the encrypted binary
+ * message in {@link LocationWireFormat} against the previous JSON text, which
+ * was encrypted and then Base64 encoded into a String. Run through
+ * {@link #main(String[])} to also print the message sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocationEncodingBenchmark {
+    private static final String MEMBER_ID = "3f2c9a7e-51d4-4b8e-9c1a-7d0e6b2f4a13";
+    private static final String MEMBER_NAME = "Alex Morgan";
+    private static final int MEMBER_INDEX = 4;
+    private static final double LATITUDE = 37.7749295;
+    private static final double LONGITUDE = -122.4194155;
+    private static final float ACCURACY = 6.5f;
+    private static final float SPEED = 1.4f;
+    private static final float BEARING = 212.5f;
+    private static final long TIME = 1767225600123L;
+
+    private SecurityManager securityManager;
+    private LocationUpdate update;
+    private LocationUpdate decoded;
+    private ByteBuffer message;
+    private ByteBuffer frame;
+    private ByteBuffer received;
+    private ByteBuffer binaryFrame;
+    private String jsonFrame;
+
+    @Setup
+    public void setUp() throws Exception {
+        securityManager = SecurityManager.getInstance();
+        update = new LocationUpdate().set(MEMBER_INDEX, LATITUDE, LONGITUDE, ACCURACY, SPEED, BEARING, TIME);
+        decoded = new LocationUpdate();
+        message = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE);
+        frame = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        received = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE);
+
+        binaryFrame = ByteBuffer.allocate(frame.capacity());
+        binaryFrame.put(encodeBinary()).flip();
+        jsonFrame = encodeJson();
+    }
+
+    @Benchmark
+    public String encodeJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", MEMBER_ID);
+        json.put("name", MEMBER_NAME);
+        json.put("latitude", LATITUDE);
+        json.put("longitude", LONGITUDE);
+        json.put("accuracy", ACCURACY);
+        json.put("speed", SPEED);
+        json.put("bearing", BEARING);
+        json.put("time", TIME);
+        byte[] text = json.toString().getBytes(StandardCharsets.UTF_8);
+        return Base64.getEncoder().encodeToString(securityManager.encryptAudioData(text, text.length));
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        message.clear();
+        LocationWireFormat.writeLocation(message, update);
+        message.flip();
+        frame.clear();
+        securityManager.encryptAudioData(message, frame);
+        frame.flip();
+        return frame;
+    }
+
+    @Benchmark
+    public double decodeJson() throws JSONException {
+        byte[] text = securityManager.decryptAudioData(Base64.getDecoder().decode(jsonFrame));
+        JSONObject json = new JSONObject(new String(text, StandardCharsets.UTF_8));
+        return json.getString("id").length() + json.getString("name").length()
+                + json.getDouble("latitude") + json.getDouble("longitude")
+                + json.getDouble("accuracy") + json.getDouble("speed") + json.getDouble("bearing")
+                + json.getLong("time");
+    }
+
+    @Benchmark
+    public double decodeBinary() {
+        binaryFrame.rewind();
+        received.clear();
+        securityManager.decryptAudioData(binaryFrame, received);
+        received.flip();
+        LocationWireFormat.readLocation(received, decoded);
+        return decoded.memberIndex + decoded.getLatitude() + decoded.getLongitude()
+                + decoded.accuracy + decoded.speed + decoded.bearing + decoded.timeMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        printSizeReport();
+        new Runner(new OptionsBuilder()
+                .include(LocationEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Print the size of one location update in each format, before and after
+     * encryption and transport encoding
+     */
+    static void printSizeReport() throws Exception {
+        LocationEncodingBenchmark benchmark = new LocationEncodingBenchmark();
+        benchmark.setUp();
+        int jsonText = benchmark.decryptedJsonLength();
+        int binary = benchmark.message.limit();
+
+        System.out.println("Location update size in bytes");
+        System.out.printf("%-24s %10s %10s%n", "format", "message", "on wire");
+        System.out.printf("%-24s %10d %10d%n", "JSON + AES + Base64", jsonText, benchmark.jsonFrame.length());
+        System.out.printf("%-24s %10d %10d%n", "binary + AES", binary, benchmark.binaryFrame.limit());
+    }
+
+    private int decryptedJsonLength() {
+        return securityManager.decryptAudioData(Base64.getDecoder().decode(jsonFrame)).length;
+    }
+}
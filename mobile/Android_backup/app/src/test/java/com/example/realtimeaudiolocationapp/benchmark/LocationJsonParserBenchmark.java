@@ -0,0 +1,75 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.LocationJsonParser;
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing one JSON text location message from an older client: the streaming
+ * {@link LocationJsonParser} against building an {@link JSONObject} and
+ * reading the four fields from it. Run with {@code -prof gc} to compare
+ * allocation per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocationJsonParserBenchmark {
+    private static final int MESSAGES = 16;
+
+    private String[] messages;
+    private int next;
+    private LocationJsonParser parser;
+    private LocationUpdate update;
+
+    @Setup
+    public void setUp() throws JSONException {
+        // A group of members sending in turn, as the server relays them
+        messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            JSONObject json = new JSONObject();
+            json.put("id", "3f2c9a7e-51d4-4b8e-9c1a-7d0e6b2f4a" + (10 + i));
+            json.put("name", "Member " + i);
+            json.put("latitude", 37.7749295 + i * 1e-4);
+            json.put("longitude", -122.4194155 - i * 1e-4);
+            messages[i] = json.toString();
+        }
+        parser = new LocationJsonParser();
+        update = new LocationUpdate();
+    }
+
+    @Benchmark
+    public double jsonObject() throws JSONException {
+        JSONObject json = new JSONObject(nextMessage());
+        String id = json.getString("id");
+        String name = json.getString("name");
+        return json.getDouble("latitude") + json.getDouble("longitude") + id.length() + name.length();
+    }
+
+    @Benchmark
+    public double streaming() {
+        parser.parse(nextMessage(), update);
+        return update.latitudeE7 + update.longitudeE7 + parser.getId().length() + parser.getName().length();
+    }
+
+    private String nextMessage() {
+        next = (next + 1) % MESSAGES;
+        return messages[next];
+    }
+}
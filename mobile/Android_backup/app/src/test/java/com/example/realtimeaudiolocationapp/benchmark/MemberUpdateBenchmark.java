@@ -0,0 +1,136 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.DistanceEngine;
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.location.MemberPosition;
+import com.example.realtimeaudiolocationapp.location.MotionModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying one received location message to a member on the WebSocket
+ * thread: decoding it, updating the member's position, dead reckoning and
+ * distance slot. The member position is either a {@link MemberPosition}
+ * updated in place, or a new Location-shaped object per message as before.
+ * {@code android.location.Location} is not available on the JVM, so
+ * {@link LocationCopy} stands in with the same fields. Run with
+ * {@code -prof gc} to compare allocation per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemberUpdateBenchmark {
+    private static final double LATITUDE = 48.8566;
+    private static final double LONGITUDE = 2.3522;
+
+    /**
+     * Fields of android.location.Location, which also holds a provider String
+     * and an extras Bundle that is null until used
+     */
+    static final class LocationCopy {
+        String provider;
+        long time;
+        long elapsedRealtimeNanos;
+        double elapsedRealtimeUncertaintyNanos;
+        int fieldsMask;
+        double latitude;
+        double longitude;
+        double altitude;
+        float speed;
+        float bearing;
+        float horizontalAccuracy;
+        float verticalAccuracy;
+        float speedAccuracy;
+        float bearingAccuracy;
+        double mslAltitude;
+        float mslAltitudeAccuracy;
+        Object extras;
+
+        LocationCopy(String provider) {
+            this.provider = provider;
+        }
+    }
+
+    private ByteBuffer[] messages;
+    private int next;
+    private ByteBuffer received;
+    private LocationUpdate update;
+    private MemberPosition position;
+    private LocationCopy location;
+    private MotionModel motion;
+    private DistanceEngine engine;
+    private int slot;
+
+    @Setup
+    public void setUp() {
+        messages = new ByteBuffer[64];
+        LocationUpdate sent = new LocationUpdate();
+        for (int i = 0; i < messages.length; i++) {
+            sent.set(3, LATITUDE + i * 1e-5, LONGITUDE, 5, 1.5f, 90, 1767225600000L + i * 1000L);
+            messages[i] = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE);
+            LocationWireFormat.writeLocation(messages[i], sent);
+            messages[i].flip();
+        }
+        received = ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE);
+        update = new LocationUpdate();
+        position = new MemberPosition();
+        motion = new MotionModel();
+        engine = new DistanceEngine();
+        slot = engine.add(LATITUDE, LONGITUDE);
+    }
+
+    @Benchmark
+    public long newLocationPerUpdate() {
+        decode();
+        LocationCopy copy = new LocationCopy("server");
+        copy.latitude = update.getLatitude();
+        copy.longitude = update.getLongitude();
+        copy.horizontalAccuracy = update.accuracy;
+        copy.speed = update.speed;
+        copy.bearing = update.bearing;
+        copy.time = update.timeMs;
+        copy.fieldsMask = 0x0F;
+        location = copy;
+        apply(location.latitude, location.longitude);
+        return location.time;
+    }
+
+    @Benchmark
+    public long positionInPlace() {
+        decode();
+        position.set(update);
+        apply(position.getLatitude(), position.getLongitude());
+        return position.getVersion();
+    }
+
+    private void decode() {
+        ByteBuffer message = messages[next];
+        next = (next + 1) % messages.length;
+        message.rewind();
+        received.clear();
+        received.put(message).flip();
+        LocationWireFormat.readType(received);
+        LocationWireFormat.readLocation(received, update);
+    }
+
+    private void apply(double latitude, double longitude) {
+        motion.update(latitude, longitude, update.speed, update.bearing, update.timeMs, update.timeMs);
+        engine.set(slot, latitude, longitude);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.location.SpatialGrid;
+import com.example.realtimeaudiolocationapp.test.VincentyDistance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one proximity check: measuring the distance to every member, as
+ * LocationService did, against measuring only the members the
+ * {@link SpatialGrid} returns for the cells within range. Members are spread
+ * uniformly over a 30 km square and the observer moves between checks.
+ * Distances use {@link VincentyDistance}, the ellipsoidal formula behind
+ * {@code Location.distanceTo}, which is not available on the JVM.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProximityGridBenchmark {
+    private static final double RANGE_METRES = 1000;
+    private static final double CENTER_LATITUDE = 52.52;
+    private static final double CENTER_LONGITUDE = 13.405;
+    private static final double AREA_DEGREES = 0.27;
+    private static final int OBSERVER_POSITIONS = 64;
+
+    @Param({"10", "1000", "10000"})
+    public int members;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] observerLatitudes;
+    private double[] observerLongitudes;
+    private SpatialGrid<Integer> grid;
+    private List<Integer> candidates;
+    private Random random;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        random = new Random(5);
+        latitudes = new double[members];
+        longitudes = new double[members];
+        grid = new SpatialGrid<>(RANGE_METRES);
+        for (int i = 0; i < members; i++) {
+            latitudes[i] = randomLatitude();
+            longitudes[i] = randomLongitude();
+            grid.update(i, latitudes[i], longitudes[i]);
+        }
+        observerLatitudes = new double[OBSERVER_POSITIONS];
+        observerLongitudes = new double[OBSERVER_POSITIONS];
+        for (int i = 0; i < OBSERVER_POSITIONS; i++) {
+            observerLatitudes[i] = randomLatitude();
+            observerLongitudes[i] = randomLongitude();
+        }
+        candidates = new ArrayList<>();
+    }
+
+    @Benchmark
+    public int scanAll() {
+        int observer = tick++ & (OBSERVER_POSITIONS - 1);
+        int inRange = 0;
+        for (int i = 0; i < members; i++) {
+            if (VincentyDistance.distance(observerLatitudes[observer], observerLongitudes[observer],
+                    latitudes[i], longitudes[i]) <= RANGE_METRES) {
+                inRange++;
+            }
+        }
+        return inRange;
+    }
+
+    @Benchmark
+    public int gridQuery() {
+        int observer = tick++ & (OBSERVER_POSITIONS - 1);
+        candidates.clear();
+        grid.query(observerLatitudes[observer], observerLongitudes[observer], RANGE_METRES, candidates);
+        int inRange = 0;
+        for (int c = 0; c < candidates.size(); c++) {
+            int i = candidates.get(c);
+            if (VincentyDistance.distance(observerLatitudes[observer], observerLongitudes[observer],
+                    latitudes[i], longitudes[i]) <= RANGE_METRES) {
+                inRange++;
+            }
+        }
+        return inRange;
+    }
+
+    /**
+     * The incremental index maintenance done for each received location
+     */
+    @Benchmark
+    public int moveMember() {
+        int i = random.nextInt(members);
+        latitudes[i] += (random.nextDouble() - 0.5) * 1e-3;
+        longitudes[i] += (random.nextDouble() - 0.5) * 1e-3;
+        grid.update(i, latitudes[i], longitudes[i]);
+        return i;
+    }
+
+    private double randomLatitude() {
+        return CENTER_LATITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES;
+    }
+
+    private double randomLongitude() {
+        return CENTER_LONGITUDE + (random.nextDouble() - 0.5) * AREA_DEGREES
+                / Math.cos(Math.toRadians(CENTER_LATITUDE));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.audio.Resampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting one 20 ms capture frame from 44.1 kHz to 16 kHz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResamplerBenchmark {
+    private static final int CAPTURE_RATE = 44100;
+    private static final int VOICE_RATE = 16000;
+    private static final int FRAME_SAMPLES = CAPTURE_RATE / 50;
+
+    private Resampler resampler;
+    private short[] input;
+    private short[] output;
+
+    @Setup
+    public void setUp() {
+        resampler = new Resampler(CAPTURE_RATE, VOICE_RATE, FRAME_SAMPLES);
+        input = VoiceCodecBenchmark.speechLike(CAPTURE_RATE, FRAME_SAMPLES);
+        output = new short[resampler.getMaxOutputSamples(FRAME_SAMPLES)];
+    }
+
+    @Benchmark
+    public int resample() {
+        return resampler.process(input, 0, FRAME_SAMPLES, output, 0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.realtimeaudiolocationapp.benchmark;
+
+import com.example.realtimeaudiolocationapp.audio.AudioFrameHeader;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodec;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodecs;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost per 20 ms frame for each voice codec. Run with
+ * {@code gradle :app:jmh} or through {@link #main(String[])}, which also
+ * prints the bitrate report.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VoiceCodecBenchmark {
+    private static final int CAPTURE_RATE = 44100;
+    private static final int VOICE_RATE = 16000;
+    private static final int FRAME_MS = 20;
+    private static final int FRAMES_PER_SECOND = 1000 / FRAME_MS;
+    private static final int CAPTURE_FRAME_SAMPLES = CAPTURE_RATE * FRAME_MS / 1000;
+    private static final int VOICE_FRAME_SAMPLES = VOICE_RATE * FRAME_MS / 1000;
+
+    @Param({"PCM16", "IMA_ADPCM"})
+    public String codec;
+
+    private VoiceCodec encoder;
+    private VoiceCodec decoder;
+    private short[] voiceFrame;
+    private short[] decoded;
+    private ByteBuffer encodeBuffer;
+    private ByteBuffer encodedFrame;
+
+    @Setup
+    public void setUp() {
+        int codecId = codecId(codec);
+        encoder = VoiceCodecs.create(codecId, VOICE_RATE);
+        decoder = VoiceCodecs.create(codecId, VOICE_RATE);
+        voiceFrame = speechLike(VOICE_RATE, VOICE_FRAME_SAMPLES);
+        decoded = new short[VOICE_FRAME_SAMPLES];
+
+        encodeBuffer = ByteBuffer.allocateDirect(encoder.getMaxEncodedSize(VOICE_FRAME_SAMPLES));
+        encodedFrame = ByteBuffer.allocateDirect(encoder.getMaxEncodedSize(VOICE_FRAME_SAMPLES));
+        encoder.encode(voiceFrame, 0, VOICE_FRAME_SAMPLES, encodedFrame);
+        encodedFrame.flip();
+    }
+
+    @Benchmark
+    public int encode() {
+        encodeBuffer.clear();
+        return encoder.encode(voiceFrame, 0, VOICE_FRAME_SAMPLES, encodeBuffer);
+    }
+
+    @Benchmark
+    public int decode() {
+        encodedFrame.position(0);
+        return decoder.decode(encodedFrame, decoded, 0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printBitrateReport();
+        new Runner(new OptionsBuilder()
+                .include(VoiceCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Print the on-the-wire rate of one talker for each codec, including
+     * the frame header and encryption overhead
+     */
+    static void printBitrateReport() {
+        int packetOverhead = AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD;
+        System.out.println("Per-talker bitrate at " + FRAME_MS + " ms frames");
+        System.out.printf("%-22s %12s %12s %12s%n", "codec", "bytes/frame", "bytes/s", "kbit/s");
+
+        // Baseline: raw 44.1 kHz PCM as sent before the codec stage existed
+        printRow("PCM16 @ 44.1 kHz (raw)", CAPTURE_FRAME_SAMPLES * 2 + packetOverhead);
+        for (String name : new String[]{"PCM16", "IMA_ADPCM"}) {
+            VoiceCodec codec = VoiceCodecs.create(codecId(name), VOICE_RATE);
+            ByteBuffer buffer = ByteBuffer.allocate(codec.getMaxEncodedSize(VOICE_FRAME_SAMPLES));
+            int payload = codec.encode(speechLike(VOICE_RATE, VOICE_FRAME_SAMPLES), 0, VOICE_FRAME_SAMPLES, buffer);
+            printRow(name + " @ 16 kHz", payload + packetOverhead);
+        }
+    }
+
+    private static void printRow(String name, int bytesPerFrame) {
+        int bytesPerSecond = bytesPerFrame * FRAMES_PER_SECOND;
+        System.out.printf("%-22s %12d %12d %12.1f%n", name, bytesPerFrame, bytesPerSecond, bytesPerSecond * 8 / 1000.0);
+    }
+
+    private static int codecId(String name) {
+        return "PCM16".equals(name) ? AudioFrameHeader.CODEC_PCM16 : AudioFrameHeader.CODEC_IMA_ADPCM;
+    }
+
+    /**
+     * Voiced harmonics at 150 Hz with a little noise
+     */
+    static short[] speechLike(int sampleRate, int length) {
+        Random random = new Random(7);
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / sampleRate;
+            double value = 0;
+            for (int harmonic = 1; harmonic <= 8; harmonic++) {
+                value += Math.sin(2 * Math.PI * 150 * harmonic * t) * 4000 / harmonic;
+            }
+            samples[i] = (short) (value + random.nextGaussian() * 300);
+        }
+        return samples;
+    }
+}
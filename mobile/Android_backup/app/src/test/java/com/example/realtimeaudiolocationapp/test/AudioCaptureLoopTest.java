@@ -0,0 +1,398 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioCaptureLoop;
+import com.example.realtimeaudiolocationapp.audio.AudioFrameHeader;
+import com.example.realtimeaudiolocationapp.audio.AudioFramePool;
+import com.example.realtimeaudiolocationapp.audio.AudioPacketizer;
+import com.example.realtimeaudiolocationapp.audio.ComfortNoiseGenerator;
+import com.example.realtimeaudiolocationapp.audio.ImaAdpcmCodec;
+import com.example.realtimeaudiolocationapp.audio.Pcm16Codec;
+import com.example.realtimeaudiolocationapp.audio.RedundancyCodec;
+import com.example.realtimeaudiolocationapp.audio.Resampler;
+import com.example.realtimeaudiolocationapp.audio.VoiceActivityDetector;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodec;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the pooled audio capture loop
+ */
+public class AudioCaptureLoopTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME_MS = 20;
+    private static final int READ_SAMPLES = 320; // one 20 ms frame
+    private static final int SSRC = 0x1234ABCD;
+    private static final int PACKET_OVERHEAD = AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD;
+
+    private SecurityManager securityManager;
+    private AudioFramePool pool;
+    private FakeAudioRecord source;
+    private RecordingSink sink;
+
+    @Before
+    public void setUp() {
+        securityManager = SecurityManager.getInstance();
+        pool = new AudioFramePool(4, READ_SAMPLES * 2 + PACKET_OVERHEAD + 8);
+        source = new FakeAudioRecord(RATE);
+        sink = new RecordingSink();
+    }
+
+    @Test
+    public void testAlteredHeaderFailsDecryption() {
+        AudioCaptureLoop loop = createPcmLoop();
+        assertTrue(loop.processFrame(false));
+        byte[] packet = sink.lastPacket.clone();
+        assertTrue(decrypt(packet, ByteBuffer.allocate(packet.length)) > 0);
+
+        for (int bit = 0; bit < AudioFrameHeader.SIZE * 8; bit++) {
+            byte[] altered = packet.clone();
+            altered[bit / 8] ^= (byte) (1 << (bit % 8));
+            assertEquals("Header bit " + bit, -1, decrypt(altered, ByteBuffer.allocate(packet.length)));
+        }
+    }
+
+    @Test
+    public void testSteadyStateAllocatesNoFrames() {
+        AudioCaptureLoop loop = createPcmLoop();
+
+        // Warm up, then verify the pool never grows
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loop.processFrame(false));
+        }
+        long allocationsAfterWarmUp = pool.getAllocationCount();
+
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(loop.processFrame(false));
+        }
+
+        assertEquals("Capture loop should not allocate frames in steady state",
+                allocationsAfterWarmUp, pool.getAllocationCount());
+        assertEquals(4, pool.getAllocationCount());
+        assertEquals(4, pool.getFreeCount());
+        assertEquals(10100, loop.getFramesSent());
+    }
+
+    @Test
+    public void testSentFramesDecodeToCapturedAudio() {
+        AudioCaptureLoop loop = createPcmLoop();
+
+        assertTrue(loop.processFrame(false));
+
+        assertNotNull(sink.lastPacket);
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+        short[] decoded = new short[READ_SAMPLES];
+        assertEquals(READ_SAMPLES, new Pcm16Codec(RATE).decode(decryptPayload(), decoded, 0));
+        assertArrayEquals("Decoded frame should match captured PCM", source.lastRead, decoded);
+    }
+
+    @Test
+    public void testPacketsCarrySenderAndSequence() {
+        AudioCaptureLoop loop = createPcmLoop();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(loop.processFrame(false));
+            ByteBuffer packet = ByteBuffer.wrap(sink.lastPacket);
+            assertEquals(SSRC, AudioFrameHeader.readSsrc(packet));
+            assertEquals(i, AudioFrameHeader.readSequence(packet));
+            assertEquals(i * READ_SAMPLES, AudioFrameHeader.readTimestamp(packet));
+            assertEquals(AudioFrameHeader.CODEC_PCM16, AudioFrameHeader.readCodec(packet));
+        }
+    }
+
+    @Test
+    public void testMarkerFlagStartsEachTalkspurt() {
+        AudioCaptureLoop loop = createPcmLoop();
+
+        assertTrue(loop.processFrame(false));
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(ByteBuffer.wrap(sink.lastPacket)));
+        assertTrue(loop.processFrame(false));
+        assertEquals(0, AudioFrameHeader.readFlags(ByteBuffer.wrap(sink.lastPacket)));
+
+        // Muted reads advance the timestamp but not the sequence number
+        assertTrue(loop.processFrame(true));
+        assertTrue(loop.processFrame(false));
+        ByteBuffer packet = ByteBuffer.wrap(sink.lastPacket);
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(packet));
+        assertEquals(2, AudioFrameHeader.readSequence(packet));
+        assertEquals(3 * READ_SAMPLES, AudioFrameHeader.readTimestamp(packet));
+    }
+
+    @Test
+    public void testMutedFramesAreReadButNotSent() {
+        AudioCaptureLoop loop = createPcmLoop();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(loop.processFrame(true));
+        }
+
+        assertEquals(10, source.reads);
+        assertEquals(0, sink.sendCount);
+        assertEquals(4, pool.getFreeCount());
+    }
+
+    @Test
+    public void testSilenceIsReplacedByComfortNoiseUpdates() {
+        AudioCaptureLoop loop = createPcmLoop();
+        loop.setVoiceActivityDetector(new VoiceActivityDetector(FRAME_MS));
+        source.amplitude = 0;
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loop.processFrame(false));
+        }
+
+        // One comfort-noise packet at the start of the silence and one per interval
+        assertEquals(100 / AudioCaptureLoop.COMFORT_NOISE_INTERVAL, sink.sendCount);
+        assertEquals(0, loop.getFramesSent());
+        assertEquals(100, loop.getFramesSuppressed());
+        ByteBuffer packet = ByteBuffer.wrap(sink.lastPacket);
+        assertEquals(AudioFrameHeader.FLAG_COMFORT_NOISE, AudioFrameHeader.readFlags(packet));
+        assertEquals(AudioFrameHeader.SIZE + SecurityManager.AUDIO_FRAME_OVERHEAD
+                + ComfortNoiseGenerator.PAYLOAD_SIZE, sink.lastPacket.length);
+        assertEquals(ComfortNoiseGenerator.MAX_LEVEL, decryptPayload().get(0) & 0xFF);
+    }
+
+    @Test
+    public void testSpeechAfterSilenceStartsTalkspurt() {
+        AudioCaptureLoop loop = createPcmLoop();
+        loop.setVoiceActivityDetector(new VoiceActivityDetector(FRAME_MS));
+        source.amplitude = 200;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loop.processFrame(false));
+        }
+        int silentPackets = sink.sendCount;
+
+        source.amplitude = 8000;
+        assertTrue(loop.processFrame(false));
+
+        assertEquals(silentPackets + 1, sink.sendCount);
+        ByteBuffer packet = ByteBuffer.wrap(sink.lastPacket);
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(packet));
+        assertEquals(100 * READ_SAMPLES, AudioFrameHeader.readTimestamp(packet));
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+    }
+
+    @Test
+    public void testShortReadsAreCarriedIntoFullFrames() {
+        source.maxRead = 250;
+        AudioCaptureLoop loop = createPcmLoop();
+
+        assertTrue(loop.processFrame(false));
+        assertEquals(0, sink.sendCount);
+
+        // 500 samples read: one full frame out, 180 carried over
+        assertTrue(loop.processFrame(false));
+        assertEquals(1, sink.sendCount);
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+    }
+
+    @Test
+    public void testLargeReadsAreSplitIntoFrames() {
+        // 60 ms reads produce three 20 ms packets with consecutive timestamps
+        source = new FakeAudioRecord(RATE);
+        AudioCaptureLoop loop = new AudioCaptureLoop(source, sink, pool, securityManager,
+                new Resampler(RATE, RATE, READ_SAMPLES * 3), new AudioPacketizer(RATE, FRAME_MS, READ_SAMPLES * 3),
+                new Pcm16Codec(RATE), READ_SAMPLES * 3, SSRC);
+
+        assertTrue(loop.processFrame(false));
+
+        assertEquals(3, sink.sendCount);
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+        ByteBuffer packet = ByteBuffer.wrap(sink.lastPacket);
+        assertEquals(2, AudioFrameHeader.readSequence(packet));
+        assertEquals(2 * READ_SAMPLES, AudioFrameHeader.readTimestamp(packet));
+    }
+
+    @Test
+    public void testSourceErrorStopsLoop() {
+        source.error = true;
+        AudioCaptureLoop loop = createPcmLoop();
+
+        assertFalse(loop.processFrame(false));
+        assertEquals(0, sink.sendCount);
+        assertEquals(4, pool.getFreeCount());
+    }
+
+    @Test
+    public void testResampledAdpcmPacketsAreSmaller() {
+        // 20 ms at 44.1 kHz in, 16 kHz IMA-ADPCM out
+        int readSamples = 882;
+        source = new FakeAudioRecord(44100);
+        VoiceCodec codec = new ImaAdpcmCodec(RATE);
+        Resampler resampler = new Resampler(44100, RATE, readSamples);
+        AudioCaptureLoop loop = new AudioCaptureLoop(source, sink, pool, securityManager,
+                resampler, new AudioPacketizer(RATE, FRAME_MS, resampler.getMaxOutputSamples(readSamples)),
+                codec, readSamples, SSRC);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(loop.processFrame(false));
+        }
+
+        assertEquals(AudioFrameHeader.CODEC_IMA_ADPCM, AudioFrameHeader.readCodec(ByteBuffer.wrap(sink.lastPacket)));
+        // 320 samples per frame at 4 bits each, plus the ADPCM block header
+        assertEquals(PACKET_OVERHEAD + 4 + 160, sink.lastPacket.length);
+        assertTrue(loop.getBytesSent() < 100 * (readSamples * 2) / 4);
+        assertEquals(4, pool.getAllocationCount());
+    }
+
+    @Test
+    public void testRedundantPacketsCarryPreviousFrame() {
+        pool = new AudioFramePool(4, READ_SAMPLES * 3 + PACKET_OVERHEAD);
+        AudioCaptureLoop loop = createPcmLoop();
+        loop.setRedundancyEnabled(true);
+        RedundancyCodec redundancy = new RedundancyCodec(RATE, READ_SAMPLES);
+
+        // The first packet of a talkspurt has nothing to repeat
+        assertTrue(loop.processFrame(false));
+        short[] firstFrame = source.lastRead;
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(ByteBuffer.wrap(sink.lastPacket)));
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+
+        assertTrue(loop.processFrame(false));
+        assertEquals(AudioFrameHeader.FLAG_REDUNDANT, AudioFrameHeader.readFlags(ByteBuffer.wrap(sink.lastPacket)));
+        ByteBuffer payload = decryptPayload();
+        int primaryLength = payload.getShort() & 0xFFFF;
+        assertEquals(READ_SAMPLES * 2, primaryLength);
+
+        short[] primary = new short[READ_SAMPLES];
+        payload.limit(2 + primaryLength);
+        assertEquals(READ_SAMPLES, new Pcm16Codec(RATE).decode(payload, primary, 0));
+        assertArrayEquals(source.lastRead, primary);
+
+        short[] copy = new short[READ_SAMPLES];
+        payload.limit(payload.capacity());
+        assertEquals(READ_SAMPLES, redundancy.decode(payload, copy, 0, READ_SAMPLES));
+        assertTrue("Redundant copy should resemble the previous frame", snr(firstFrame, copy) > 10);
+    }
+
+    @Test
+    public void testSilenceRestartsRedundancy() {
+        pool = new AudioFramePool(4, READ_SAMPLES * 3 + PACKET_OVERHEAD);
+        AudioCaptureLoop loop = createPcmLoop();
+        loop.setRedundancyEnabled(true);
+        assertTrue(loop.processFrame(false));
+        assertTrue(loop.processFrame(false));
+
+        // Nothing went out for the muted frame, so there is no previous frame to repeat
+        assertTrue(loop.processFrame(true));
+        assertTrue(loop.processFrame(false));
+
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(ByteBuffer.wrap(sink.lastPacket)));
+        assertEquals(READ_SAMPLES * 2 + PACKET_OVERHEAD, sink.lastPacket.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRedundancyRejectsPoolSmallerThanPacket() {
+        AudioCaptureLoop loop = new AudioCaptureLoop(source, sink, new AudioFramePool(2, READ_SAMPLES * 2 + PACKET_OVERHEAD),
+                securityManager, new Resampler(RATE, RATE, READ_SAMPLES), new AudioPacketizer(RATE, FRAME_MS, READ_SAMPLES),
+                new Pcm16Codec(RATE), READ_SAMPLES, SSRC);
+
+        loop.setRedundancyEnabled(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsPoolSmallerThanPacket() {
+        new AudioCaptureLoop(source, sink, new AudioFramePool(2, READ_SAMPLES * 2), securityManager,
+                new Resampler(RATE, RATE, READ_SAMPLES), new AudioPacketizer(RATE, FRAME_MS, READ_SAMPLES),
+                new Pcm16Codec(RATE), READ_SAMPLES, SSRC);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCodecRateMismatch() {
+        new AudioCaptureLoop(source, sink, pool, securityManager,
+                new Resampler(44100, 8000, READ_SAMPLES), new AudioPacketizer(8000, FRAME_MS, READ_SAMPLES),
+                new Pcm16Codec(RATE), READ_SAMPLES, SSRC);
+    }
+
+    private AudioCaptureLoop createPcmLoop() {
+        return new AudioCaptureLoop(source, sink, pool, securityManager,
+                new Resampler(RATE, RATE, READ_SAMPLES), new AudioPacketizer(RATE, FRAME_MS, READ_SAMPLES),
+                new Pcm16Codec(RATE), READ_SAMPLES, SSRC);
+    }
+
+    private static double snr(short[] reference, short[] actual) {
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < reference.length; i++) {
+            signal += (double) reference[i] * reference[i];
+            double error = reference[i] - actual[i];
+            noise += error * error;
+        }
+        return 10 * Math.log10(signal / Math.max(noise, 1));
+    }
+
+    private ByteBuffer decryptPayload() {
+        ByteBuffer payload = ByteBuffer.allocate(sink.lastPacket.length);
+        assertTrue(decrypt(sink.lastPacket, payload) > 0);
+        payload.flip();
+        return payload;
+    }
+
+    private int decrypt(byte[] packet, ByteBuffer payload) {
+        ByteBuffer source = ByteBuffer.wrap(packet);
+        source.position(AudioFrameHeader.SIZE);
+        return securityManager.decryptAudioData(source, 0, AudioFrameHeader.SIZE, source, payload);
+    }
+
+    /**
+     * Stand-in for AudioRecord producing a 440 Hz tone
+     */
+    private static class FakeAudioRecord implements AudioCaptureLoop.Source {
+        private final int sampleRate;
+        int maxRead = Integer.MAX_VALUE;
+        double amplitude = 8000;
+        boolean error;
+        int reads;
+        short[] lastRead;
+        private int sampleIndex;
+
+        FakeAudioRecord(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public int read(short[] samples, int offset, int count) {
+            if (error) {
+                return -3; // AudioRecord.ERROR_INVALID_OPERATION
+            }
+            reads++;
+            int length = Math.min(count, maxRead);
+            for (int i = 0; i < length; i++) {
+                samples[offset + i] = (short) (Math.sin(2 * Math.PI * 440 * sampleIndex++ / sampleRate) * amplitude);
+            }
+            lastRead = Arrays.copyOfRange(samples, offset, offset + length);
+            return length;
+        }
+    }
+
+    /**
+     * Stand-in for the WebSocket client
+     */
+    private static class RecordingSink implements AudioCaptureLoop.Sink {
+        int sendCount;
+        byte[] lastPacket;
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void send(ByteBuffer frame) {
+            sendCount++;
+            lastPacket = new byte[frame.remaining()];
+            frame.get(lastPacket);
+        }
+    }
+}
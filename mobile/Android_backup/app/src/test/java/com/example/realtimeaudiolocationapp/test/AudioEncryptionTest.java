@@ -0,0 +1,115 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the cached-cipher audio frame encryption
+ */
+public class AudioEncryptionTest {
+
+    private static final int SENDER_ID = 0x1234ABCD;
+    private static final int IV_LENGTH = 12;
+
+    private SecurityManager securityManager;
+
+    @Before
+    public void setUp() {
+        securityManager = SecurityManager.getInstance();
+    }
+
+    @Test
+    public void testBufferRoundTrip() {
+        byte[] data = new byte[1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(data.length + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        ByteBuffer decrypted = ByteBuffer.allocateDirect(data.length);
+
+        assertEquals(data.length + SecurityManager.AUDIO_FRAME_OVERHEAD,
+                securityManager.encryptAudioData(SENDER_ID, ByteBuffer.wrap(data), encrypted));
+        encrypted.flip();
+        assertEquals(data.length, securityManager.decryptAudioData(encrypted, decrypted));
+
+        byte[] result = new byte[data.length];
+        decrypted.flip();
+        decrypted.get(result);
+        assertArrayEquals(data, result);
+    }
+
+    @Test
+    public void testNonceIsSenderIdAndCounter() {
+        byte[] first = encrypt(SENDER_ID);
+        byte[] second = encrypt(SENDER_ID);
+
+        ByteBuffer firstIv = ByteBuffer.wrap(first, 0, IV_LENGTH);
+        ByteBuffer secondIv = ByteBuffer.wrap(second, 0, IV_LENGTH);
+        assertEquals(SENDER_ID, firstIv.getInt());
+        assertEquals(SENDER_ID, secondIv.getInt());
+        assertEquals(firstIv.getLong() + 1, secondIv.getLong());
+    }
+
+    @Test
+    public void testNoncesAreUniqueAcrossThreads() throws Exception {
+        final Set<String> nonces = new HashSet<>();
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        byte[] packet = encrypt(SENDER_ID);
+                        if (packet == null) {
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                        synchronized (nonces) {
+                            nonces.add(Arrays.toString(Arrays.copyOf(packet, IV_LENGTH)));
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(threads.length * 500, nonces.size());
+    }
+
+    @Test
+    public void testTamperedFrameIsRejected() {
+        byte[] packet = encrypt(SENDER_ID);
+        packet[IV_LENGTH] ^= 1;
+
+        assertEquals(-1, securityManager.decryptAudioData(ByteBuffer.wrap(packet), ByteBuffer.allocate(64)));
+
+        // The cached cipher is still usable afterwards
+        byte[] valid = encrypt(SENDER_ID);
+        assertTrue(securityManager.decryptAudioData(ByteBuffer.wrap(valid), ByteBuffer.allocate(64)) > 0);
+    }
+
+    private byte[] encrypt(int senderId) {
+        ByteBuffer encrypted = ByteBuffer.allocate(32 + SecurityManager.AUDIO_FRAME_OVERHEAD);
+        if (securityManager.encryptAudioData(senderId, ByteBuffer.wrap(new byte[32]), encrypted) <= 0) {
+            return null;
+        }
+        return encrypted.array();
+    }
+}
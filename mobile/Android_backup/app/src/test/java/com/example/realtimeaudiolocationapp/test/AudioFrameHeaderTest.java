@@ -0,0 +1,72 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioFrameHeader;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JVM test for the audio frame header wire format
+ */
+public class AudioFrameHeaderTest {
+
+    @Test
+    public void testRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(AudioFrameHeader.SIZE);
+
+        AudioFrameHeader.write(buffer, 0xCAFEBABE, 0xFFFE, 0xFFFFFFF0L,
+                AudioFrameHeader.CODEC_PCM16, AudioFrameHeader.FLAG_MARKER);
+        buffer.flip();
+
+        assertEquals(0xCAFEBABE, AudioFrameHeader.readSsrc(buffer));
+        assertEquals(0xFFFE, AudioFrameHeader.readSequence(buffer));
+        assertEquals(0xFFFFFFF0L, AudioFrameHeader.readTimestamp(buffer));
+        assertEquals(AudioFrameHeader.CODEC_PCM16, AudioFrameHeader.readCodec(buffer));
+        assertEquals(AudioFrameHeader.FLAG_MARKER, AudioFrameHeader.readFlags(buffer));
+        assertEquals("Reading should not move the buffer", 0, buffer.position());
+    }
+
+    @Test
+    public void testWireLayoutIsBigEndianRegardlessOfBufferOrder() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(AudioFrameHeader.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        AudioFrameHeader.write(buffer, 0x01020304, 0x0506, 0x0708090AL, 0x0B, 0x0C);
+
+        byte[] bytes = new byte[AudioFrameHeader.SIZE];
+        buffer.flip();
+        buffer.get(bytes);
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, bytes);
+    }
+
+    @Test
+    public void testWriteAndReadAtBufferPosition() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.position(20);
+
+        AudioFrameHeader.write(buffer, 42, 7, 960, AudioFrameHeader.CODEC_PCM16, 0);
+
+        assertEquals(20 + AudioFrameHeader.SIZE, buffer.position());
+        buffer.position(20);
+        assertEquals(42, AudioFrameHeader.readSsrc(buffer));
+        assertEquals(7, AudioFrameHeader.readSequence(buffer));
+        assertEquals(960, AudioFrameHeader.readTimestamp(buffer));
+        AudioFrameHeader.skip(buffer);
+        assertEquals(20 + AudioFrameHeader.SIZE, buffer.position());
+    }
+
+    @Test
+    public void testSequenceAndTimestampAreTruncated() {
+        ByteBuffer buffer = ByteBuffer.allocate(AudioFrameHeader.SIZE);
+
+        AudioFrameHeader.write(buffer, 1, 0x10001, 0x100000002L, 0, 0);
+        buffer.flip();
+
+        assertEquals(1, AudioFrameHeader.readSequence(buffer));
+        assertEquals(2, AudioFrameHeader.readTimestamp(buffer));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioMixer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the playout mixer
+ */
+public class AudioMixerTest {
+
+    private static final int FRAME_SAMPLES = 4;
+
+    private AudioMixer mixer;
+    private short[] output;
+
+    @Before
+    public void setUp() {
+        mixer = new AudioMixer(2, FRAME_SAMPLES);
+        output = new short[FRAME_SAMPLES];
+    }
+
+    @Test
+    public void testSpeakersAreSummed() {
+        mixer.clear();
+        mixer.add(1, new short[]{100, -200, 300, 0}, 0, FRAME_SAMPLES);
+        mixer.add(2, new short[]{10, 20, -30, 5}, 0, FRAME_SAMPLES);
+
+        assertEquals(FRAME_SAMPLES, mixer.mix(output, 0));
+        assertArrayEquals(new short[]{110, -180, 270, 5}, output);
+        assertEquals(2, mixer.getInputCount());
+    }
+
+    @Test
+    public void testSumSaturatesInsteadOfWrapping() {
+        mixer.clear();
+        mixer.add(1, new short[]{30000, -30000, 20000, Short.MIN_VALUE}, 0, FRAME_SAMPLES);
+        mixer.add(2, new short[]{30000, -30000, 20000, Short.MIN_VALUE}, 0, FRAME_SAMPLES);
+
+        mixer.mix(output, 0);
+
+        assertArrayEquals(new short[]{Short.MAX_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, Short.MIN_VALUE}, output);
+    }
+
+    @Test
+    public void testPerSpeakerGain() {
+        assertTrue(mixer.setGain(1, 0.5f));
+        assertTrue(mixer.setGain(2, 0f));
+        mixer.clear();
+        mixer.add(1, new short[]{1000, -1000, 2, 0}, 0, FRAME_SAMPLES);
+        mixer.add(2, new short[]{1000, 1000, 1000, 1000}, 0, FRAME_SAMPLES);
+        mixer.add(3, new short[]{1, 1, 1, 1}, 0, FRAME_SAMPLES);
+
+        mixer.mix(output, 0);
+
+        assertArrayEquals(new short[]{501, -499, 2, 1}, output);
+        assertEquals(0.5f, mixer.getGain(1), 0.001f);
+        assertEquals(AudioMixer.UNITY_GAIN, mixer.getGain(3), 0);
+    }
+
+    @Test
+    public void testUnityGainFreesTableEntry() {
+        assertTrue(mixer.setGain(1, 2f));
+        assertTrue(mixer.setGain(2, 2f));
+        assertFalse(mixer.setGain(3, 2f));
+
+        assertTrue(mixer.setGain(1, AudioMixer.UNITY_GAIN));
+
+        assertTrue(mixer.setGain(3, 2f));
+    }
+
+    @Test
+    public void testClearStartsNewFrame() {
+        mixer.clear();
+        mixer.add(1, new short[]{5, 5, 5, 5}, 0, FRAME_SAMPLES);
+        mixer.mix(output, 0);
+
+        mixer.clear();
+        assertEquals(0, mixer.mix(output, 0));
+        mixer.add(1, new short[]{7, 7}, 0, 2);
+
+        assertEquals(2, mixer.mix(output, 0));
+        assertEquals(7, output[0]);
+        assertEquals(7, output[1]);
+    }
+}
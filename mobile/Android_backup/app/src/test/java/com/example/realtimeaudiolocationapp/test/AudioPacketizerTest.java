@@ -0,0 +1,91 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioPacketizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for fixed-duration audio framing
+ */
+public class AudioPacketizerTest {
+
+    private static final int RATE = 16000;
+
+    @Test
+    public void testFrameSizes() {
+        assertEquals(160, new AudioPacketizer(RATE, 10, 1000).getFrameSamples());
+        assertEquals(320, new AudioPacketizer(RATE, 20, 1000).getFrameSamples());
+        assertEquals(640, new AudioPacketizer(RATE, 40, 1000).getFrameSamples());
+    }
+
+    @Test
+    public void testUnevenReadsProduceContiguousFrames() {
+        AudioPacketizer packetizer = new AudioPacketizer(RATE, 20, 1000);
+        short[] frame = new short[packetizer.getFrameSamples()];
+        int[] reads = {250, 1000, 7, 321, 640, 13};
+
+        int written = 0;
+        int expectedNext = 0;
+        int frames = 0;
+        for (int count : reads) {
+            packetizer.write(ramp(written, count), 0, count);
+            written += count;
+            while (packetizer.readFrame(frame, 0)) {
+                frames++;
+                for (short sample : frame) {
+                    assertEquals("Samples must come out in order without gaps", (short) expectedNext++, sample);
+                }
+            }
+            assertTrue(packetizer.getBufferedSamples() < packetizer.getFrameSamples());
+        }
+
+        assertEquals(written / 320, frames);
+        assertEquals(written % 320, packetizer.getBufferedSamples());
+    }
+
+    @Test
+    public void testPartialFrameIsHeldBack() {
+        AudioPacketizer packetizer = new AudioPacketizer(RATE, 10, 200);
+        short[] frame = new short[160];
+
+        packetizer.write(ramp(0, 159), 0, 159);
+        assertFalse(packetizer.readFrame(frame, 0));
+
+        packetizer.write(ramp(159, 1), 0, 1);
+        assertTrue(packetizer.readFrame(frame, 0));
+        assertEquals(0, packetizer.getBufferedSamples());
+    }
+
+    @Test
+    public void testResetDropsCarryOver() {
+        AudioPacketizer packetizer = new AudioPacketizer(RATE, 20, 400);
+        packetizer.write(ramp(0, 100), 0, 100);
+
+        packetizer.reset();
+
+        assertEquals(0, packetizer.getBufferedSamples());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnsupportedDuration() {
+        new AudioPacketizer(RATE, 25, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFractionalFrame() {
+        // 10 ms at 44.1 kHz is 441 samples, but 11025 Hz would give 110.25
+        new AudioPacketizer(11025, 10, 1000);
+    }
+
+    private static short[] ramp(int start, int count) {
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = (short) (start + i);
+        }
+        return samples;
+    }
+}
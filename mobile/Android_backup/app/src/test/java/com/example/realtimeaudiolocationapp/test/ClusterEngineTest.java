@@ -0,0 +1,136 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.map.ClusterEngine;
+import com.example.realtimeaudiolocationapp.map.Clusters;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the grid clustering engine
+ */
+public class ClusterEngineTest {
+
+    private ClusterEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new ClusterEngine();
+    }
+
+    @Test
+    public void testCloseMembersShareABucket() {
+        // Two members 10 m apart, one 5 km away
+        double[] lat = {48.85660, 48.85669, 48.90160};
+        double[] lon = {2.35220, 2.35220, 2.35220};
+        int[] band = {2, 0, 1};
+
+        Clusters clusters = engine.cluster(lat, lon, band, 3, 14);
+
+        assertEquals(2, clusters.size());
+        int pair = clusters.count(0) == 2 ? 0 : 1;
+        assertEquals(2, clusters.count(pair));
+        assertEquals(0, clusters.band(pair));
+        assertEquals(-1, clusters.point(pair));
+        assertEquals(48.856645, clusters.latitude(pair), 1e-9);
+        assertEquals(1, clusters.count(1 - pair));
+        assertEquals(2, clusters.point(1 - pair));
+        assertEquals(1, clusters.band(1 - pair));
+    }
+
+    @Test
+    public void testEveryPointIsCounted() {
+        Random random = new Random(7);
+        int n = 5000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        int[] band = new int[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 48.8 + random.nextDouble() * 0.2;
+            lon[i] = 2.2 + random.nextDouble() * 0.3;
+            band[i] = random.nextInt(4);
+        }
+
+        for (int zoom = 0; zoom <= ClusterEngine.MAX_ZOOM; zoom++) {
+            Clusters clusters = engine.cluster(lat, lon, band, n, zoom);
+            int total = 0;
+            for (int i = 0; i < clusters.size(); i++) {
+                total += clusters.count(i);
+            }
+            assertEquals(n, total);
+        }
+    }
+
+    @Test
+    public void testZoomingInSplitsClusters() {
+        Random random = new Random(11);
+        int n = 1000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        int[] band = new int[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 48.85 + random.nextDouble() * 0.05;
+            lon[i] = 2.33 + random.nextDouble() * 0.05;
+        }
+
+        int previous = 0;
+        for (int zoom = 8; zoom <= 18; zoom += 2) {
+            int size = engine.cluster(lat, lon, band, n, zoom).size();
+            assertTrue(size >= previous);
+            previous = size;
+        }
+        assertEquals(1, engine.cluster(lat, lon, band, n, 4).size());
+        // Cells are about 5 m across at the closest zoom
+        assertTrue(engine.cluster(lat, lon, band, n, ClusterEngine.MAX_ZOOM).size() > n * 0.99);
+    }
+
+    @Test
+    public void testKeysAreStableWithinAZoomLevel() {
+        double[] lat = {48.8566};
+        double[] lon = {2.3522};
+        int[] band = {0};
+
+        long key = engine.cluster(lat, lon, band, 1, 15.2f).key(0);
+        assertEquals(key, engine.cluster(lat, lon, band, 1, 15.9f).key(0));
+        assertEquals(15, engine.cluster(lat, lon, band, 1, 15.9f).zoom);
+        assertNotEquals(key, engine.cluster(lat, lon, band, 1, 16).key(0));
+    }
+
+    @Test
+    public void testReuseAfterLargerRun() {
+        double[] lat = new double[100];
+        double[] lon = new double[100];
+        int[] band = new int[100];
+        for (int i = 0; i < 100; i++) {
+            lat[i] = i * 0.5;
+            lon[i] = i * 0.5;
+        }
+        assertEquals(100, engine.cluster(lat, lon, band, 100, 10).size());
+
+        Clusters clusters = engine.cluster(lat, lon, band, 3, 10);
+
+        assertEquals(3, clusters.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, clusters.count(i));
+            assertEquals(i, clusters.point(i));
+        }
+    }
+
+    @Test
+    public void testPolesAreClamped() {
+        double[] lat = {90, -90};
+        double[] lon = {0, 0};
+        int[] band = {3, 3};
+
+        Clusters clusters = engine.cluster(lat, lon, band, 2, 3);
+
+        assertEquals(2, clusters.size());
+        assertEquals(3, clusters.band(0));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.ComfortNoiseGenerator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for receiver-side comfort noise
+ */
+public class ComfortNoiseGeneratorTest {
+
+    private static final int SSRC = 0x42;
+    private static final int FRAME_SAMPLES = 320;
+
+    private ComfortNoiseGenerator generator;
+    private short[] frame;
+
+    @Before
+    public void setUp() {
+        generator = new ComfortNoiseGenerator(2, 1000);
+        frame = new short[FRAME_SAMPLES];
+    }
+
+    @Test
+    public void testLevelConversion() {
+        assertEquals(0, ComfortNoiseGenerator.toLevel(32768));
+        assertEquals(40, ComfortNoiseGenerator.toLevel(327.68));
+        assertEquals(ComfortNoiseGenerator.MAX_LEVEL, ComfortNoiseGenerator.toLevel(0));
+        assertEquals(327.68, ComfortNoiseGenerator.toRms(40), 0.01);
+    }
+
+    @Test
+    public void testNoiseMatchesAnnouncedLevel() {
+        int level = ComfortNoiseGenerator.toLevel(300);
+        generator.update(SSRC, level, 0);
+
+        double sum = 0;
+        int samples = 0;
+        for (int i = 0; i < 50; i++) {
+            assertTrue(generator.fill(SSRC, 0, frame, 0, FRAME_SAMPLES));
+            for (short sample : frame) {
+                sum += (double) sample * sample;
+                samples++;
+            }
+        }
+
+        double rms = Math.sqrt(sum / samples);
+        double errorDb = 20 * Math.log10(rms / ComfortNoiseGenerator.toRms(level));
+        assertTrue("Noise should be within 1.5 dB of the level, off by " + errorDb, Math.abs(errorDb) < 1.5);
+    }
+
+    @Test
+    public void testNoiseStopsOnSpeechOrTimeout() {
+        generator.update(SSRC, 50, 0);
+        assertTrue(generator.isActive(SSRC, 1000));
+        assertFalse(generator.isActive(SSRC, 1001));
+        assertFalse(generator.fill(SSRC, 1001, frame, 0, FRAME_SAMPLES));
+        assertEquals(0, frame[0]);
+
+        generator.update(SSRC, 50, 2000);
+        generator.stop(SSRC);
+        assertFalse(generator.fill(SSRC, 2000, frame, 0, FRAME_SAMPLES));
+    }
+
+    @Test
+    public void testOldestSenderIsReplacedWhenFull() {
+        generator.update(1, 50, 0);
+        generator.update(2, 50, 10);
+        generator.update(3, 50, 20);
+
+        assertFalse(generator.isActive(1, 20));
+        assertTrue(generator.isActive(2, 20));
+        assertTrue(generator.isActive(3, 20));
+    }
+}
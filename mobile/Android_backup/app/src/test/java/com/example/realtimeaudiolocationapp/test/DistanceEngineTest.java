@@ -0,0 +1,100 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.DistanceEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the flat-earth distance engine against the ellipsoidal
+ * reference distance
+ */
+public class DistanceEngineTest {
+
+    private DistanceEngine engine;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        engine = new DistanceEngine();
+        random = new Random(3);
+    }
+
+    @Test
+    public void testErrorWithinProximityRange() {
+        assertTrue(maxError(1000) < 0.01);
+        assertTrue(maxError(3000) < 0.05);
+    }
+
+    @Test
+    public void testErrorAtLongerRange() {
+        assertTrue(maxError(10000) < 0.5);
+    }
+
+    @Test
+    public void testBatchMatchesSingleDistances() {
+        for (int i = 0; i < 100; i++) {
+            engine.add(-33.87 + random.nextDouble() * 0.05, 151.2 + random.nextDouble() * 0.05);
+        }
+        int[] slots = {99, 3, 42, 3};
+        float[] distances = new float[slots.length];
+        engine.distances(-33.85, 151.22, slots, slots.length, distances);
+        float[] all = new float[engine.size()];
+        engine.distances(-33.85, 151.22, all);
+
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals(engine.distance(-33.85, 151.22, slots[i]), distances[i], 0);
+            assertEquals(all[slots[i]], distances[i], 0);
+        }
+    }
+
+    @Test
+    public void testSetMovesPosition() {
+        int slot = engine.add(0, 0);
+        engine.set(slot, 0, 0.01);
+
+        assertEquals(VincentyDistance.distance(0, 0, 0, 0.01), engine.distance(0, 0, slot), 0.01);
+        assertEquals(0, engine.distance(0, 0.01, slot), 0);
+    }
+
+    @Test
+    public void testAcrossAntimeridian() {
+        int slot = engine.add(64.0, -179.995);
+
+        assertEquals(VincentyDistance.distance(64.0, 179.995, 64.0, -179.995),
+                engine.distance(64.0, 179.995, slot), 0.01);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUnknownSlotIsRejected() {
+        engine.set(0, 1, 1);
+    }
+
+    /**
+     * Largest absolute error in metres for random pairs up to a distance
+     * apart, at latitudes from 80 S to 80 N
+     */
+    private double maxError(double maxMetres) {
+        DistanceEngine pairs = new DistanceEngine();
+        double maxError = 0;
+        for (int i = 0; i < 2000; i++) {
+            double latitude = (random.nextDouble() * 2 - 1) * 80;
+            double longitude = (random.nextDouble() * 2 - 1) * 180;
+            double range = random.nextDouble() * maxMetres;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double otherLatitude = latitude + range * Math.cos(angle) / 111320;
+            double otherLongitude = longitude
+                    + range * Math.sin(angle) / (111320 * Math.cos(Math.toRadians(latitude)));
+
+            int slot = pairs.add(otherLatitude, otherLongitude);
+            double expected = VincentyDistance.distance(latitude, longitude, otherLatitude, otherLongitude);
+            maxError = Math.max(maxError, Math.abs(pairs.distance(latitude, longitude, slot) - expected));
+        }
+        return maxError;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.adapters.DistanceLabels;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * JVM test for the cached distance labels
+ */
+public class DistanceLabelsTest {
+
+    private DistanceLabels labels;
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        labels = new DistanceLabels();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("0.0 m", labels.label(0));
+        assertEquals("12.3 m", labels.label(12.34f));
+        assertEquals("12.4 m", labels.label(12.36f));
+        assertEquals("1523.0 m", labels.label(1523));
+    }
+
+    @Test
+    public void testSameTenthIsCached() {
+        String label = labels.label(250.01f);
+
+        assertSame(label, labels.label(250.04f));
+    }
+
+    @Test
+    public void testSlotCollisionReformats() {
+        // 0.0 and 25.6 m share a slot
+        assertEquals("0.0 m", labels.label(0));
+        assertEquals("25.6 m", labels.label(25.6f));
+        assertEquals("0.0 m", labels.label(0));
+    }
+
+    @Test
+    public void testLocaleChange() {
+        assertEquals("12.3 m", labels.label(12.3f));
+        Locale.setDefault(Locale.GERMANY);
+
+        assertEquals("12,3 m", labels.label(12.3f));
+    }
+}
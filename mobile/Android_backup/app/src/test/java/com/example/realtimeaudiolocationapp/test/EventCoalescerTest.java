@@ -0,0 +1,123 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.util.EventCoalescer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for coalescing of listener events
+ */
+public class EventCoalescerTest {
+
+    private List<Runnable> scheduled;
+    private List<Long> delays;
+    private List<List<String>> delivered;
+    private EventCoalescer.Scheduler scheduler;
+    private EventCoalescer<String> reentrant;
+
+    @Before
+    public void setUp() {
+        scheduled = new ArrayList<>();
+        delays = new ArrayList<>();
+        delivered = new ArrayList<>();
+        scheduler = (task, delayMs) -> {
+            scheduled.add(task);
+            delays.add(delayMs);
+        };
+    }
+
+    @Test
+    public void testBurstIsDeliveredOnce() {
+        EventCoalescer<String> coalescer = coalescer(false);
+        String alice = "alice";
+        String bob = "bob";
+
+        // A 50-member round where every member updates twice
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 50; i++) {
+                coalescer.changed(i % 2 == 0 ? alice : bob);
+            }
+        }
+
+        assertEquals(1, scheduled.size());
+        assertEquals(16L, (long) delays.get(0));
+        runScheduled();
+        assertEquals(1, delivered.size());
+        assertEquals(Arrays.asList(alice, bob), delivered.get(0));
+    }
+
+    @Test
+    public void testOnlyChangesSinceLastDelivery() {
+        EventCoalescer<String> coalescer = coalescer(false);
+        String alice = "alice";
+        String bob = "bob";
+        coalescer.changed(alice);
+        runScheduled();
+
+        coalescer.changed(bob);
+        runScheduled();
+
+        assertEquals(Arrays.asList(Arrays.asList(alice), Arrays.asList(bob)), delivered);
+    }
+
+    @Test
+    public void testLatestOnly() {
+        EventCoalescer<String> coalescer = coalescer(true);
+
+        coalescer.changed("first");
+        coalescer.changed("second");
+        coalescer.changed("third");
+        runScheduled();
+
+        assertEquals(Arrays.asList(Arrays.asList("third")), delivered);
+    }
+
+    @Test
+    public void testChangeDuringDeliveryIsDeliveredNext() {
+        String alice = "alice";
+        String bob = "bob";
+        reentrant = new EventCoalescer<>(scheduler, 16, false, changed -> {
+            delivered.add(new ArrayList<>(changed));
+            if (delivered.size() == 1) {
+                reentrant.changed(bob);
+            }
+        });
+
+        reentrant.changed(alice);
+        runScheduled();
+        runScheduled();
+
+        assertEquals(Arrays.asList(Arrays.asList(alice), Arrays.asList(bob)), delivered);
+    }
+
+    @Test
+    public void testClearDropsPendingChanges() {
+        EventCoalescer<String> coalescer = coalescer(false);
+
+        coalescer.changed("alice");
+        coalescer.clear();
+        runScheduled();
+
+        assertTrue(delivered.isEmpty());
+    }
+
+    private EventCoalescer<String> coalescer(boolean latestOnly) {
+        return new EventCoalescer<>(scheduler, 16, latestOnly, changed -> delivered.add(new ArrayList<>(changed)));
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic 1 Hz GPS trace of a vehicle, built from parked, stop-and-go and
+ * cruising segments. Each second has the true position and the fix a phone
+ * would report: the true position plus a slowly wandering error of a few
+ * metres, with speed and accuracy. The vehicle drives east along a parallel.
+ * {@link #setErrors} makes the fixes worse, e.g. for an urban canyon.
+ */
+public class GpsTraceSimulator {
+    private static final double METRES_PER_DEGREE = 111320;
+
+    private final Random random;
+    private final double latitude;
+    private double east;
+    private double errorEast;
+    private double errorNorth;
+    private double errorScale = 1;
+    private double outlierProbability;
+    private int length;
+    private double[] trueLatitudes = new double[1024];
+    private double[] trueLongitudes = new double[1024];
+    private double[] latitudes = new double[1024];
+    private double[] longitudes = new double[1024];
+    private float[] speeds = new float[1024];
+    private float[] accuracies = new float[1024];
+
+    public GpsTraceSimulator(long seed, double latitude, double longitude) {
+        this.random = new Random(seed);
+        this.latitude = latitude;
+        this.east = longitude * METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+    }
+
+    /**
+     * Change the error of the fixes added from now on
+     * @param scale Multiplier of the default error of a few metres, and of the reported accuracy
+     * @param outlierProbability Chance per fix of a multipath jump of 40 to 100 m that the
+     *                           reported accuracy does not reflect
+     */
+    public GpsTraceSimulator setErrors(double scale, double outlierProbability) {
+        this.errorScale = scale;
+        this.outlierProbability = outlierProbability;
+        return this;
+    }
+
+    /**
+     * Stand still
+     */
+    public GpsTraceSimulator park(int seconds) {
+        for (int i = 0; i < seconds; i++) {
+            add(0);
+        }
+        return this;
+    }
+
+    /**
+     * Drive at a steady speed with a little variation
+     */
+    public GpsTraceSimulator cruise(int seconds, double speed) {
+        for (int i = 0; i < seconds; i++) {
+            add(Math.max(0, speed + random.nextGaussian()));
+        }
+        return this;
+    }
+
+    /**
+     * City traffic: accelerate to a top speed, brake, wait at a light, repeat
+     */
+    public GpsTraceSimulator stopAndGo(int seconds, double topSpeed) {
+        int i = 0;
+        while (i < seconds) {
+            int moving = 20 + random.nextInt(40);
+            for (int t = 0; t < moving && i < seconds; t++, i++) {
+                add(topSpeed * Math.sin(Math.PI * t / moving));
+            }
+            int waiting = 10 + random.nextInt(30);
+            for (int t = 0; t < waiting && i < seconds; t++, i++) {
+                add(0);
+            }
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** Fix time in ms of second i */
+    public long time(int i) {
+        return i * 1000L;
+    }
+
+    public double trueLatitude(int i) {
+        return trueLatitudes[i];
+    }
+
+    public double trueLongitude(int i) {
+        return trueLongitudes[i];
+    }
+
+    /** Reported latitude of second i */
+    public double latitude(int i) {
+        return latitudes[i];
+    }
+
+    /** Reported longitude of second i */
+    public double longitude(int i) {
+        return longitudes[i];
+    }
+
+    public float speed(int i) {
+        return speeds[i];
+    }
+
+    public float accuracy(int i) {
+        return accuracies[i];
+    }
+
+    /**
+     * Flat-earth distance in metres between two points of the trace
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double north = (latitude2 - latitude1) * METRES_PER_DEGREE;
+        double east = (longitude2 - longitude1) * METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude1));
+        return Math.sqrt(north * north + east * east);
+    }
+
+    private void add(double speed) {
+        if (length == latitudes.length) {
+            int capacity = length * 2;
+            trueLatitudes = Arrays.copyOf(trueLatitudes, capacity);
+            trueLongitudes = Arrays.copyOf(trueLongitudes, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            accuracies = Arrays.copyOf(accuracies, capacity);
+        }
+        east += speed;
+        // GPS error is a random walk pulled back towards zero, a few metres typical
+        errorEast = errorEast * 0.9 + random.nextGaussian() * 1.5 * errorScale;
+        errorNorth = errorNorth * 0.9 + random.nextGaussian() * 1.5 * errorScale;
+        double jumpEast = 0;
+        double jumpNorth = 0;
+        if (outlierProbability > 0 && random.nextDouble() < outlierProbability) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double jump = 40 + random.nextDouble() * 60;
+            jumpEast = jump * Math.cos(angle);
+            jumpNorth = jump * Math.sin(angle);
+        }
+
+        double metresPerLongitude = METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        trueLatitudes[length] = latitude;
+        trueLongitudes[length] = east / metresPerLongitude;
+        latitudes[length] = latitude + (errorNorth + jumpNorth) / METRES_PER_DEGREE;
+        longitudes[length] = (east + errorEast + jumpEast) / metresPerLongitude;
+        // Phones report speed noise even when parked
+        speeds[length] = (float) Math.max(0, speed + random.nextGaussian() * 0.2);
+        accuracies[length] = (float) ((6 + random.nextDouble() * 6) * errorScale);
+        length++;
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioFramePool;
+import com.example.realtimeaudiolocationapp.audio.JitterBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the jitter buffer, driven by synthetic arrival traces
+ */
+public class JitterBufferTest {
+
+    private static final int FRAME_MS = 20;
+    private static final int SSRC_A = 0xA;
+    private static final int SSRC_B = 0xB;
+
+    private AudioFramePool pool;
+    private JitterBuffer jitterBuffer;
+    private final int[] ssrcs = new int[4];
+    private final ByteBuffer[] frames = new ByteBuffer[4];
+
+    @Before
+    public void setUp() {
+        pool = new AudioFramePool(64, 4);
+        jitterBuffer = new JitterBuffer(pool, FRAME_MS, 2, 20, 4, 1000);
+    }
+
+    @Test
+    public void testInOrderTracePlaysEveryFrame() {
+        List<Integer> played = new ArrayList<>();
+        for (int seq = 0; seq < 100; seq++) {
+            offer(SSRC_A, seq, seq * FRAME_MS);
+            tick(seq * FRAME_MS, played);
+        }
+
+        assertEquals(99, played.size());
+        for (int i = 0; i < played.size(); i++) {
+            assertEquals(i, (int) played.get(i));
+        }
+        assertEquals(0, jitterBuffer.getLateFrameCount());
+        assertEquals(0, jitterBuffer.getLostFrameCount());
+        assertEquals(2, jitterBuffer.getTargetDepth(SSRC_A));
+    }
+
+    @Test
+    public void testReorderedFramesPlayInSequence() {
+        // Arrival order 1, 0, 3, 2, 5, 4 ...
+        List<Integer> played = new ArrayList<>();
+        for (int i = 0; i < 100; i += 2) {
+            long t = i * FRAME_MS;
+            offer(SSRC_A, i + 1, t);
+            offer(SSRC_A, i, t + 1);
+            tick(t + 1, played);
+            tick(t + FRAME_MS + 1, played);
+        }
+
+        for (int i = 0; i < played.size(); i++) {
+            assertEquals(i, (int) played.get(i));
+        }
+        assertEquals(0, jitterBuffer.getLateFrameCount());
+    }
+
+    @Test
+    public void testLateFrameIsDropped() {
+        List<Integer> played = new ArrayList<>();
+        for (int seq = 0; seq < 10; seq++) {
+            if (seq != 4) {
+                offer(SSRC_A, seq, seq * FRAME_MS);
+            }
+            tick(seq * FRAME_MS, played);
+        }
+
+        // Frame 4 turns up after its slot was played out as a loss
+        assertFalse(offer(SSRC_A, 4, 10 * FRAME_MS));
+        assertEquals(1, jitterBuffer.getLateFrameCount());
+        assertEquals(1, jitterBuffer.getLostFrameCount());
+        assertFalse(played.contains(4));
+    }
+
+    @Test
+    public void testMissingFrameIsFlaggedLost() {
+        boolean[] lost = new boolean[4];
+        List<Integer> played = new ArrayList<>();
+        int lostSlots = 0;
+        for (int seq = 0; seq < 10; seq++) {
+            if (seq != 4) {
+                offer(SSRC_A, seq, seq * FRAME_MS);
+            }
+            if (seq == 5) {
+                // Frame 5 arrived but 4 is still due, so a redundant copy would help
+                assertTrue(jitterBuffer.isMissing(SSRC_A, 4));
+            }
+
+            assertEquals(1, jitterBuffer.drain(seq * FRAME_MS, ssrcs, frames, lost));
+            if (frames[0] != null) {
+                assertFalse(lost[0]);
+                played.add((int) frames[0].getShort(0));
+                pool.release(frames[0]);
+            } else if (lost[0]) {
+                // The gap is flagged in the slot where frame 4 should have played
+                assertEquals(Arrays.asList(0, 1, 2, 3), played);
+                lostSlots++;
+            }
+        }
+
+        assertEquals(1, lostSlots);
+        // Once its slot has played, the frame is no longer wanted
+        assertFalse(jitterBuffer.isMissing(SSRC_A, 4));
+        assertEquals(1, jitterBuffer.getLostFrameCount());
+    }
+
+    @Test
+    public void testRecoveredFrameFillsGap() {
+        List<Integer> played = new ArrayList<>();
+        for (int seq = 0; seq < 10; seq++) {
+            if (seq != 4) {
+                offer(SSRC_A, seq, seq * FRAME_MS);
+            }
+            if (seq == 5 && jitterBuffer.isMissing(SSRC_A, 4)) {
+                // A redundant copy of frame 4 arrives with frame 5
+                offer(SSRC_A, 4, seq * FRAME_MS);
+            }
+            tick(seq * FRAME_MS, played);
+        }
+
+        assertTrue(played.contains(4));
+        assertEquals(0, jitterBuffer.getLostFrameCount());
+    }
+
+    @Test
+    public void testDuplicateFrameIsDiscarded() {
+        assertTrue(offer(SSRC_A, 7, 0));
+        assertFalse(offer(SSRC_A, 7, 1));
+        assertEquals(1, jitterBuffer.getDiscardedFrameCount());
+        assertEquals(1, jitterBuffer.getBufferedFrames(SSRC_A));
+    }
+
+    @Test
+    public void testTargetDepthAdaptsToJitter() {
+        Random random = new Random(42);
+        List<Integer> played = new ArrayList<>();
+        List<long[]> arrivals = new ArrayList<>();
+        for (int seq = 0; seq < 500; seq++) {
+            // Up to 100 ms of network delay variation
+            arrivals.add(new long[]{seq * FRAME_MS + random.nextInt(100), seq});
+        }
+        arrivals.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        int next = 0;
+        for (long t = 0; t < 500 * FRAME_MS + 200; t += FRAME_MS) {
+            while (next < arrivals.size() && arrivals.get(next)[0] <= t) {
+                offer(SSRC_A, (int) arrivals.get(next)[1], arrivals.get(next)[0]);
+                next++;
+            }
+            tick(t, played);
+        }
+
+        int depth = jitterBuffer.getTargetDepth(SSRC_A);
+        assertTrue("Target depth should grow with jitter, was " + depth, depth > 2);
+        assertTrue("Target depth should respect the maximum", depth <= 20);
+        assertTrue("Adaptive depth should keep late frames rare, was " + jitterBuffer.getLateFrameCount(),
+                jitterBuffer.getLateFrameCount() < 25);
+    }
+
+    @Test
+    public void testBurstIsTrimmedToTargetDepth() {
+        // A stalled connection delivers 15 frames at once
+        for (int seq = 0; seq < 15; seq++) {
+            offer(SSRC_A, seq, 0);
+        }
+        List<Integer> played = new ArrayList<>();
+        tick(0, played);
+
+        int target = jitterBuffer.getTargetDepth(SSRC_A);
+        assertTrue(jitterBuffer.getBufferedFrames(SSRC_A) <= target + 2);
+        assertTrue(jitterBuffer.getDiscardedFrameCount() > 0);
+        // Oldest frames are skipped so playout resumes close to the live edge
+        assertEquals(15 - (target + 2), (int) played.get(0));
+    }
+
+    @Test
+    public void testSendersAreBufferedIndependently() {
+        for (int seq = 0; seq < 3; seq++) {
+            offer(SSRC_A, seq, seq * FRAME_MS);
+            offer(SSRC_B, 100 + seq, seq * FRAME_MS);
+        }
+
+        int count = jitterBuffer.drain(60, ssrcs, frames);
+
+        assertEquals(2, count);
+        for (int i = 0; i < count; i++) {
+            int expected = ssrcs[i] == SSRC_A ? 0 : 100;
+            assertEquals(expected, frames[i].getShort(0));
+            pool.release(frames[i]);
+        }
+    }
+
+    @Test
+    public void testSequenceWrapAround() {
+        List<Integer> played = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int seq = (65530 + i) & 0xFFFF;
+            offer(SSRC_A, seq, i * FRAME_MS);
+            tick(i * FRAME_MS, played);
+        }
+
+        for (int i = 0; i < played.size(); i++) {
+            assertEquals((65530 + i) & 0xFFFF, played.get(i) & 0xFFFF);
+        }
+        assertEquals(0, jitterBuffer.getLateFrameCount());
+    }
+
+    @Test
+    public void testSenderRestartingAtLowerSequenceResynchronises() {
+        List<Integer> played = new ArrayList<>();
+        long t = 0;
+        for (int seq = 1000; seq < 1100; seq++, t += FRAME_MS) {
+            offer(SSRC_A, seq, t);
+            tick(t, played);
+        }
+
+        // Capture restarts with the same sender id and sequence numbers from 0
+        played.clear();
+        for (int seq = 0; seq < 20; seq++, t += FRAME_MS) {
+            assertTrue(offer(SSRC_A, seq, t));
+            tick(t, played);
+        }
+
+        assertEquals(0, jitterBuffer.getLateFrameCount());
+        assertTrue(played.size() >= 15);
+        for (int i = 0; i < played.size(); i++) {
+            assertEquals(i, (int) played.get(i));
+        }
+    }
+
+    @Test
+    public void testDroppedFramesDoNotKeepStreamAlive() {
+        List<Integer> played = new ArrayList<>();
+        for (int seq = 0; seq < 10; seq++) {
+            offer(SSRC_A, seq, seq * FRAME_MS);
+            tick(seq * FRAME_MS, played);
+        }
+        for (int i = 0; i < 5; i++) {
+            tick((10 + i) * FRAME_MS, played);
+        }
+
+        // Only late frames from then on
+        for (long t = 300; t < 1200; t += FRAME_MS) {
+            assertFalse(offer(SSRC_A, 5, t));
+            tick(t, played);
+        }
+        assertEquals(1, jitterBuffer.getStreamCount());
+
+        // Idle since the last kept frame at 180 ms
+        tick(1200, played);
+
+        assertEquals(0, jitterBuffer.getStreamCount());
+    }
+
+    @Test
+    public void testIdleStreamIsRemovedAndFramesReturned() {
+        for (int seq = 0; seq < 3; seq++) {
+            offer(SSRC_A, seq, 0);
+        }
+        List<Integer> played = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tick(i * FRAME_MS, played);
+        }
+        assertEquals(1, jitterBuffer.getStreamCount());
+
+        tick(5000, played);
+
+        assertEquals(0, jitterBuffer.getStreamCount());
+        assertEquals(64, pool.getFreeCount());
+    }
+
+    @Test
+    public void testListenerIsToldAboutIdleStreams() {
+        List<Integer> removed = new ArrayList<>();
+        jitterBuffer.setStreamListener(removed::add);
+        offer(SSRC_A, 0, 0);
+        offer(SSRC_A, 1, 0);
+        List<Integer> played = new ArrayList<>();
+        tick(FRAME_MS, played);
+        tick(2 * FRAME_MS, played);
+        offer(SSRC_B, 0, 900);
+
+        tick(1500, played);
+
+        assertEquals(Arrays.asList(SSRC_A), removed);
+        assertEquals(1, jitterBuffer.getStreamCount());
+    }
+
+    @Test
+    public void testPauseBetweenTalkspurtsIsNotJitter() {
+        List<Integer> played = new ArrayList<>();
+        long t = 0;
+        for (int seq = 0; seq < 50; seq++, t += FRAME_MS) {
+            offer(SSRC_A, seq, t);
+            tick(t, played);
+        }
+
+        // The sender suppresses 1.5 s of silence and resumes with the next sequence number
+        for (long pauseEnd = t + 1500; t < pauseEnd; t += FRAME_MS) {
+            jitterBuffer.touch(SSRC_A, t);
+            tick(t, played);
+        }
+        ByteBuffer frame = pool.acquire();
+        frame.putShort(0, (short) 50);
+        assertTrue(jitterBuffer.offer(SSRC_A, 50, true, t, frame));
+        for (int seq = 51; seq < 60; seq++) {
+            t += FRAME_MS;
+            offer(SSRC_A, seq, t);
+            tick(t, played);
+        }
+
+        assertEquals(1, jitterBuffer.getStreamCount());
+        assertEquals(2, jitterBuffer.getTargetDepth(SSRC_A));
+        assertEquals(0, jitterBuffer.getLateFrameCount());
+        // Everything but the newest frame has played, in order
+        assertEquals(59, played.size());
+        for (int i = 0; i < played.size(); i++) {
+            assertEquals(i, (int) played.get(i));
+        }
+    }
+
+    @Test
+    public void testClearReturnsFramesToPool() {
+        for (int seq = 0; seq < 10; seq++) {
+            offer(SSRC_A, seq, 0);
+        }
+
+        jitterBuffer.clear();
+
+        assertEquals(0, jitterBuffer.getStreamCount());
+        assertEquals(64, pool.getFreeCount());
+        assertNull(firstFrame(0));
+    }
+
+    private boolean offer(int ssrc, int seq, long arrivalMs) {
+        ByteBuffer frame = pool.acquire();
+        frame.putShort(0, (short) seq);
+        return jitterBuffer.offer(ssrc, seq, arrivalMs, frame);
+    }
+
+    private void tick(long nowMs, List<Integer> played) {
+        int count = jitterBuffer.drain(nowMs, ssrcs, frames);
+        for (int i = 0; i < count; i++) {
+            if (frames[i] != null) {
+                played.add((int) frames[i].getShort(0) & 0xFFFF);
+                pool.release(frames[i]);
+            }
+        }
+    }
+
+    private ByteBuffer firstFrame(long nowMs) {
+        int count = jitterBuffer.drain(nowMs, ssrcs, frames);
+        return count > 0 ? frames[0] : null;
+    }
+}
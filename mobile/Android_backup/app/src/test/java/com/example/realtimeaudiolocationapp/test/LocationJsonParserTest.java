@@ -0,0 +1,143 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.LocationJsonParser;
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the streaming parser of JSON location messages
+ */
+public class LocationJsonParserTest {
+
+    private LocationJsonParser parser;
+    private LocationUpdate update;
+
+    @Before
+    public void setUp() {
+        parser = new LocationJsonParser();
+        update = new LocationUpdate();
+    }
+
+    @Test
+    public void testLegacyMessage() {
+        assertTrue(parser.parse("{\"id\":\"m-1\",\"name\":\"Alex\",\"latitude\":37.7749295,\"longitude\":-122.4194155}",
+                update));
+
+        assertEquals("m-1", parser.getId());
+        assertEquals("Alex", parser.getName());
+        assertEquals(37.7749295, update.getLatitude(), 1e-7);
+        assertEquals(-122.4194155, update.getLongitude(), 1e-7);
+        assertEquals(-1, update.memberIndex);
+        assertFalse(update.hasAccuracy());
+        assertFalse(update.hasSpeed());
+        assertFalse(update.hasBearing());
+        assertEquals(0, update.timeMs);
+    }
+
+    @Test
+    public void testOptionalFieldsInAnyOrder() {
+        assertTrue(parser.parse(" { \"time\" : 1767225600123 , \"bearing\": 212.5, \"longitude\": 13.405,\n"
+                + "\t\"speed\": 1.4, \"name\": \"Sam\", \"accuracy\": 6.5, \"latitude\": 52.52, \"id\": \"m-2\" } ",
+                update));
+
+        assertEquals("m-2", parser.getId());
+        assertEquals(52.52, update.getLatitude(), 1e-7);
+        assertEquals(6.5f, update.accuracy, 0);
+        assertEquals(1.4f, update.speed, 0);
+        assertEquals(212.5f, update.bearing, 0);
+        assertEquals(1767225600123L, update.timeMs);
+    }
+
+    @Test
+    public void testUnknownFieldsAreSkipped() {
+        assertTrue(parser.parse("{\"v\":2,\"meta\":{\"tags\":[\"a\",{\"b\":\"}\"}],\"ok\":true},\"id\":\"m-3\","
+                + "\"note\":null,\"name\":\"Kim\",\"latitude\":1e1,\"altitude\":-3.5E+2,\"longitude\":-0.5}", update));
+
+        assertEquals("Kim", parser.getName());
+        assertEquals(10, update.getLatitude(), 1e-7);
+        assertEquals(-0.5, update.getLongitude(), 1e-7);
+    }
+
+    @Test
+    public void testEscapedStrings() {
+        assertTrue(parser.parse("{\"id\":\"m\\\"4\",\"name\":\"Zo\\u00eb\\n\\\\\",\"latitude\":0,\"longitude\":0}",
+                update));
+
+        assertEquals("m\"4", parser.getId());
+        assertEquals("Zo\u00eb\n\\", parser.getName());
+    }
+
+    @Test
+    public void testRepeatSendersReuseStrings() {
+        parser.parse("{\"id\":\"m-5\",\"name\":\"Lee\",\"latitude\":1,\"longitude\":2}", update);
+        String id = parser.getId();
+        String name = parser.getName();
+        parser.parse("{\"id\":\"m-6\",\"name\":\"Ana\",\"latitude\":1,\"longitude\":2}", update);
+        parser.parse("{\"id\":\"m-5\",\"name\":\"Lee\",\"latitude\":3,\"longitude\":4}", update);
+
+        assertSame(id, parser.getId());
+        assertSame(name, parser.getName());
+    }
+
+    @Test
+    public void testCacheStartsOverWhenFull() {
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(parser.parse("{\"id\":\"m" + i + "\",\"name\":\"n" + i + "\",\"latitude\":1,\"longitude\":2}",
+                    update));
+            assertEquals("m" + i, parser.getId());
+            assertEquals("n" + i, parser.getName());
+        }
+    }
+
+    @Test
+    public void testNumbersMatchJsonObject() throws Exception {
+        Random random = new Random(20);
+        for (int i = 0; i < 10000; i++) {
+            double latitude = (random.nextDouble() - 0.5) * 180;
+            double longitude = (random.nextDouble() - 0.5) * 360;
+            String latitudeText = i % 2 == 0 ? String.valueOf(latitude) : String.format(Locale.ROOT, "%.7f", latitude);
+            String text = "{\"id\":\"m\",\"name\":\"n\",\"latitude\":" + latitudeText
+                    + ",\"longitude\":" + longitude + "}";
+
+            assertTrue(text, parser.parse(text, update));
+            JSONObject json = new JSONObject(text);
+            assertEquals(text, json.getDouble("latitude"), update.getLatitude(), 1e-7);
+            assertEquals(text, json.getDouble("longitude"), update.getLongitude(), 1e-7);
+        }
+    }
+
+    @Test
+    public void testMalformedMessages() {
+        String[] messages = {
+                "",
+                "[]",
+                "{}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":1}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":1,\"longitude\":2",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":1,\"longitude\":2,}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":1 \"longitude\":2}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":\"1\",\"longitude\":2}",
+                "{\"id\":7,\"name\":\"n\",\"latitude\":1,\"longitude\":2}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":1-2,\"longitude\":2}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":-,\"longitude\":2}",
+                "{\"id\":\"m\",\"name\":\"n\",\"latitude\":91,\"longitude\":2}",
+                "{\"id\":\"m\\u00zz\",\"name\":\"n\",\"latitude\":1,\"longitude\":2}",
+                "{\"id\":\"m\",\"name\":\"n",
+        };
+
+        for (String message : messages) {
+            assertFalse(message, parser.parse(message, update));
+        }
+    }
+}
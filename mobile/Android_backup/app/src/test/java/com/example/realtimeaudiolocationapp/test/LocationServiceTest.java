@@ -6,6 +6,7 @@ import android.location.Location;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
 import com.example.realtimeaudiolocationapp.models.GroupMember;
 import com.example.realtimeaudiolocationapp.services.LocationService;
 
@@ -86,11 +87,9 @@ public class LocationServiceTest {
         // Set initial proximity level
         member.setProximityLevel(LocationService.ProximityLevel.OUT_OF_RANGE);
         
-        // Create a location
-        Location location = new Location("test");
-        location.setLatitude(37.7749);
-        location.setLongitude(-122.4194);
-        member.setLocation(location);
+        // Set a location
+        member.getPosition().set(new LocationUpdate().set(0, 37.7749, -122.4194,
+                Float.NaN, Float.NaN, Float.NaN, System.currentTimeMillis()));
         
         // Set distance
         float distance = 250.0f; // Medium range
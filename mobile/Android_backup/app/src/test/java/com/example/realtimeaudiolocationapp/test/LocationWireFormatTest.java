@@ -0,0 +1,213 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.location.MemberDirectory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the binary location encoding and member index directory
+ */
+public class LocationWireFormatTest {
+
+    private static final long FIX_TIME = 1767225600123L; // 2026-01-01
+
+    private ByteBuffer buffer;
+    private LocationUpdate decoded;
+
+    @Before
+    public void setUp() {
+        buffer = ByteBuffer.allocate(LocationWireFormat.MAX_MEMBER_SIZE);
+        decoded = new LocationUpdate();
+    }
+
+    @Test
+    public void testLocationRoundTrip() {
+        LocationUpdate update = new LocationUpdate().set(3, 37.7749295, -122.4194155, 4.5f, 13.41f, 271.25f, FIX_TIME);
+
+        int size = LocationWireFormat.writeLocation(buffer, update);
+        buffer.flip();
+
+        assertEquals(size, buffer.remaining());
+        assertEquals(LocationWireFormat.TYPE_LOCATION, LocationWireFormat.readType(buffer));
+        assertTrue(LocationWireFormat.readLocation(buffer, decoded));
+        assertFalse(buffer.hasRemaining());
+        assertEquals(3, decoded.memberIndex);
+        assertEquals(37.7749295, decoded.getLatitude(), 1e-7);
+        assertEquals(-122.4194155, decoded.getLongitude(), 1e-7);
+        assertEquals(4.5f, decoded.accuracy, 0.05f);
+        assertEquals(13.41f, decoded.speed, 0.005f);
+        assertEquals(271.25f, decoded.bearing, 0.005f);
+        assertEquals(FIX_TIME, decoded.timeMs);
+    }
+
+    @Test
+    public void testTypicalLocationIsCompact() {
+        LocationUpdate update = new LocationUpdate().set(5, 51.5007292, -0.1246254, 8f, 1.2f, 90f, FIX_TIME);
+
+        int size = LocationWireFormat.writeLocation(buffer, update);
+
+        assertEquals(23, size);
+        assertTrue(size <= LocationWireFormat.MAX_LOCATION_SIZE);
+    }
+
+    @Test
+    public void testUnknownFieldsAreOmitted() {
+        LocationUpdate update = new LocationUpdate().set(0, -33.8567844, 151.2152967,
+                Float.NaN, Float.NaN, Float.NaN, FIX_TIME);
+
+        int size = LocationWireFormat.writeLocation(buffer, update);
+        buffer.flip();
+
+        assertEquals(17, size);
+        assertTrue(LocationWireFormat.readLocation(buffer, decoded));
+        assertFalse(decoded.hasAccuracy());
+        assertFalse(decoded.hasSpeed());
+        assertFalse(decoded.hasBearing());
+        assertEquals(-33.8567844, decoded.getLatitude(), 1e-7);
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LocationUpdate update = new LocationUpdate().set(1, 0, 0, 100000f, -1f, -90f, 0);
+
+        LocationWireFormat.writeLocation(buffer, update);
+        buffer.flip();
+
+        assertTrue(LocationWireFormat.readLocation(buffer, decoded));
+        assertEquals(6553.5f, decoded.accuracy, 0.01f);
+        assertEquals(0f, decoded.speed, 0);
+        assertEquals(270f, decoded.bearing, 0.01f);
+    }
+
+    @Test
+    public void testTruncatedLocationIsRejected() {
+        LocationUpdate update = new LocationUpdate().set(3, 10, 20, 1f, 2f, 3f, FIX_TIME);
+        int size = LocationWireFormat.writeLocation(buffer, update);
+
+        for (int length = 0; length < size; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(buffer.array(), 0, length);
+            assertFalse("Length " + length, LocationWireFormat.readLocation(truncated, decoded));
+        }
+    }
+
+    @Test
+    public void testMemberRoundTrip() {
+        LocationWireFormat.writeMember(buffer, 300, "user-42", "Zo\u00eb");
+        buffer.flip();
+
+        assertEquals(LocationWireFormat.TYPE_MEMBER, LocationWireFormat.readType(buffer));
+        assertFalse(LocationWireFormat.readLocation(buffer.duplicate(), decoded));
+        assertEquals(300, LocationWireFormat.readMemberIndex(buffer));
+        assertEquals("user-42", LocationWireFormat.readString(buffer));
+        assertEquals("Zo\u00eb", LocationWireFormat.readString(buffer));
+        assertNull(LocationWireFormat.readString(buffer));
+    }
+
+    @Test
+    public void testDirectoryResolvesAnnouncedMembers() {
+        MemberDirectory directory = new MemberDirectory("me", "Me");
+        int preferred = MemberDirectory.preferredIndex("me");
+        // Members we did not know yet are answered with our own announcement
+        assertTrue(directory.bind(preferred, "alice", "Alice"));
+        assertTrue(directory.bind(preferred + 1, "bob", "Bob"));
+
+        // The first free index from the preferred one is claimed
+        assertEquals(preferred + 2, directory.getLocalIndex());
+        assertEquals("alice", directory.getId(preferred));
+        assertEquals("Bob", directory.getName(preferred + 1));
+        assertEquals("me", directory.getId(preferred + 2));
+        assertNull(directory.getId(preferred + 7));
+
+        // A member that re-announces under a new index releases the old one
+        assertFalse(directory.bind(preferred + 5, "alice", "Alice"));
+        assertNull(directory.getId(preferred));
+        assertEquals("alice", directory.getId(preferred + 5));
+    }
+
+    @Test
+    public void testIndexConflictIsResolvedById() {
+        MemberDirectory directory = new MemberDirectory("m", "M");
+        int preferred = MemberDirectory.preferredIndex("m");
+        assertEquals(preferred, directory.getLocalIndex());
+
+        // A larger id claiming our index must move; we re-announce to tell it
+        assertTrue(directory.bind(preferred, "z", "Z"));
+        assertEquals(preferred, directory.getLocalIndex());
+
+        // A smaller id wins the index and we move
+        assertTrue(directory.bind(preferred, "a", "A"));
+        assertEquals(preferred + 1, directory.getLocalIndex());
+        assertEquals("a", directory.getId(preferred));
+    }
+
+    @Test
+    public void testOwnAnnouncementAndHugeIndicesAreIgnored() {
+        MemberDirectory directory = new MemberDirectory("me", "Me");
+
+        assertFalse(directory.bind(4, "me", "Me"));
+        assertFalse(directory.bind(Integer.MAX_VALUE, "x", "X"));
+        assertEquals(MemberDirectory.preferredIndex("me"), directory.getLocalIndex());
+    }
+
+    @Test
+    public void testLateJoinerLearnsSettledGroup() {
+        MemberDirectory alice = new MemberDirectory("alice", "Alice");
+        MemberDirectory bob = new MemberDirectory("bob", "Bob");
+        List<MemberDirectory> group = new ArrayList<>(Arrays.asList(alice, bob));
+        announce(group, alice);
+        announce(group, bob);
+
+        // The newcomer prefers the index alice already holds and knows nobody yet
+        String id = "carol";
+        for (int i = 0; MemberDirectory.preferredIndex(id) != alice.getLocalIndex(); i++) {
+            id = "carol-" + i;
+        }
+        MemberDirectory carol = new MemberDirectory(id, "Carol");
+        group.add(carol);
+        announce(group, carol);
+
+        assertNotEquals(alice.getLocalIndex(), bob.getLocalIndex());
+        assertNotEquals(alice.getLocalIndex(), carol.getLocalIndex());
+        assertNotEquals(bob.getLocalIndex(), carol.getLocalIndex());
+        for (MemberDirectory directory : group) {
+            for (MemberDirectory member : group) {
+                assertEquals(member.getLocalId(), directory.getId(member.getLocalIndex()));
+            }
+        }
+    }
+
+    /**
+     * Deliver a member message to every other directory, and the answers it
+     * causes, until nobody has to announce again
+     */
+    private static void announce(List<MemberDirectory> group, MemberDirectory first) {
+        ArrayDeque<MemberDirectory> pending = new ArrayDeque<>();
+        pending.add(first);
+        while (!pending.isEmpty()) {
+            MemberDirectory sender = pending.poll();
+            int index = sender.getLocalIndex();
+            for (MemberDirectory receiver : group) {
+                if (receiver != sender
+                        && receiver.bind(index, sender.getLocalId(), sender.getLocalName())
+                        && !pending.contains(receiver)) {
+                    pending.add(receiver);
+                }
+            }
+        }
+    }
+}
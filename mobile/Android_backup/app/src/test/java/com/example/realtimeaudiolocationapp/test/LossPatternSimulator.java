@@ -0,0 +1,57 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import java.util.Random;
+
+/**
+ * Two-state Gilbert-Elliott packet loss model. Packets pass in the good state
+ * and are dropped in the bad state, so losses come in bursts as they do on
+ * congested cellular links rather than as independent coin flips.
+ */
+public class LossPatternSimulator {
+    private final double goodToBad;
+    private final double badToGood;
+    private final Random random;
+    private boolean bad;
+    private int delivered;
+    private int dropped;
+
+    /**
+     * @param goodToBad Probability per packet of a burst starting
+     * @param badToGood Probability per packet of a burst ending; mean burst length is its inverse
+     * @param seed Random seed, so a pattern can be replayed exactly
+     */
+    public LossPatternSimulator(double goodToBad, double badToGood, long seed) {
+        this.goodToBad = goodToBad;
+        this.badToGood = badToGood;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Advance by one packet
+     * @return True if this packet is lost
+     */
+    public boolean nextLost() {
+        bad = bad ? random.nextDouble() >= badToGood : random.nextDouble() < goodToBad;
+        if (bad) {
+            dropped++;
+        } else {
+            delivered++;
+        }
+        return bad;
+    }
+
+    /**
+     * Long-run fraction of packets lost
+     */
+    public double getExpectedLossRate() {
+        return goodToBad / (goodToBad + badToGood);
+    }
+
+    /**
+     * Fraction of packets lost so far
+     */
+    public double getLossRate() {
+        int total = delivered + dropped;
+        return total == 0 ? 0 : (double) dropped / total;
+    }
+}
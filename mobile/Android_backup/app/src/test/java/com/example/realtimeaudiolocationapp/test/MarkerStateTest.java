@@ -0,0 +1,63 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.map.MarkerState;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the last drawn state of a map marker
+ */
+public class MarkerStateTest {
+
+    private MarkerState state;
+
+    @Before
+    public void setUp() {
+        state = new MarkerState();
+    }
+
+    @Test
+    public void testFirstValuesAreChanges() {
+        assertTrue(state.updatePosition(0, 0));
+        assertTrue(state.updateBand(0));
+        assertTrue(state.updateLabel(0));
+    }
+
+    @Test
+    public void testTinyMovesAreIgnored() {
+        state.updatePosition(59.3293, 18.0686);
+
+        assertFalse(state.updatePosition(59.3293, 18.0686));
+        assertFalse(state.updatePosition(59.3293005, 18.0686005));
+        assertTrue(state.updatePosition(59.32931, 18.0686));
+    }
+
+    @Test
+    public void testSmallMovesAddUp() {
+        state.updatePosition(59.3293, 18.0686);
+
+        // Steps below the threshold are compared with the drawn position, not the previous step
+        assertFalse(state.updatePosition(59.3293006, 18.0686));
+        assertTrue(state.updatePosition(59.3293012, 18.0686));
+    }
+
+    @Test
+    public void testBandChanges() {
+        state.updateBand(2);
+
+        assertFalse(state.updateBand(2));
+        assertTrue(state.updateBand(1));
+    }
+
+    @Test
+    public void testLabelChangesOnlyWhenTextWould() {
+        state.updateLabel(123.44f);
+
+        assertFalse(state.updateLabel(123.41f));
+        assertTrue(state.updateLabel(123.46f));
+    }
+}
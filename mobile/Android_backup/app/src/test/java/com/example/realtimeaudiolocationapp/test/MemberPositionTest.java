@@ -0,0 +1,65 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.MemberPosition;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the in-place member position
+ */
+public class MemberPositionTest {
+
+    private MemberPosition position;
+    private LocationUpdate update;
+
+    @Before
+    public void setUp() {
+        position = new MemberPosition();
+        update = new LocationUpdate();
+    }
+
+    @Test
+    public void testNoFixBeforeFirstUpdate() {
+        assertFalse(position.hasFix());
+        assertEquals(0, position.getVersion());
+        assertTrue(Float.isNaN(position.getAccuracy()));
+    }
+
+    @Test
+    public void testUpdateCopiesAllFields() {
+        position.set(update.set(2, 48.8566, 2.3522, 5, 1.5f, 90, 1767225600000L));
+
+        assertTrue(position.hasFix());
+        assertEquals(48.8566, position.getLatitude(), 1e-7);
+        assertEquals(2.3522, position.getLongitude(), 1e-7);
+        assertEquals(5, position.getAccuracy(), 0);
+        assertEquals(1.5f, position.getSpeed(), 0);
+        assertEquals(90, position.getBearing(), 0);
+        assertEquals(1767225600000L, position.getTimeMs());
+    }
+
+    @Test
+    public void testUnknownFieldsOverwriteKnownOnes() {
+        position.set(update.set(2, 48.8566, 2.3522, 5, 1.5f, 90, 1000));
+        position.set(update.set(2, 48.8567, 2.3522, Float.NaN, Float.NaN, Float.NaN, 2000));
+
+        assertTrue(Float.isNaN(position.getAccuracy()));
+        assertTrue(Float.isNaN(position.getSpeed()));
+        assertTrue(Float.isNaN(position.getBearing()));
+    }
+
+    @Test
+    public void testVersionCountsUpdates() {
+        for (int i = 0; i < 5; i++) {
+            position.set(update.set(2, 48.8566, 2.3522, 5, 0, 0, i));
+        }
+
+        assertEquals(5, position.getVersion());
+    }
+}
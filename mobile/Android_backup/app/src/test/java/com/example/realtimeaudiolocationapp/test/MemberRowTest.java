@@ -0,0 +1,55 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.adapters.MemberRow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the member strip row diffing
+ */
+public class MemberRowTest {
+
+    @Test
+    public void testSameMemberById() {
+        MemberRow row = new MemberRow(3, "Alice", true, 1, 250);
+
+        assertTrue(row.isSameMember(new MemberRow(3, "Alice B.", false, 3, 0)));
+        assertFalse(row.isSameMember(new MemberRow(4, "Alice", true, 1, 250)));
+    }
+
+    @Test
+    public void testDistanceBelowLabelResolutionIsNoChange() {
+        MemberRow old = new MemberRow(3, "Alice", true, 1, 250.01f);
+
+        assertTrue(new MemberRow(3, "Alice", true, 1, 250.04f).hasSameContents(old));
+        assertFalse(new MemberRow(3, "Alice", true, 1, 250.2f).hasSameContents(old));
+    }
+
+    @Test
+    public void testDistanceOnlyChangeIsPartial() {
+        MemberRow old = new MemberRow(3, "Alice", true, 1, 250);
+
+        assertSame(MemberRow.PAYLOAD_DISTANCE, new MemberRow(3, "Alice", true, 1, 240).changePayload(old));
+    }
+
+    @Test
+    public void testOtherChangesRebind() {
+        MemberRow old = new MemberRow(3, "Alice", true, 1, 250);
+
+        assertNull(new MemberRow(3, "Alice", true, 0, 90).changePayload(old));
+        assertNull(new MemberRow(3, "Alicia", true, 1, 250).changePayload(old));
+        assertNull(new MemberRow(3, "Alice", false, 1, 250).changePayload(old));
+    }
+
+    @Test
+    public void testDistanceIgnoredWithoutFix() {
+        MemberRow old = new MemberRow(3, "Alice", false, 3, 0);
+
+        assertTrue(new MemberRow(3, "Alice", false, 3, 12).hasSameContents(old));
+    }
+}
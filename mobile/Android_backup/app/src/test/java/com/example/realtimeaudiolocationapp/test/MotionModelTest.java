@@ -0,0 +1,178 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.MotionModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for dead reckoning of remote members between updates
+ */
+public class MotionModelTest {
+
+    private static final double LATITUDE = 35.6762;
+    private static final double LONGITUDE = 139.6503;
+    private static final double METRES_PER_DEGREE = 111320;
+
+    private MotionModel model;
+    private double[] predicted;
+
+    @Before
+    public void setUp() {
+        model = new MotionModel();
+        predicted = new double[2];
+    }
+
+    @Test
+    public void testNoPredictionBeforeFirstUpdate() {
+        assertFalse(model.hasUpdate());
+        assertFalse(model.predict(0, predicted));
+    }
+
+    @Test
+    public void testExtrapolatesAlongSpeedAndBearing() {
+        // 20 m/s due north
+        model.update(LATITUDE, LONGITUDE, 20, 0, 0, 1000);
+
+        assertTrue(model.predict(4000, predicted));
+        assertEquals(60, north(predicted), 0.01);
+        assertEquals(0, east(predicted), 0.01);
+    }
+
+    @Test
+    public void testPredictionStopsAfterHorizon() {
+        // 10 m/s due east
+        model.update(LATITUDE, LONGITUDE, 10, 90, 0, 0);
+
+        model.predict(MotionModel.MAX_PREDICTION_MS, predicted);
+        double atHorizon = east(predicted);
+        model.predict(MotionModel.MAX_PREDICTION_MS * 3, predicted);
+
+        assertEquals(100, atHorizon, 0.01);
+        assertEquals(atHorizon, east(predicted), 0.01);
+    }
+
+    @Test
+    public void testVelocityFromDisplacementWithoutBearing() {
+        model.update(LATITUDE, LONGITUDE, Float.NaN, Float.NaN, 0, 0);
+        model.update(LATITUDE + 50 / METRES_PER_DEGREE, LONGITUDE, Float.NaN, Float.NaN, 10000, 10000);
+
+        // 5 m/s north, beyond the correction blend
+        model.predict(12000, predicted);
+        assertEquals(60, north(predicted), 0.5);
+    }
+
+    @Test
+    public void testCrossingTheAntimeridian() {
+        double latitude = -17.0;
+        double metresPerDegree = METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        // 40 m east in 10 s, from just west of the antimeridian to just east of it
+        model.update(latitude, 180 - 20 / metresPerDegree, Float.NaN, Float.NaN, 0, 0);
+        model.update(latitude, -180 + 20 / metresPerDegree, Float.NaN, Float.NaN, 10000, 10000);
+
+        // 4 m/s east, not a clamped dash the other way round the world
+        model.predict(12000, predicted);
+        assertEquals(-180 + 28 / metresPerDegree, predicted[1], 0.5 / metresPerDegree);
+        assertEquals(latitude, predicted[0], 1e-9);
+    }
+
+    @Test
+    public void testPredictionWrapsAtTheAntimeridian() {
+        double latitude = -17.0;
+        double metresPerDegree = METRES_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        // 10 m/s east, 5 m short of the antimeridian
+        model.update(latitude, 180 - 5 / metresPerDegree, 10, 90, 0, 0);
+
+        model.predict(1000, predicted);
+        assertEquals(-180 + 5 / metresPerDegree, predicted[1], 0.01 / metresPerDegree);
+    }
+
+    @Test
+    public void testExtrapolatingOnlyWhilePredictionsChange() {
+        assertFalse(model.isExtrapolating(0));
+
+        // Standing still, nothing to extrapolate
+        model.update(LATITUDE, LONGITUDE, 0, 0, 0, 0);
+        assertFalse(model.isExtrapolating(100));
+
+        // Moving until the horizon
+        model.update(LATITUDE, LONGITUDE, 10, 90, 1000, 1000);
+        assertTrue(model.isExtrapolating(1000 + MotionModel.MAX_PREDICTION_MS - 1));
+        assertFalse(model.isExtrapolating(1000 + MotionModel.MAX_PREDICTION_MS));
+    }
+
+    @Test
+    public void testSpeedIsClamped() {
+        model.update(LATITUDE, LONGITUDE, 500, 0, 0, 0);
+
+        model.predict(1000, predicted);
+        assertEquals(MotionModel.MAX_SPEED, north(predicted), 0.01);
+    }
+
+    @Test
+    public void testCorrectionIsBlendedNotJumped() {
+        // Predicted 10 m/s north, but the member stopped after 50 m
+        model.update(LATITUDE, LONGITUDE, 10, 0, 0, 0);
+        model.predict(8000, predicted);
+        double drawnBefore = north(predicted);
+        model.update(LATITUDE + 50 / METRES_PER_DEGREE, LONGITUDE, 0, 0, 8000, 8000);
+
+        // Right after the update the member is still drawn where it was
+        model.predict(8000, predicted);
+        assertEquals(drawnBefore, north(predicted), 0.01);
+        // Halfway through the blend
+        model.predict(8500, predicted);
+        assertEquals(65, north(predicted), 0.01);
+        // Then it settles on the reported position
+        model.predict(9500, predicted);
+        assertEquals(50, north(predicted), 0.01);
+    }
+
+    @Test
+    public void testLargeCorrectionSnaps() {
+        model.update(LATITUDE, LONGITUDE, 0, 0, 0, 0);
+        model.update(LATITUDE + 500 / METRES_PER_DEGREE, LONGITUDE, 0, 0, 1000, 1000);
+
+        model.predict(1000, predicted);
+        assertEquals(500, north(predicted), 0.01);
+    }
+
+    @Test
+    public void testSparseUpdatesTrackBetterThanLastPosition() {
+        GpsTraceSimulator trace = new GpsTraceSimulator(8, LATITUDE, LONGITUDE)
+                .cruise(300, 25)
+                .stopAndGo(300, 14);
+        double[] last = new double[2];
+        double reckonedError = 0;
+        double lastError = 0;
+
+        for (int i = 0; i < trace.length(); i++) {
+            // The sender reports every 10 s with speed; easting means bearing 90
+            if (i % 10 == 0) {
+                model.update(trace.latitude(i), trace.longitude(i), trace.speed(i), 90,
+                        trace.time(i), trace.time(i));
+                last[0] = trace.latitude(i);
+                last[1] = trace.longitude(i);
+            }
+            model.predict(trace.time(i), predicted);
+            reckonedError += GpsTraceSimulator.distance(trace.trueLatitude(i), trace.trueLongitude(i),
+                    predicted[0], predicted[1]);
+            lastError += GpsTraceSimulator.distance(trace.trueLatitude(i), trace.trueLongitude(i),
+                    last[0], last[1]);
+        }
+
+        assertTrue(reckonedError < lastError / 3);
+    }
+
+    private static double north(double[] position) {
+        return (position[0] - LATITUDE) * METRES_PER_DEGREE;
+    }
+
+    private static double east(double[] position) {
+        return (position[1] - LONGITUDE) * METRES_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.PacketLossConcealer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for pitch-repetition loss concealment
+ */
+public class PacketLossConcealerTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME_SAMPLES = 320;
+    private static final int SSRC = 0x77;
+    // 200 Hz voiced tone: an 80-sample pitch period
+    private static final int PERIOD = 80;
+
+    private PacketLossConcealer concealer;
+    private int sampleIndex;
+
+    @Before
+    public void setUp() {
+        concealer = new PacketLossConcealer(RATE, 2);
+        sampleIndex = 0;
+    }
+
+    @Test
+    public void testNoHistoryMeansSilence() {
+        short[] out = new short[FRAME_SAMPLES];
+        assertFalse(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+
+        concealer.update(SSRC, nextFrame(), 0, FRAME_SAMPLES / 4);
+        assertFalse(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+    }
+
+    @Test
+    public void testLostFrameContinuesThePitchPeriod() {
+        feed(5);
+        short[] expected = nextFrame();
+        short[] out = new short[FRAME_SAMPLES];
+
+        assertTrue(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+        assertTrue(concealer.isConcealing(SSRC));
+
+        // The first 10 ms repeat the waveform at full level
+        for (int i = 0; i < RATE / 100; i++) {
+            assertEquals(expected[i], out[i], 2);
+        }
+        // Then it fades
+        assertTrue(peak(out, FRAME_SAMPLES - PERIOD, PERIOD) < peak(expected, FRAME_SAMPLES - PERIOD, PERIOD));
+    }
+
+    @Test
+    public void testLongGapFadesToSilence() {
+        feed(5);
+        short[] out = new short[FRAME_SAMPLES];
+
+        // 60 ms of concealment, then nothing
+        int concealed = 0;
+        while (concealer.conceal(SSRC, out, 0, FRAME_SAMPLES)) {
+            concealed++;
+        }
+
+        assertEquals(3, concealed);
+        // The last concealed frame ends at near silence
+        assertTrue(peak(out, FRAME_SAMPLES - 16, 16) < 200);
+        assertFalse(concealer.isConcealing(SSRC));
+    }
+
+    @Test
+    public void testResumedAudioIsCrossFaded() {
+        feed(5);
+        short[] out = new short[FRAME_SAMPLES];
+        assertTrue(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+        assertTrue(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+
+        // Real audio resumes with an inverted waveform, the worst case for a click
+        short[] resumed = nextFrame();
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            resumed[i] = (short) -resumed[i];
+        }
+        short[] original = resumed.clone();
+        concealer.update(SSRC, resumed, 0, FRAME_SAMPLES);
+
+        // Early samples still follow the synthetic waveform, later ones are untouched
+        assertTrue(Math.abs(resumed[10] - original[10]) > Math.abs(original[10]));
+        for (int i = RATE * 4 / 1000; i < FRAME_SAMPLES; i++) {
+            assertEquals(original[i], resumed[i]);
+        }
+        assertFalse(concealer.isConcealing(SSRC));
+    }
+
+    @Test
+    public void testSpeakersAreIndependent() {
+        feed(5);
+        short[] out = new short[FRAME_SAMPLES];
+
+        assertFalse(concealer.conceal(SSRC + 1, out, 0, FRAME_SAMPLES));
+        assertTrue(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+
+        concealer.remove(SSRC);
+        assertFalse(concealer.conceal(SSRC, out, 0, FRAME_SAMPLES));
+    }
+
+    private void feed(int frames) {
+        for (int i = 0; i < frames; i++) {
+            concealer.update(SSRC, nextFrame(), 0, FRAME_SAMPLES);
+        }
+    }
+
+    private short[] nextFrame() {
+        short[] frame = new short[FRAME_SAMPLES];
+        for (int i = 0; i < FRAME_SAMPLES; i++, sampleIndex++) {
+            double phase = 2 * Math.PI * sampleIndex / PERIOD;
+            frame[i] = (short) (6000 * Math.sin(phase) + 2000 * Math.sin(3 * phase));
+        }
+        return frame;
+    }
+
+    private static int peak(short[] samples, int offset, int count) {
+        int peak = 0;
+        for (int i = offset; i < offset + count; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+}
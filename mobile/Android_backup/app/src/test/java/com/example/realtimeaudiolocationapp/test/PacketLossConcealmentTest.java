@@ -0,0 +1,235 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioCaptureLoop;
+import com.example.realtimeaudiolocationapp.audio.AudioFramePool;
+import com.example.realtimeaudiolocationapp.audio.AudioMixer;
+import com.example.realtimeaudiolocationapp.audio.AudioPacketizer;
+import com.example.realtimeaudiolocationapp.audio.AudioReceiver;
+import com.example.realtimeaudiolocationapp.audio.ComfortNoiseGenerator;
+import com.example.realtimeaudiolocationapp.audio.JitterBuffer;
+import com.example.realtimeaudiolocationapp.audio.PacketLossConcealer;
+import com.example.realtimeaudiolocationapp.audio.Pcm16Codec;
+import com.example.realtimeaudiolocationapp.audio.Resampler;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Offline measurement of the receive path under bursty packet loss. A
+ * synthetic voiced signal is sent through the capture loop, packets are
+ * dropped by a {@link LossPatternSimulator}, and the receiver output is
+ * compared frame by frame with what was sent, for silence substitution,
+ * concealment, and concealment plus redundancy.
+ */
+public class PacketLossConcealmentTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME_MS = 20;
+    private static final int FRAME_SAMPLES = 320;
+    private static final int FRAMES = 1500; // 30 s
+    private static final int WARM_UP_FRAMES = 10;
+    private static final int SENDER = 0x5EED;
+    // A frame more than 20 dB below what was sent is heard as a dropout
+    private static final double DROPOUT_RATIO = 0.01;
+    private static final double MIN_SEGMENT_SNR = -10;
+    private static final double MAX_SEGMENT_SNR = 35;
+
+    @Test
+    public void testLosslessPathIsBitExact() {
+        Result result = run(false, true, new LossPatternSimulator(0, 1, 1));
+
+        assertEquals(0, result.dropouts);
+        assertEquals(0, result.concealed);
+        assertEquals(MAX_SEGMENT_SNR, result.segmentalSnr, 0);
+    }
+
+    @Test
+    public void testConcealmentAndRedundancyReduceDropouts() {
+        // About 8% loss in bursts averaging 1.7 packets
+        Result silence = run(false, false, new LossPatternSimulator(0.05, 0.6, 42));
+        Result concealment = run(false, true, new LossPatternSimulator(0.05, 0.6, 42));
+        Result redundancy = run(true, true, new LossPatternSimulator(0.05, 0.6, 42));
+
+        assertEquals(0.077, silence.lossRate, 0.02);
+        assertEquals(silence.lossRate, redundancy.lossRate, 0);
+
+        // Every lost frame is a dropout without concealment
+        assertTrue(silence.dropouts >= silence.lostFrames * 9 / 10);
+        assertTrue("Concealment should fill most gaps: " + concealment.dropouts + " vs " + silence.dropouts,
+                concealment.dropouts < silence.dropouts / 3);
+        assertTrue(concealment.concealed > 0);
+
+        // Concealment resembles the lost audio better than silence does
+        assertEquals(0, silence.lostSegmentalSnr, 0.5);
+        assertTrue("Concealed frames: " + concealment.lostSegmentalSnr + " dB",
+                concealment.lostSegmentalSnr > silence.lostSegmentalSnr + 3);
+
+        // A single lost packet is recovered from the next one, longer bursts are still concealed
+        assertTrue(redundancy.recovered > redundancy.lostFrames / 2);
+        assertTrue(redundancy.dropouts <= concealment.dropouts);
+        assertTrue("Recovered frames: " + redundancy.lostSegmentalSnr + " dB vs " + concealment.lostSegmentalSnr + " dB",
+                redundancy.lostSegmentalSnr > concealment.lostSegmentalSnr + 6);
+    }
+
+    @Test
+    public void testLongBurstFadesToSilence() {
+        // Long outages end in silence rather than a repeated buzz
+        Result result = run(false, true, new LossPatternSimulator(0.01, 0.05, 7));
+
+        assertTrue(result.concealed > 0);
+        assertTrue(result.concealed < result.lostFrames);
+    }
+
+    private Result run(boolean redundant, boolean conceal, LossPatternSimulator loss) {
+        SecurityManager securityManager = SecurityManager.getInstance();
+        VoicedSource source = new VoicedSource();
+        PacketCollector sink = new PacketCollector();
+        AudioCaptureLoop sender = new AudioCaptureLoop(source, sink,
+                new AudioFramePool(4, FRAME_SAMPLES * 3 + AudioCaptureLoop.getMaxPacketSize(new Pcm16Codec(RATE), 0)),
+                securityManager, new Resampler(RATE, RATE, FRAME_SAMPLES),
+                new AudioPacketizer(RATE, FRAME_MS, FRAME_SAMPLES), new Pcm16Codec(RATE), FRAME_SAMPLES, SENDER);
+        sender.setRedundancyEnabled(redundant);
+
+        AudioFramePool pool = new AudioFramePool(64, FRAME_SAMPLES * 2);
+        // A deep buffer so bursts are skipped in place instead of forcing a rebuffer
+        JitterBuffer jitterBuffer = new JitterBuffer(pool, FRAME_MS, 10, 15, 4, 2000);
+        AudioReceiver receiver = new AudioReceiver(securityManager, pool, jitterBuffer, new AudioMixer(4, FRAME_SAMPLES),
+                new ComfortNoiseGenerator(4, 2000), conceal ? new PacketLossConcealer(RATE, 4) : null,
+                RATE, FRAME_SAMPLES, 0);
+
+        List<short[]> sent = new ArrayList<>();
+        List<short[]> played = new ArrayList<>();
+        List<Long> concealedSoFar = new ArrayList<>();
+        boolean[] lostFrame = new boolean[FRAMES];
+        int lostFrames = 0;
+        for (int i = 0; i < FRAMES + 20; i++) {
+            long now = (long) i * FRAME_MS;
+            if (i < FRAMES) {
+                assertTrue(sender.processFrame(false));
+                sent.add(source.lastFrame);
+                boolean lost = loss.nextLost() && i >= WARM_UP_FRAMES && i < FRAMES - 1;
+                if (lost) {
+                    lostFrame[i] = true;
+                    lostFrames++;
+                } else {
+                    receiver.receive(ByteBuffer.wrap(sink.lastPacket), now);
+                }
+            }
+            short[] output = new short[FRAME_SAMPLES];
+            receiver.playoutTick(now + FRAME_MS / 2, output, 0);
+            played.add(output);
+            concealedSoFar.add(receiver.getConcealedFrameCount());
+        }
+
+        // The first sent frame is never lost and marks the playout delay
+        int delay = 0;
+        while (isSilent(played.get(delay))) {
+            delay++;
+        }
+        assertArrayEquals(sent.get(0), played.get(delay));
+
+        Result result = new Result();
+        result.lostFrames = lostFrames;
+        result.lossRate = (double) lostFrames / (FRAMES - WARM_UP_FRAMES - 1);
+        result.recovered = receiver.getRecoveredFrameCount();
+        // Ticks after the last frame has played are an underrun, not a loss
+        result.concealed = concealedSoFar.get(FRAMES - 1 + delay);
+        double snrSum = 0;
+        double lostSnrSum = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            short[] reference = sent.get(i);
+            short[] output = played.get(i + delay);
+            double signal = 0;
+            double error = 0;
+            double outputEnergy = 0;
+            for (int s = 0; s < FRAME_SAMPLES; s++) {
+                signal += (double) reference[s] * reference[s];
+                double difference = reference[s] - output[s];
+                error += difference * difference;
+                outputEnergy += (double) output[s] * output[s];
+            }
+            if (outputEnergy < signal * DROPOUT_RATIO) {
+                result.dropouts++;
+            }
+            // Segmental SNR, clamped per frame as usual so one frame cannot dominate the mean
+            double snr = error == 0 ? MAX_SEGMENT_SNR : 10 * Math.log10(signal / error);
+            snr = Math.max(MIN_SEGMENT_SNR, Math.min(MAX_SEGMENT_SNR, snr));
+            snrSum += snr;
+            if (lostFrame[i]) {
+                lostSnrSum += snr;
+            }
+        }
+        result.segmentalSnr = snrSum / FRAMES;
+        result.lostSegmentalSnr = lostFrames == 0 ? MAX_SEGMENT_SNR : lostSnrSum / lostFrames;
+        return result;
+    }
+
+    private static boolean isSilent(short[] frame) {
+        for (short sample : frame) {
+            if (sample != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Result {
+        int lostFrames;
+        double lossRate;
+        long recovered;
+        long concealed;
+        int dropouts;
+        double segmentalSnr;
+        double lostSegmentalSnr;
+    }
+
+    /**
+     * Voiced speech stand-in: five harmonics of a gliding pitch with a syllable-rate envelope
+     */
+    private static class VoicedSource implements AudioCaptureLoop.Source {
+        short[] lastFrame;
+        private double phase;
+        private int sampleIndex;
+
+        @Override
+        public int read(short[] samples, int offset, int count) {
+            for (int i = 0; i < count; i++, sampleIndex++) {
+                double t = (double) sampleIndex / RATE;
+                double pitch = 150 + 40 * Math.sin(2 * Math.PI * 0.7 * t);
+                phase += 2 * Math.PI * pitch / RATE;
+                double envelope = 0.3 + 0.7 * Math.abs(Math.sin(2 * Math.PI * 2.5 * t));
+                double value = 0;
+                for (int harmonic = 1; harmonic <= 5; harmonic++) {
+                    value += Math.sin(harmonic * phase) / harmonic;
+                }
+                samples[offset + i] = (short) (5000 * envelope * value);
+            }
+            lastFrame = Arrays.copyOfRange(samples, offset, offset + count);
+            return count;
+        }
+    }
+
+    private static class PacketCollector implements AudioCaptureLoop.Sink {
+        byte[] lastPacket;
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void send(ByteBuffer packet) {
+            lastPacket = new byte[packet.remaining()];
+            packet.get(lastPacket);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.PositionFilter;
+import com.example.realtimeaudiolocationapp.location.SamplingPolicy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the Kalman filter applied to this device's own fixes,
+ * including urban-canyon trace replays
+ */
+public class PositionFilterTest {
+
+    private static final double LATITUDE = 40.758;
+    private static final double LONGITUDE = -73.9855;
+    private static final double METRES_PER_DEGREE = 111320;
+    private static final int[] BANDS = {100, 300, 1000};
+
+    private PositionFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new PositionFilter();
+    }
+
+    @Test
+    public void testFirstFixIsTakenAsIs() {
+        assertTrue(filter.update(0, LATITUDE, LONGITUDE, 10));
+
+        assertEquals(LATITUDE, filter.getLatitude(), 1e-9);
+        assertEquals(LONGITUDE, filter.getLongitude(), 1e-9);
+        assertEquals(10, filter.getAccuracy(), 1e-3);
+    }
+
+    @Test
+    public void testTracksConstantVelocity() {
+        // 10 m/s north with perfect fixes
+        for (int t = 0; t <= 30; t++) {
+            filter.update(t * 1000L, LATITUDE + t * 10 / METRES_PER_DEGREE, LONGITUDE, 5);
+        }
+
+        assertEquals(300, (filter.getLatitude() - LATITUDE) * METRES_PER_DEGREE, 1);
+        assertEquals(10, filter.getSpeed(), 0.5);
+        assertTrue(filter.getAccuracy() < 5);
+    }
+
+    @Test
+    public void testOutlierIsRejected() {
+        for (int t = 0; t < 10; t++) {
+            filter.update(t * 1000L, LATITUDE, LONGITUDE, 5);
+        }
+
+        assertFalse(filter.update(10000, LATITUDE + 80 / METRES_PER_DEGREE, LONGITUDE, 5));
+        assertEquals(LATITUDE, filter.getLatitude(), 1e-7);
+    }
+
+    @Test
+    public void testRestartsAfterRepeatedRejections() {
+        for (int t = 0; t < 10; t++) {
+            filter.update(t * 1000L, LATITUDE, LONGITUDE, 5);
+        }
+        double moved = LATITUDE + 500 / METRES_PER_DEGREE;
+        for (int t = 10; t < 13; t++) {
+            assertFalse(filter.update(t * 1000L, moved, LONGITUDE, 5));
+        }
+
+        // The position really changed, e.g. after leaving a tunnel
+        assertTrue(filter.update(13000, moved, LONGITUDE, 5));
+        assertEquals(moved, filter.getLatitude(), 1e-9);
+    }
+
+    @Test
+    public void testRestartsAfterGap() {
+        filter.update(0, LATITUDE, LONGITUDE, 5);
+
+        assertTrue(filter.update(120000, LATITUDE + 2000 / METRES_PER_DEGREE, LONGITUDE, 5));
+        assertEquals(2000, (filter.getLatitude() - LATITUDE) * METRES_PER_DEGREE, 1e-6);
+    }
+
+    @Test
+    public void testFewerBandTransitionsInUrbanCanyon() {
+        // Walk east past a member standing 30 m north of the street, 600 m ahead
+        GpsTraceSimulator trace = new GpsTraceSimulator(4, LATITUDE, LONGITUDE)
+                .setErrors(4, 0.05)
+                .cruise(900, 1.4);
+        double memberLatitude = LATITUDE + 30 / METRES_PER_DEGREE;
+        double memberLongitude = LONGITUDE + 600 / (METRES_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE)));
+
+        int trueTransitions = 0;
+        int rawTransitions = 0;
+        int filteredTransitions = 0;
+        int trueBand = -1;
+        int rawBand = -1;
+        int filteredBand = -1;
+        for (int i = 0; i < trace.length(); i++) {
+            filter.update(trace.time(i), trace.latitude(i), trace.longitude(i), trace.accuracy(i));
+
+            int band = band(GpsTraceSimulator.distance(trace.trueLatitude(i), trace.trueLongitude(i),
+                    memberLatitude, memberLongitude));
+            trueTransitions += i > 0 && band != trueBand ? 1 : 0;
+            trueBand = band;
+            band = band(GpsTraceSimulator.distance(trace.latitude(i), trace.longitude(i),
+                    memberLatitude, memberLongitude));
+            rawTransitions += i > 0 && band != rawBand ? 1 : 0;
+            rawBand = band;
+            band = band(GpsTraceSimulator.distance(filter.getLatitude(), filter.getLongitude(),
+                    memberLatitude, memberLongitude));
+            filteredTransitions += i > 0 && band != filteredBand ? 1 : 0;
+            filteredBand = band;
+        }
+
+        String transitions = "band transitions true " + trueTransitions + ", raw " + rawTransitions
+                + ", filtered " + filteredTransitions;
+        assertTrue(transitions, filteredTransitions < rawTransitions / 2);
+        assertTrue(transitions, filteredTransitions >= trueTransitions);
+    }
+
+    @Test
+    public void testFewerSendsWhileParkedInUrbanCanyon() {
+        GpsTraceSimulator trace = new GpsTraceSimulator(6, LATITUDE, LONGITUDE)
+                .setErrors(4, 0.05)
+                .park(1800);
+        SamplingPolicy raw = new SamplingPolicy(1000);
+        SamplingPolicy filtered = new SamplingPolicy(1000);
+
+        // Fixes arrive every 5 s, as when parked next to another member
+        for (int i = 0; i < trace.length(); i += 5) {
+            raw.onFix(trace.time(i), trace.latitude(i), trace.longitude(i), Float.NaN, trace.accuracy(i));
+            if (filter.update(trace.time(i), trace.latitude(i), trace.longitude(i), trace.accuracy(i))) {
+                filtered.onFix(trace.time(i), filter.getLatitude(), filter.getLongitude(), Float.NaN,
+                        filter.getAccuracy());
+            }
+        }
+
+        assertTrue("sent raw " + raw.getSentCount() + ", filtered " + filtered.getSentCount(),
+                filtered.getSentCount() < raw.getSentCount());
+    }
+
+    private static int band(double distance) {
+        for (int i = 0; i < BANDS.length; i++) {
+            if (distance <= BANDS[i]) {
+                return i;
+            }
+        }
+        return BANDS.length;
+    }
+}
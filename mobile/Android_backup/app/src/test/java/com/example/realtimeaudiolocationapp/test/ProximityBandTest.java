@@ -0,0 +1,118 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.ProximityBand;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for proximity band hysteresis, including replays of members
+ * hovering at a band limit
+ */
+public class ProximityBandTest {
+
+    private static final double LATITUDE = 51.5074;
+    private static final double LONGITUDE = -0.1278;
+    private static final double METRES_PER_DEGREE = 111320;
+
+    private ProximityBand band;
+
+    @Before
+    public void setUp() {
+        band = new ProximityBand();
+    }
+
+    @Test
+    public void testStartsOutOfRange() {
+        assertEquals(ProximityBand.OUT_OF_RANGE, band.get());
+        assertFalse(band.update(2000, 0));
+    }
+
+    @Test
+    public void testFirstBandIsTakenAtOnce() {
+        assertTrue(band.update(50, 0));
+        assertEquals(ProximityBand.NEAR, band.get());
+    }
+
+    @Test
+    public void testMarginAroundLimit() {
+        band.update(200, 0);
+
+        // Just inside and just outside the 300 m limit stay medium
+        assertFalse(band.update(295, 10000));
+        assertFalse(band.update(320, 20000));
+        assertEquals(ProximityBand.MEDIUM, band.get());
+
+        assertTrue(band.update(340, 30000));
+        assertEquals(ProximityBand.FAR, band.get());
+        // Coming back needs 270 m
+        assertFalse(band.update(280, 40000));
+        assertTrue(band.update(260, 50000));
+        assertEquals(ProximityBand.MEDIUM, band.get());
+    }
+
+    @Test
+    public void testMinimumDwell() {
+        band.update(200, 0);
+
+        assertFalse(band.update(50, 1000));
+        assertEquals(ProximityBand.MEDIUM, band.get());
+        assertTrue(band.update(50, 5000));
+        assertEquals(ProximityBand.NEAR, band.get());
+    }
+
+    @Test
+    public void testFlappingAtLimitIsSuppressed() {
+        // Parked about 300 m from a stationary member, with everyday GPS noise
+        GpsTraceSimulator trace = new GpsTraceSimulator(11, LATITUDE, LONGITUDE)
+                .setErrors(2, 0)
+                .park(1800);
+        double memberLatitude = LATITUDE + 300 / METRES_PER_DEGREE;
+
+        int rawTransitions = 0;
+        int transitions = 0;
+        int rawBand = -1;
+        for (int i = 0; i < trace.length(); i++) {
+            double distance = GpsTraceSimulator.distance(trace.latitude(i), trace.longitude(i),
+                    memberLatitude, LONGITUDE);
+            int raw = ProximityBand.band(distance);
+            rawTransitions += i > 0 && raw != rawBand ? 1 : 0;
+            rawBand = raw;
+            transitions += band.update(distance, trace.time(i)) && i > 0 ? 1 : 0;
+        }
+
+        String counts = "band transitions raw " + rawTransitions + ", with hysteresis " + transitions;
+        assertTrue(counts, rawTransitions > 50);
+        assertTrue(counts, transitions <= 2);
+    }
+
+    @Test
+    public void testRealTransitionsStillHappen() {
+        // Walk from 1200 m away straight towards a member and on until out of range again
+        GpsTraceSimulator trace = new GpsTraceSimulator(12, LATITUDE, LONGITUDE)
+                .setErrors(2, 0)
+                .cruise(1700, 1.5);
+        double memberLongitude = LONGITUDE + 1200 / (METRES_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE)));
+
+        int rawTransitions = 0;
+        int transitions = 0;
+        int rawBand = ProximityBand.OUT_OF_RANGE;
+        for (int i = 0; i < trace.length(); i++) {
+            double distance = GpsTraceSimulator.distance(trace.latitude(i), trace.longitude(i),
+                    LATITUDE, memberLongitude);
+            int raw = ProximityBand.band(distance);
+            rawTransitions += raw != rawBand ? 1 : 0;
+            rawBand = raw;
+            transitions += band.update(distance, trace.time(i)) ? 1 : 0;
+        }
+
+        String counts = "band transitions raw " + rawTransitions + ", with hysteresis " + transitions;
+        // Far, medium, near on the way in and medium, far, out of range on the way out
+        assertEquals(counts, 6, transitions);
+        assertTrue(counts, rawTransitions >= transitions);
+    }
+}
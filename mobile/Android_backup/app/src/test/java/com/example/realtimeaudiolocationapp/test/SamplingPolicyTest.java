@@ -0,0 +1,187 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.LocationUpdate;
+import com.example.realtimeaudiolocationapp.location.LocationWireFormat;
+import com.example.realtimeaudiolocationapp.location.SamplingPolicy;
+import com.example.realtimeaudiolocationapp.services.SecurityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the adaptive GPS sampling and send-on-delta policy, including
+ * a replay of a synthetic commute against the fixed 10 s sampling it replaces
+ */
+public class SamplingPolicyTest {
+
+    private static final double PROXIMITY_RANGE = 1000;
+    private static final long BASELINE_INTERVAL_MS = 10000;
+    private static final double LATITUDE = 47.6062;
+    private static final double LONGITUDE = -122.3321;
+
+    private SamplingPolicy policy;
+
+    @Before
+    public void setUp() {
+        policy = new SamplingPolicy(PROXIMITY_RANGE);
+    }
+
+    @Test
+    public void testParkedJitterIsNotSent() {
+        assertTrue(policy.onFix(0, LATITUDE, LONGITUDE, 0, 10));
+        // 8 m of GPS wander is within the fix accuracy
+        assertFalse(policy.onFix(30000, LATITUDE + 8 / 111320.0, LONGITUDE, 0.2f, 10));
+        assertEquals(SamplingPolicy.PRIORITY_BALANCED, policy.getPriority());
+        assertEquals(30000, policy.getIntervalMs());
+
+        // The heartbeat is due
+        assertTrue(policy.onFix(60000, LATITUDE, LONGITUDE, 0, 10));
+    }
+
+    @Test
+    public void testMovementBeyondSendDistanceIsSent() {
+        policy.onFix(0, LATITUDE, LONGITUDE, 5, 5);
+
+        assertFalse(policy.onFix(8000, LATITUDE + 40 / 111320.0, LONGITUDE, 5, 5));
+        assertTrue(policy.onFix(12000, LATITUDE + 60 / 111320.0, LONGITUDE, 5, 5));
+    }
+
+    @Test
+    public void testIntervalFollowsSpeed() {
+        policy.onFix(0, LATITUDE, LONGITUDE, 12, 5);
+        assertEquals(15000, policy.getIntervalMs());
+        assertEquals(SamplingPolicy.PRIORITY_HIGH_ACCURACY, policy.getPriority());
+
+        policy.onFix(15000, LATITUDE, LONGITUDE, 30, 5);
+        assertEquals(5000, policy.getIntervalMs());
+
+        // Walking pace is sampled no less often than standing still
+        policy.onFix(20000, LATITUDE, LONGITUDE, 1.5f, 5);
+        assertEquals(30000, policy.getIntervalMs());
+    }
+
+    @Test
+    public void testSpeedIsEstimatedWhenMissing() {
+        policy.onFix(0, LATITUDE, LONGITUDE, Float.NaN, 5);
+        assertEquals(30000, policy.getIntervalMs());
+
+        // 300 m in 10 s
+        policy.onFix(10000, LATITUDE + 300 / 111320.0, LONGITUDE, Float.NaN, 5);
+        assertEquals(5000, policy.getIntervalMs());
+    }
+
+    @Test
+    public void testNearbyMemberTightensSampling() {
+        policy.setNearestMemberDistance(400);
+        policy.onFix(0, LATITUDE, LONGITUDE, 0, 5);
+        assertEquals(15000, policy.getIntervalMs());
+        assertEquals(SamplingPolicy.PRIORITY_HIGH_ACCURACY, policy.getPriority());
+
+        // The send distance drops to 10 m and moving is tracked closely
+        assertTrue(policy.onFix(15000, LATITUDE + 12 / 111320.0, LONGITUDE, 5, 5));
+        assertEquals(5000, policy.getIntervalMs());
+    }
+
+    @Test
+    public void testLowBatteryRelaxesSampling() {
+        policy.setBatteryState(0.15f, false);
+        policy.onFix(0, LATITUDE, LONGITUDE, 30, 5);
+        assertEquals(15000, policy.getIntervalMs());
+        assertEquals(SamplingPolicy.PRIORITY_BALANCED, policy.getPriority());
+
+        policy.setBatteryState(0.05f, false);
+        policy.onFix(15000, LATITUDE, LONGITUDE, 30, 5);
+        assertEquals(30000, policy.getIntervalMs());
+        assertEquals(SamplingPolicy.PRIORITY_LOW_POWER, policy.getPriority());
+
+        // Plugged in, the battery level no longer matters
+        policy.setBatteryState(0.05f, true);
+        policy.onFix(45000, LATITUDE, LONGITUDE, 30, 5);
+        assertEquals(5000, policy.getIntervalMs());
+        assertEquals(SamplingPolicy.PRIORITY_HIGH_ACCURACY, policy.getPriority());
+    }
+
+    @Test
+    public void testCommuteReplay() {
+        GpsTraceSimulator trace = new GpsTraceSimulator(21, LATITUDE, LONGITUDE)
+                .park(600)
+                .stopAndGo(900, 12)
+                .cruise(900, 30)
+                .stopAndGo(300, 10)
+                .park(900);
+
+        Replay baseline = replay(trace, null);
+        Replay adaptive = replay(trace, policy);
+        int frameSize = locationFrameSize();
+
+        String summary = "fixed 10 s, send all: " + baseline.describe(frameSize)
+                + "; adaptive + on delta: " + adaptive.describe(frameSize);
+
+        // Fewer fixes and at least 30% fewer messages than sending every 10 s fix...
+        assertTrue(summary, adaptive.fixes < baseline.fixes);
+        assertTrue(summary, adaptive.sent < baseline.sent * 0.7);
+        // ...while the receivers' view of us is not worse, because fast driving is sampled more often
+        assertTrue(summary, adaptive.p95Error <= baseline.p95Error);
+        assertEquals(adaptive.fixes, policy.getFixCount());
+        assertEquals(adaptive.sent, policy.getSentCount());
+    }
+
+    /**
+     * Deliver fixes at the requested interval, as the location provider would
+     * @param policy Policy to follow, or null for fixed 10 s sampling sending every fix
+     */
+    private static Replay replay(GpsTraceSimulator trace, SamplingPolicy policy) {
+        Replay replay = new Replay();
+        double[] errors = new double[trace.length()];
+        long nextFix = 0;
+        double sentLatitude = 0;
+        double sentLongitude = 0;
+        for (int i = 0; i < trace.length(); i++) {
+            if (trace.time(i) >= nextFix) {
+                replay.fixes++;
+                boolean send = policy == null || policy.onFix(trace.time(i), trace.latitude(i),
+                        trace.longitude(i), trace.speed(i), trace.accuracy(i));
+                if (send) {
+                    replay.sent++;
+                    sentLatitude = trace.latitude(i);
+                    sentLongitude = trace.longitude(i);
+                }
+                nextFix = trace.time(i) + (policy == null ? BASELINE_INTERVAL_MS : policy.getIntervalMs());
+            }
+            // How far the last sent position is from where we really are
+            errors[i] = GpsTraceSimulator.distance(trace.trueLatitude(i), trace.trueLongitude(i),
+                    sentLatitude, sentLongitude);
+        }
+        Arrays.sort(errors);
+        replay.p95Error = errors[(int) (errors.length * 0.95)];
+        return replay;
+    }
+
+    /**
+     * Encrypted size of a location message with every field present
+     */
+    private static int locationFrameSize() {
+        LocationUpdate update = new LocationUpdate().set(1, LATITUDE, LONGITUDE, 8, 12, 90, 1767225600000L);
+        return LocationWireFormat.writeLocation(ByteBuffer.allocate(LocationWireFormat.MAX_LOCATION_SIZE), update)
+                + SecurityManager.AUDIO_FRAME_OVERHEAD;
+    }
+
+    private static class Replay {
+        int fixes;
+        int sent;
+        double p95Error;
+
+        String describe(int frameSize) {
+            return String.format(Locale.ROOT, "%d fixes, %d sent, %d bytes, p95 error %.1f m",
+                    fixes, sent, sent * frameSize, p95Error);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.util.SnapshotStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * JVM test for the single-writer member store and its snapshots
+ */
+public class SnapshotStoreTest {
+
+    private SnapshotStore<String, String> store;
+
+    @Before
+    public void setUp() {
+        store = new SnapshotStore<>();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(store.snapshot().isEmpty());
+        assertEquals(0, store.snapshot().getVersion());
+        assertNull(store.get("alice"));
+    }
+
+    @Test
+    public void testAddPublishesNewVersion() {
+        store.add("alice", "Alice");
+        SnapshotStore.Snapshot<String> first = store.snapshot();
+        store.add("bob", "Bob");
+        SnapshotStore.Snapshot<String> second = store.snapshot();
+
+        assertEquals("Bob", store.get("bob"));
+        assertEquals(1, first.getVersion());
+        assertEquals(2, second.getVersion());
+        // Earlier snapshots do not change
+        assertEquals(1, first.size());
+        assertEquals("Alice", first.get(0));
+        assertEquals(2, second.size());
+        assertEquals("Bob", second.get(1));
+    }
+
+    @Test
+    public void testSnapshotIsStableAcrossGrowth() {
+        store.add("0", "0");
+        SnapshotStore.Snapshot<String> old = store.snapshot();
+        for (int i = 1; i < 100; i++) {
+            store.add(String.valueOf(i), String.valueOf(i));
+        }
+
+        assertEquals(1, old.size());
+        assertEquals("0", old.get(0));
+        assertEquals(100, store.snapshot().size());
+        assertEquals("99", store.snapshot().get(99));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSnapshotBounds() {
+        store.add("alice", "Alice");
+        store.add("bob", "Bob");
+        SnapshotStore.Snapshot<String> snapshot = store.snapshot();
+        store.add("carol", "Carol");
+
+        snapshot.get(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() {
+        store.snapshot().add("mallory");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateKey() {
+        store.add("alice", "Alice");
+        store.add("alice", "Alice again");
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshots() throws InterruptedException {
+        int count = 20000;
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long lastVersion = 0;
+            int lastSize = 0;
+            while (lastSize < count && failure.get() == null) {
+                SnapshotStore.Snapshot<String> snapshot = store.snapshot();
+                long version = snapshot.getVersion();
+                if (version < lastVersion || snapshot.size() < lastSize) {
+                    failure.set("Went back from version " + lastVersion + " to " + version);
+                }
+                // Every published slot is visible and in order
+                for (int i = 0; i < snapshot.size(); i++) {
+                    if (!String.valueOf(i).equals(snapshot.get(i))) {
+                        failure.set("Slot " + i + " of version " + version + " is " + snapshot.get(i));
+                        break;
+                    }
+                }
+                lastVersion = version;
+                lastSize = snapshot.size();
+            }
+        });
+        reader.start();
+        for (int i = 0; i < count; i++) {
+            store.add("member" + i, String.valueOf(i));
+        }
+        reader.join(10000);
+
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+        assertSame(store.snapshot(), store.snapshot());
+        assertEquals(count, store.snapshot().size());
+    }
+}
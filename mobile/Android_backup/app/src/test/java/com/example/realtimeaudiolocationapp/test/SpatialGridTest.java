@@ -0,0 +1,116 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.location.SpatialGrid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the spatial grid used by the proximity check
+ */
+public class SpatialGridTest {
+
+    private static final double CELL_METRES = 1000;
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private SpatialGrid<Integer> grid;
+    private List<Integer> result;
+
+    @Before
+    public void setUp() {
+        grid = new SpatialGrid<>(CELL_METRES);
+        result = new ArrayList<>();
+    }
+
+    @Test
+    public void testQueryFindsEveryItemInRange() {
+        Random random = new Random(11);
+        double[][] points = new double[2000][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[]{48.85 + random.nextDouble() * 0.2, 2.25 + random.nextDouble() * 0.3};
+            grid.update(i, points[i][0], points[i][1]);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double latitude = 48.85 + random.nextDouble() * 0.2;
+            double longitude = 2.25 + random.nextDouble() * 0.3;
+            result.clear();
+            grid.query(latitude, longitude, CELL_METRES, result);
+
+            Set<Integer> candidates = new HashSet<>(result);
+            assertEquals("No duplicates", result.size(), candidates.size());
+            int inRange = 0;
+            for (int i = 0; i < points.length; i++) {
+                if (distance(latitude, longitude, points[i][0], points[i][1]) <= CELL_METRES) {
+                    assertTrue("Item " + i + " missed", candidates.contains(i));
+                    inRange++;
+                }
+            }
+            // The window covers about 15 of the ~500 km2 the items are spread over
+            assertTrue(inRange <= result.size() && result.size() < points.length / 10);
+        }
+    }
+
+    @Test
+    public void testMovedItemLeavesOldCell() {
+        grid.update(1, 51.5, -0.12);
+        grid.update(1, 51.6, -0.12);
+
+        assertEquals(0, grid.query(51.5, -0.12, CELL_METRES, result));
+        assertEquals(1, grid.query(51.6, -0.12, CELL_METRES, result));
+        assertEquals(1, grid.size());
+    }
+
+    @Test
+    public void testRemove() {
+        grid.update(1, 10, 10);
+        grid.update(2, 10, 10);
+        grid.remove(1);
+        grid.remove(3);
+
+        assertEquals(1, grid.query(10, 10, CELL_METRES, result));
+        assertEquals(Integer.valueOf(2), result.get(0));
+        assertEquals(1, grid.size());
+    }
+
+    @Test
+    public void testQueryWrapsAroundAntimeridian() {
+        grid.update(1, -17.0, 179.998);
+        grid.update(2, -17.0, -179.998);
+
+        assertEquals(2, grid.query(-17.0, 179.999, CELL_METRES, result));
+        result.clear();
+        assertEquals(2, grid.query(-17.0, -179.999, CELL_METRES, result));
+    }
+
+    @Test
+    public void testQueryWidensTowardsPoles() {
+        // 800 m east at 80 degrees north is about 0.041 degrees of longitude, several cells wide
+        double latitude = 80;
+        double longitude = 15 + 800 / (111320 * Math.cos(Math.toRadians(latitude)));
+        grid.update(1, latitude, longitude);
+        grid.update(2, 89.995, -170);
+
+        assertEquals(1, grid.query(latitude, 15, CELL_METRES, result));
+        result.clear();
+        assertEquals(1, grid.query(89.995, 10, CELL_METRES, result));
+    }
+
+    private static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(a));
+    }
+}
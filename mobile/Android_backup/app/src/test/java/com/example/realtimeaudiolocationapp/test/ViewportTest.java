@@ -0,0 +1,69 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.map.Viewport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for marker viewport culling bounds
+ */
+public class ViewportTest {
+
+    private Viewport viewport;
+
+    @Before
+    public void setUp() {
+        viewport = new Viewport();
+    }
+
+    @Test
+    public void testEverythingInsideBeforeFirstCamera() {
+        assertTrue(viewport.contains(48.8566, 2.3522));
+        assertTrue(viewport.contains(-33.8688, 151.2093));
+    }
+
+    @Test
+    public void testMarginAroundVisibleBounds() {
+        // About 2 km around central Paris
+        viewport.set(48.84, 2.33, 48.88, 2.37);
+
+        assertTrue(viewport.contains(48.8566, 2.3522));
+        // Just past the right edge, within a quarter of the width
+        assertTrue(viewport.contains(48.8566, 2.375));
+        assertFalse(viewport.contains(48.8566, 2.39));
+        assertTrue(viewport.contains(48.885, 2.35));
+        assertFalse(viewport.contains(48.90, 2.35));
+        assertFalse(viewport.contains(-33.8688, 151.2093));
+    }
+
+    @Test
+    public void testBoundsAcrossAntimeridian() {
+        viewport.set(-20, 170, -10, -170);
+
+        assertTrue(viewport.contains(-15, 179.5));
+        assertTrue(viewport.contains(-15, -179.5));
+        assertTrue(viewport.contains(-15, 180));
+        assertFalse(viewport.contains(-15, 0));
+        assertFalse(viewport.contains(-15, 160));
+    }
+
+    @Test
+    public void testWholeWorldVisible() {
+        viewport.set(-80, -180, 80, 180);
+
+        assertTrue(viewport.contains(0, 0));
+        assertTrue(viewport.contains(10, -179.9));
+    }
+
+    @Test
+    public void testReset() {
+        viewport.set(48.84, 2.33, 48.88, 2.37);
+        viewport.reset();
+
+        assertTrue(viewport.contains(-33.8688, 151.2093));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.realtimeaudiolocationapp.test;
+
+/**
+ * Inverse Vincenty distance on the WGS84 ellipsoid, following the computation
+ * behind {@code Location.distanceTo}, which the android.jar stubs do not
+ * implement. Used as the reference distance on the JVM.
+ */
+public final class VincentyDistance {
+
+    private VincentyDistance() {
+    }
+
+    /**
+     * @return Distance in metres between two points given in degrees
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        final double a = 6378137.0;
+        final double b = 6356752.3142;
+        final double f = (a - b) / a;
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1.0 - f) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1.0 - f) * Math.tan(Math.toRadians(lat2)));
+        double cosU1 = Math.cos(u1);
+        double cosU2 = Math.cos(u2);
+        double sinU1 = Math.sin(u1);
+        double sinU2 = Math.sin(u2);
+
+        double sigma = 0;
+        double sinSigma = 0;
+        double cosSigma = 0;
+        double cosSqAlpha = 0;
+        double cos2SM = 0;
+        double lambda = l;
+        for (int iteration = 0; iteration < 20; iteration++) {
+            double lambdaOrig = lambda;
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = sinSigma == 0 ? 0 : cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1.0 - sinAlpha * sinAlpha;
+            cos2SM = cosSqAlpha == 0 ? 0 : cosSigma - 2.0 * sinU1 * sinU2 / cosSqAlpha;
+            double c = f / 16.0 * cosSqAlpha * (4.0 + f * (4.0 - 3.0 * cosSqAlpha));
+            lambda = l + (1.0 - c) * f * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SM + c * cosSigma * (-1.0 + 2.0 * cos2SM * cos2SM)));
+            if (Math.abs((lambda - lambdaOrig) / lambda) < 1.0e-12) {
+                break;
+            }
+        }
+        double uSquared = cosSqAlpha * (a * a - b * b) / (b * b);
+        double bigA = 1 + uSquared / 16384.0 * (4096.0 + uSquared * (-768 + uSquared * (320.0 - 175.0 * uSquared)));
+        double bigB = uSquared / 1024.0 * (256.0 + uSquared * (-128.0 + uSquared * (74.0 - 47.0 * uSquared)));
+        double deltaSigma = bigB * sinSigma * (cos2SM + bigB / 4.0 * (cosSigma * (-1.0 + 2.0 * cos2SM * cos2SM)
+                - bigB / 6.0 * cos2SM * (-3.0 + 4.0 * sinSigma * sinSigma) * (-3.0 + 4.0 * cos2SM * cos2SM)));
+        return b * bigA * (sigma - deltaSigma);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.VoiceActivityDetector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the voice activity detector, run over PCM fixtures that model
+ * a car cabin: engine hum and road rumble with talkspurts on top
+ */
+public class VoiceActivityDetectorTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME_MS = 20;
+    private static final int FRAME_SAMPLES = RATE * FRAME_MS / 1000;
+    // The detector needs this long to learn the noise floor
+    private static final int SETTLE_FRAMES = 75;
+    private static final int HANGOVER_FRAMES = 10;
+
+    private VoiceActivityDetector detector;
+
+    @Before
+    public void setUp() {
+        detector = new VoiceActivityDetector(FRAME_MS);
+    }
+
+    @Test
+    public void testCabinNoiseIsSuppressed() {
+        short[] pcm = cabinNoise(10, 300, 1);
+
+        boolean[] speech = classify(pcm);
+
+        double suppressed = fraction(speech, SETTLE_FRAMES, speech.length, false);
+        assertTrue("Noise-only frames should be suppressed, got " + suppressed, suppressed > 0.95);
+    }
+
+    @Test
+    public void testDigitalSilenceIsNeverSpeech() {
+        short[] pcm = cabinNoise(3, 4, 2);
+
+        boolean[] speech = classify(pcm);
+
+        assertEquals(0, fraction(speech, 0, speech.length, true), 0);
+    }
+
+    @Test
+    public void testTalkspurtsAreDetectedAndPausesSuppressed() {
+        // 1.2 s of speech every 2.7 s over cabin noise
+        int talkFrames = 60;
+        int pauseFrames = 75;
+        short[] pcm = cabinNoise(20, 300, 3);
+        for (int start = SETTLE_FRAMES; start + talkFrames < pcm.length / FRAME_SAMPLES;
+             start += talkFrames + pauseFrames) {
+            addSpeech(pcm, start * FRAME_SAMPLES, talkFrames * FRAME_SAMPLES, 2500, start);
+        }
+
+        boolean[] speech = classify(pcm);
+
+        int speechFrames = 0;
+        int detectedSpeech = 0;
+        int pauseTotal = 0;
+        int pauseSuppressed = 0;
+        for (int start = SETTLE_FRAMES; start + talkFrames < speech.length; start += talkFrames + pauseFrames) {
+            for (int i = start; i < start + talkFrames; i++) {
+                speechFrames++;
+                detectedSpeech += speech[i] ? 1 : 0;
+            }
+            // Allow for the hangover after each talkspurt
+            for (int i = start + talkFrames + HANGOVER_FRAMES + 5; i < Math.min(speech.length, start + talkFrames + pauseFrames); i++) {
+                pauseTotal++;
+                pauseSuppressed += speech[i] ? 0 : 1;
+            }
+        }
+        double hitRate = (double) detectedSpeech / speechFrames;
+        double suppressedRate = (double) pauseSuppressed / pauseTotal;
+        assertTrue("Speech frames should be sent, got " + hitRate, hitRate > 0.95);
+        assertTrue("Pauses should be suppressed, got " + suppressedRate, suppressedRate > 0.9);
+    }
+
+    @Test
+    public void testHangoverKeepsWordEndings() {
+        short[] pcm = cabinNoise(4, 300, 4);
+        int talkStart = SETTLE_FRAMES;
+        int talkEnd = talkStart + 20;
+        addSpeech(pcm, talkStart * FRAME_SAMPLES, (talkEnd - talkStart) * FRAME_SAMPLES, 2500, 0);
+
+        boolean[] speech = classify(pcm);
+
+        // 200 ms hangover at 20 ms frames
+        for (int i = talkEnd; i < talkEnd + HANGOVER_FRAMES; i++) {
+            assertTrue("Frame " + i + " should be held by the hangover", speech[i]);
+        }
+        assertFalse(speech[talkEnd + HANGOVER_FRAMES + 5]);
+    }
+
+    @Test
+    public void testNoiseFloorFollowsLouderRoad() {
+        // The car speeds up and cabin noise rises 12 dB halfway through
+        short[] quiet = cabinNoise(5, 300, 5);
+        short[] loud = cabinNoise(5, 1200, 6);
+        short[] pcm = new short[quiet.length + loud.length];
+        System.arraycopy(quiet, 0, pcm, 0, quiet.length);
+        System.arraycopy(loud, 0, pcm, quiet.length, loud.length);
+
+        boolean[] speech = classify(pcm);
+
+        // The step reads as speech until it has filled the noise window, then hangs over
+        int adapted = quiet.length / FRAME_SAMPLES + SETTLE_FRAMES + HANGOVER_FRAMES;
+        double suppressed = fraction(speech, adapted, speech.length, false);
+        assertTrue("Floor should adapt to the louder noise, got " + suppressed, suppressed > 0.95);
+        assertTrue(detector.getNoiseRms() > 600);
+    }
+
+    private boolean[] classify(short[] pcm) {
+        boolean[] speech = new boolean[pcm.length / FRAME_SAMPLES];
+        for (int i = 0; i < speech.length; i++) {
+            speech[i] = detector.isSpeech(pcm, i * FRAME_SAMPLES, FRAME_SAMPLES);
+        }
+        return speech;
+    }
+
+    private static double fraction(boolean[] values, int from, int to, boolean match) {
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            if (values[i] == match) {
+                hits++;
+            }
+        }
+        return (double) hits / (to - from);
+    }
+
+    /**
+     * Road rumble (low-passed noise) plus engine hum, scaled to the given RMS
+     */
+    private static short[] cabinNoise(int seconds, double rms, long seed) {
+        Random random = new Random(seed);
+        double[] signal = new double[seconds * RATE];
+        double rumble = 0;
+        double sum = 0;
+        for (int i = 0; i < signal.length; i++) {
+            rumble = 0.97 * rumble + 0.03 * random.nextGaussian();
+            double hum = 0.3 * Math.sin(2 * Math.PI * 45 * i / RATE) + 0.15 * Math.sin(2 * Math.PI * 90 * i / RATE);
+            signal[i] = rumble * 4 + hum * 0.5 + random.nextGaussian() * 0.1;
+            sum += signal[i] * signal[i];
+        }
+        double scale = rms / Math.sqrt(sum / signal.length);
+        short[] pcm = new short[signal.length];
+        for (int i = 0; i < signal.length; i++) {
+            pcm[i] = (short) Math.round(signal[i] * scale);
+        }
+        return pcm;
+    }
+
+    /**
+     * Mix in voiced speech: a gliding 110-170 Hz harmonic source shaped into
+     * syllables of about 250 ms, with a short unvoiced burst at each onset
+     */
+    private static void addSpeech(short[] pcm, int start, int length, double peak, long seed) {
+        Random random = new Random(seed);
+        double phase = 0;
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / RATE;
+            double pitch = 140 + 30 * Math.sin(2 * Math.PI * 0.7 * t);
+            phase += 2 * Math.PI * pitch / RATE;
+            double voiced = 0;
+            for (int harmonic = 1; harmonic <= 10; harmonic++) {
+                voiced += Math.sin(harmonic * phase) / harmonic;
+            }
+            double syllable = t * 4 % 1;
+            double envelope = 0.35 + 0.65 * Math.sin(Math.PI * syllable);
+            double fricative = syllable < 0.08 ? random.nextGaussian() * 0.3 : 0;
+            double value = pcm[start + i] + peak * envelope * (voiced * 0.6 + fricative);
+            pcm[start + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+        }
+    }
+}
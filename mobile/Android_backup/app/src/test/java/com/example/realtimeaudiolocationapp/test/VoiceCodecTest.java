@@ -0,0 +1,180 @@
+package com.example.realtimeaudiolocationapp.test;
+
+import com.example.realtimeaudiolocationapp.audio.AudioFrameHeader;
+import com.example.realtimeaudiolocationapp.audio.ImaAdpcmCodec;
+import com.example.realtimeaudiolocationapp.audio.Pcm16Codec;
+import com.example.realtimeaudiolocationapp.audio.Resampler;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodec;
+import com.example.realtimeaudiolocationapp.audio.VoiceCodecs;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM test for the voice codecs and the resampler
+ */
+public class VoiceCodecTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME_SAMPLES = 320; // 20 ms
+
+    @Test
+    public void testPcm16RoundTripIsLossless() {
+        VoiceCodec codec = new Pcm16Codec(RATE);
+        short[] input = tone(1000, RATE, FRAME_SAMPLES, 12000);
+        input[0] = Short.MIN_VALUE;
+        input[1] = Short.MAX_VALUE;
+
+        short[] output = roundTrip(codec, input);
+
+        assertArrayEquals(input, output);
+    }
+
+    @Test
+    public void testAdpcmIsQuarterSizeWithUsableQuality() {
+        VoiceCodec encoder = new ImaAdpcmCodec(RATE);
+        VoiceCodec decoder = new ImaAdpcmCodec(RATE);
+        short[] input = tone(440, RATE, FRAME_SAMPLES * 10, 10000);
+
+        ByteBuffer encoded = ByteBuffer.allocate(encoder.getMaxEncodedSize(FRAME_SAMPLES));
+        short[] output = new short[input.length];
+        for (int frame = 0; frame < 10; frame++) {
+            encoded.clear();
+            int size = encoder.encode(input, frame * FRAME_SAMPLES, FRAME_SAMPLES, encoded);
+            assertEquals(4 + FRAME_SAMPLES / 2, size);
+            encoded.flip();
+            assertEquals(FRAME_SAMPLES, decoder.decode(encoded, output, frame * FRAME_SAMPLES));
+        }
+
+        double snr = snr(input, output, FRAME_SAMPLES);
+        assertTrue("ADPCM SNR should exceed 20 dB, was " + snr, snr > 20);
+    }
+
+    @Test
+    public void testAdpcmFramesDecodeIndependently() {
+        VoiceCodec encoder = new ImaAdpcmCodec(RATE);
+        short[] input = tone(300, RATE, FRAME_SAMPLES * 3, 9000);
+        ByteBuffer[] frames = new ByteBuffer[3];
+        for (int i = 0; i < 3; i++) {
+            frames[i] = ByteBuffer.allocate(encoder.getMaxEncodedSize(FRAME_SAMPLES));
+            encoder.encode(input, i * FRAME_SAMPLES, FRAME_SAMPLES, frames[i]);
+            frames[i].flip();
+        }
+
+        // Decode the last frame only, as if the first two were lost
+        short[] inSequence = new short[FRAME_SAMPLES * 3];
+        VoiceCodec sequential = new ImaAdpcmCodec(RATE);
+        for (int i = 0; i < 3; i++) {
+            sequential.decode(frames[i].duplicate(), inSequence, i * FRAME_SAMPLES);
+        }
+        short[] alone = new short[FRAME_SAMPLES];
+        new ImaAdpcmCodec(RATE).decode(frames[2].duplicate(), alone, 0);
+
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            assertEquals(inSequence[2 * FRAME_SAMPLES + i], alone[i]);
+        }
+    }
+
+    @Test
+    public void testAdpcmOddSampleCount() {
+        VoiceCodec codec = new ImaAdpcmCodec(RATE);
+        short[] input = tone(500, RATE, 161, 5000);
+
+        short[] output = roundTrip(codec, input);
+
+        assertEquals(161, output.length);
+    }
+
+    @Test
+    public void testResamplerOutputRateAcrossBlocks() {
+        Resampler resampler = new Resampler(44100, RATE, 1000);
+        short[] input = tone(440, 44100, 44100, 10000);
+        short[] output = new short[resampler.getMaxOutputSamples(1000)];
+
+        // Uneven block sizes as delivered by AudioRecord
+        int produced = 0;
+        int offset = 0;
+        int[] blocks = {882, 1000, 337, 941};
+        for (int i = 0; offset < input.length; i++) {
+            int count = Math.min(blocks[i % blocks.length], input.length - offset);
+            produced += resampler.process(input, offset, count, output, 0);
+            offset += count;
+        }
+
+        assertTrue("One second of input should give 16000 samples, got " + produced,
+                Math.abs(produced - RATE) <= 1);
+    }
+
+    @Test
+    public void testResamplerKeepsVoiceBandAndRejectsAliases() {
+        double voice = resampledLevel(1000);
+        double alias = resampledLevel(12000);
+
+        assertTrue("1 kHz should pass, level " + voice, voice > 0.8);
+        assertTrue("12 kHz should be filtered before decimation, level " + alias, alias < 0.1);
+    }
+
+    @Test
+    public void testCodecFactory() {
+        assertEquals(AudioFrameHeader.CODEC_PCM16, VoiceCodecs.create(AudioFrameHeader.CODEC_PCM16, RATE).getCodecId());
+        assertEquals(AudioFrameHeader.CODEC_IMA_ADPCM,
+                VoiceCodecs.create(AudioFrameHeader.CODEC_IMA_ADPCM, RATE).getCodecId());
+        assertNull(VoiceCodecs.create(99, RATE));
+    }
+
+    private static short[] roundTrip(VoiceCodec codec, short[] input) {
+        ByteBuffer encoded = ByteBuffer.allocate(codec.getMaxEncodedSize(input.length));
+        codec.encode(input, 0, input.length, encoded);
+        encoded.flip();
+        short[] decoded = new short[input.length + 1];
+        int count = codec.decode(encoded, decoded, 0);
+        short[] output = new short[count];
+        System.arraycopy(decoded, 0, output, 0, count);
+        return output;
+    }
+
+    /**
+     * Output RMS relative to input RMS after resampling a tone from 44.1 kHz to 16 kHz
+     */
+    private static double resampledLevel(int frequency) {
+        Resampler resampler = new Resampler(44100, RATE, 4410);
+        short[] input = tone(frequency, 44100, 4410, 10000);
+        short[] output = new short[resampler.getMaxOutputSamples(4410)];
+        int count = resampler.process(input, 0, input.length, output, 0);
+        // Skip the filter's settling time
+        return rms(output, 200, count) / rms(input, 0, input.length);
+    }
+
+    private static short[] tone(double frequency, int sampleRate, int length, double amplitude) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) (Math.sin(2 * Math.PI * frequency * i / sampleRate) * amplitude);
+        }
+        return samples;
+    }
+
+    private static double rms(short[] samples, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += (double) samples[i] * samples[i];
+        }
+        return Math.sqrt(sum / (to - from));
+    }
+
+    private static double snr(short[] reference, short[] decoded, int skip) {
+        double signal = 0;
+        double noise = 0;
+        for (int i = skip; i < reference.length; i++) {
+            signal += (double) reference[i] * reference[i];
+            double error = reference[i] - decoded[i];
+            noise += error * error;
+        }
+        return 10 * Math.log10(signal / noise);
+    }
+}